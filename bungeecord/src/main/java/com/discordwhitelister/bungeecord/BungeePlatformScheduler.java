@@ -0,0 +1,58 @@
+package com.discordwhitelister.bungeecord;
+
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
+import net.md_5.bungee.api.plugin.Plugin;
+import net.md_5.bungee.api.scheduler.ScheduledTask;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler backed by the BungeeCord task scheduler
+ * The proxy has no main thread, so sync tasks run on its async pool
+ */
+public class BungeePlatformScheduler implements PlatformScheduler {
+    private final Plugin plugin;
+
+    public BungeePlatformScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void runSync(Runnable task) {
+        runAsync(task);
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        plugin.getProxy().getScheduler().runAsync(plugin, task);
+    }
+
+    @Override
+    public Task runSyncLater(Runnable task, long delayMillis) {
+        return runAsyncLater(task, delayMillis);
+    }
+
+    @Override
+    public Task runAsyncLater(Runnable task, long delayMillis) {
+        ScheduledTask scheduled = plugin.getProxy().getScheduler().schedule(plugin, task,
+            Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        return scheduled::cancel;
+    }
+
+    @Override
+    public Task runSyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        return runAsyncRepeating(task, delayMillis, periodMillis);
+    }
+
+    @Override
+    public Task runAsyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        ScheduledTask scheduled = plugin.getProxy().getScheduler().schedule(plugin, task,
+            Math.max(0, delayMillis), Math.max(1, periodMillis), TimeUnit.MILLISECONDS);
+        return scheduled::cancel;
+    }
+
+    @Override
+    public boolean hasMainThread() {
+        return false;
+    }
+}
@@ -1,18 +1,21 @@
 package com.discordwhitelister.bungeecord;
 
 import com.discordwhitelister.common.DiscordWhitelisterService;
+import com.discordwhitelister.common.config.GuildSettings;
 import com.discordwhitelister.common.config.WhitelisterConfig;
 import com.discordwhitelister.common.discord.DiscordBot;
-import com.discordwhitelister.common.lookup.MinecraftPlayerLookup;
-import com.discordwhitelister.common.lookup.MojangPlayerLookup;
-import com.discordwhitelister.common.storage.JsonWhitelistStorage;
+import com.discordwhitelister.common.login.LoginResult;
+import com.discordwhitelister.common.lookup.CachingPlayerLookup;
+import com.discordwhitelister.common.lookup.ChainedPlayerLookup;
+import com.discordwhitelister.common.lookup.LocalPlayerLookup;
+import com.discordwhitelister.common.lookup.MinecraftPlayerLookup.PlayerInfo;
+import com.discordwhitelister.common.request.RequestScheduler;
 import com.discordwhitelister.common.storage.WhitelistedPlayer;
 import com.discordwhitelister.common.storage.WhitelistStorage;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.CommandSender;
-import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.event.LoginEvent;
@@ -28,11 +31,15 @@ import net.md_5.bungee.event.EventHandler;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 /**
  * BungeeCord implementation of Discord Whitelister
@@ -41,7 +48,7 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
     private DiscordWhitelisterService service;
     private WhitelisterConfig config;
     private WhitelistStorage whitelistStorage;
-    private MinecraftPlayerLookup playerLookup;
+    private LocalPlayerLookup localLookup;
     private boolean enforceWhitelist = true;
 
     @Override
@@ -64,14 +71,8 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
         // Load configuration
         loadConfiguration();
 
-        // Initialize whitelist storage
-        initializeWhitelistStorage();
-
-        // Initialize player lookup
-        playerLookup = new MojangPlayerLookup();
-
-        // Initialize Discord bot
-        initializeDiscordBot();
+        // Initialize storage, login checks and Discord bot
+        initializeService();
 
         // Register event listener
         getProxy().getPluginManager().registerListener(this, this);
@@ -100,13 +101,73 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
             config.setGuildId(bungeeConfig.getString("discord.guild-id", ""));
             config.setChannelId(bungeeConfig.getString("discord.channel-id", ""));
             config.setMessageFormat(bungeeConfig.getString("discord.message-format", "whitelist {username}"));
+            config.setMessageAliases(bungeeConfig.getStringList("discord.message-aliases"));
+            config.setBedrockMessageFormat(bungeeConfig.getString("discord.bedrock-message-format", "bedrock {username} xuid:{xuid}"));
             config.setSuccessMessage(bungeeConfig.getString("discord.success-message", "You have been whitelisted!"));
+            config.setRequestMode(bungeeConfig.getString("discord.request-mode", "both"));
+            config.setLeanMode(bungeeConfig.getBoolean("discord.lean-mode", false));
+            config.setLeanMemberCacheSize(bungeeConfig.getInt("discord.lean-member-cache-size", 1000));
             config.setRequireRole(bungeeConfig.getBoolean("discord.require-role", false));
             config.setRequiredRoleId(bungeeConfig.getString("discord.required-role-id", ""));
+            config.setRevokeOnRoleLoss(bungeeConfig.getBoolean("discord.revoke-on-role-loss", false));
+            config.setShardCount(bungeeConfig.getInt("discord.shard-count", -1));
+            
+            // Additional guilds, keyed by guild ID
+            Configuration guildsSection = bungeeConfig.getSection("discord.guilds");
+            Map<String, GuildSettings> guilds = new LinkedHashMap<>();
+            for (String guildId : guildsSection.getKeys()) {
+                Configuration guild = guildsSection.getSection(guildId);
+                guilds.put(guildId, new GuildSettings(
+                    guildId,
+                    guild.getString("channel-id", null),
+                    guild.getString("required-role-id", null),
+                    guild.getString("message-format", null),
+                    guild.getStringList("message-aliases"),
+                    guild.getString("bedrock-message-format", null),
+                    guild.getString("success-message", null)
+                ));
+            }
+            config.setGuilds(guilds);
 
             config.setStorageType(bungeeConfig.getString("storage.type", "json"));
             config.setStoragePath(new File(getDataFolder(), bungeeConfig.getString("storage.file", "whitelist.json")).getAbsolutePath());
 
+            config.setRequestMaxConcurrent(bungeeConfig.getInt("requests.max-concurrent", 10));
+            config.setRequestQueueSize(bungeeConfig.getInt("requests.queue-size", 500));
+            config.setRequestUserBurst(bungeeConfig.getInt("requests.per-user-burst", 3));
+            config.setRequestUserPeriodSeconds(bungeeConfig.getInt("requests.per-user-period-seconds", 60));
+            config.setRequestBatchSize(bungeeConfig.getInt("requests.batch-size", 10));
+            config.setRequestBatchWindowMillis(bungeeConfig.getLong("requests.batch-window-millis", 75));
+            
+            config.setWorkerMode(bungeeConfig.getString("workers.mode", "auto"));
+            config.setWorkerMaxThreads(bungeeConfig.getInt("workers.max-threads", 16));
+            
+            config.setLookupMode(bungeeConfig.getString("lookup.mode", "online"));
+            config.setLookupCacheSize(bungeeConfig.getInt("lookup.cache-size", 10000));
+            config.setLookupCacheTtlSeconds(bungeeConfig.getLong("lookup.cache-ttl-seconds", 21600));
+            config.setLookupNegativeTtlSeconds(bungeeConfig.getLong("lookup.negative-ttl-seconds", 300));
+            config.setLookupCacheFile(new File(getDataFolder(), bungeeConfig.getString("lookup.cache-file", "lookup-cache.json")).getAbsolutePath());
+            config.setLookupApiUrl(bungeeConfig.getString("lookup.api-url", "https://api.mojang.com"));
+            config.setLookupRequestsPerMinute(bungeeConfig.getInt("lookup.requests-per-minute", 60));
+            config.setLookupMaxRetries(bungeeConfig.getInt("lookup.max-retries", 4));
+            config.setLookupRefreshEnabled(bungeeConfig.getBoolean("lookup.refresh-enabled", true));
+            config.setLookupRefreshIntervalSeconds(bungeeConfig.getLong("lookup.refresh-interval-seconds", 60));
+            config.setLookupRefreshDailyBudget(bungeeConfig.getInt("lookup.refresh-daily-budget", 1000));
+            config.setLookupRefreshCheckpointFile(new File(getDataFolder(), bungeeConfig.getString("lookup.refresh-checkpoint-file", "name-refresh.json")).getAbsolutePath());
+            config.setBedrockLookupEnabled(bungeeConfig.getBoolean("lookup.bedrock-enabled", true));
+            config.setBedrockLookupApiUrl(bungeeConfig.getString("lookup.bedrock-api-url", "https://api.geysermc.org"));
+            config.setBedrockLookupMaxConcurrent(bungeeConfig.getInt("lookup.bedrock-max-concurrent", 4));
+            config.setBedrockLookupCacheSize(bungeeConfig.getInt("lookup.bedrock-cache-size", 1000));
+            config.setBedrockLookupCacheTtlSeconds(bungeeConfig.getLong("lookup.bedrock-cache-ttl-seconds", 86400));
+
+            config.setLoginThrottleEnabled(bungeeConfig.getBoolean("login.throttle-enabled", true));
+            config.setLoginThrottleBurst(bungeeConfig.getInt("login.throttle-burst", 10));
+            config.setLoginThrottleRefillPerSecond(bungeeConfig.getDouble("login.throttle-per-second", 1.0));
+            config.setDenialCacheSeconds(bungeeConfig.getInt("login.denial-cache-seconds", 30));
+            config.setDenialCacheMaxEntries(bungeeConfig.getInt("login.denial-cache-size", 10000));
+            config.setPrefixDenialThreshold(bungeeConfig.getInt("login.prefix-denial-threshold", 50));
+            config.setDenialLogIntervalSeconds(bungeeConfig.getInt("login.log-interval-seconds", 10));
+
             enforceWhitelist = bungeeConfig.getBoolean("enforce-whitelist", true);
 
         } catch (IOException e) {
@@ -114,23 +175,22 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
         }
     }
 
-    private void initializeWhitelistStorage() {
-        String storageType = config.getStorageType();
-        if (storageType.equalsIgnoreCase("json")) {
-            whitelistStorage = new JsonWhitelistStorage(config);
-        } else {
-            getLogger().warning("Unknown storage type: " + storageType + ". Using JSON storage.");
-            whitelistStorage = new JsonWhitelistStorage(config);
-        }
-        
-        whitelistStorage.initialize();
-    }
-
-    private void initializeDiscordBot() {
-        DiscordBot discordBot = new DiscordBot(config, whitelistStorage, playerLookup);
+    private void initializeService() {
         service = new DiscordWhitelisterService(config);
+        service.setPlatformScheduler(new BungeePlatformScheduler(this));
+        
+        // Players on or seen by the proxy are resolved without asking Mojang, but only if their UUIDs came from Mojang
+        if (!config.isOfflineLookupMode() && getProxy().getConfig().isOnlineMode()) {
+            localLookup = new LocalPlayerLookup(name -> {
+                ProxiedPlayer player = getProxy().getPlayer(name);
+                return player != null ? new PlayerInfo(player.getName(), player.getUniqueId(), null) : null;
+            }, config.getLookupCacheSize());
+            service.addLocalLookup("proxy", localLookup);
+        }
         service.initialize();
-        service.start();
+        
+        // Share the service's storage so commands, login checks and the bot see the same data
+        whitelistStorage = service.getWhitelistStorage();
     }
 
     @EventHandler
@@ -142,6 +202,8 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
         String username = event.getConnection().getName();
         UUID uuid = event.getConnection().getUniqueId();
         String xuid = null;
+        InetAddress address = event.getConnection().getAddress().getAddress();
+        LoginResult result;
 
         // Check if this is a Bedrock player via Geyser
         // Geyser players have a specific prefix in their UUID
@@ -153,22 +215,23 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
             xuid = uuidStr.substring(uuidStr.lastIndexOf("-") + 1);
             
             // Check if Bedrock player is whitelisted
-            if (!whitelistStorage.isBedrockWhitelisted(xuid)) {
-                event.setCancelled(true);
-                event.setCancelReason(new TextComponent(ChatColor.RED + "You are not whitelisted on this server!"));
-            }
+            result = service.getLoginGate().checkBedrock(username, xuid, address);
         } else {
             // This is a Java player
-            if (!whitelistStorage.isWhitelisted(username)) {
-                event.setCancelled(true);
-                event.setCancelReason(new TextComponent(ChatColor.RED + "You are not whitelisted on this server!"));
-            }
+            result = service.getLoginGate().checkJava(username, address);
+        }
+
+        if (!result.isAllowed()) {
+            event.setCancelled(true);
+            event.setCancelReason(new TextComponent(ChatColor.RED + "You are not whitelisted on this server!"));
         }
     }
 
     @EventHandler
     public void onPostLogin(PostLoginEvent event) {
-        // You can add additional logic here if needed
+        if (localLookup != null) {
+            localLookup.remember(event.getPlayer().getName(), event.getPlayer().getUniqueId());
+        }
     }
 
     public boolean addToWhitelist(String username, UUID uuid, String discordId) {
@@ -205,19 +268,15 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
     }
 
     public void reloadPluginConfig() {
-        // Stop the current service
-        if (service != null) {
-            service.shutdown();
-        }
-        
         // Reload configuration
         loadConfiguration();
         
-        // Initialize whitelist storage
-        initializeWhitelistStorage();
-        
-        // Initialize Discord bot
-        initializeDiscordBot();
+        // Swap in the new settings; the Discord bot only reconnects if its connection settings changed
+        if (service != null) {
+            service.reload(config);
+        } else {
+            initializeService();
+        }
     }
 
     /**
@@ -238,21 +297,22 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
             
             String subCommand = args[0].toLowerCase();
             
+            // Storage calls block, so those subcommands run on the proxy's async pool instead of a network thread
             switch (subCommand) {
                 case "add":
                     handleAddCommand(sender, args);
                     break;
                 case "addbedrock":
-                    handleAddBedrockCommand(sender, args);
+                    service.getPlatformScheduler().runAsync(() -> handleAddBedrockCommand(sender, args));
                     break;
                 case "remove":
-                    handleRemoveCommand(sender, args);
+                    service.getPlatformScheduler().runAsync(() -> handleRemoveCommand(sender, args));
                     break;
                 case "list":
-                    handleListCommand(sender, args);
+                    service.getPlatformScheduler().runAsync(() -> handleListCommand(sender, args));
                     break;
                 case "status":
-                    handleStatusCommand(sender);
+                    service.getPlatformScheduler().runAsync(() -> handleStatusCommand(sender));
                     break;
                 case "reload":
                     handleReloadCommand(sender);
@@ -278,18 +338,18 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
             String username = args[1];
             String discordId = args.length > 2 ? args[2] : "manual-" + System.currentTimeMillis();
             
-            // Try to get UUID from ProxyServer
-            ProxiedPlayer player = ProxyServer.getInstance().getPlayer(username);
-            UUID uuid = player != null ? player.getUniqueId() : null;
-            
-            // Add to whitelist
-            boolean added = addToWhitelist(username, uuid, discordId);
-            
-            if (added) {
-                sender.sendMessage(new TextComponent(ChatColor.GREEN + "Player " + username + " has been added to the whitelist."));
-            } else {
-                sender.sendMessage(new TextComponent(ChatColor.RED + "Failed to add player " + username + " to the whitelist. They may already be whitelisted."));
-            }
+            // Resolve the UUID from players the proxy knows first and Mojang last
+            service.getPlayerLookup().lookupPlayer(username).whenComplete((player, ex) -> {
+                if (ex != null) {
+                    sender.sendMessage(new TextComponent(ChatColor.RED + "Couldn't look up " + username + " right now. Please try again later."));
+                } else if (player == null) {
+                    sender.sendMessage(new TextComponent(ChatColor.RED + "No Minecraft account named " + username + " was found."));
+                } else if (addToWhitelist(player.username(), player.uuid(), discordId)) {
+                    sender.sendMessage(new TextComponent(ChatColor.GREEN + "Player " + player.username() + " has been added to the whitelist."));
+                } else {
+                    sender.sendMessage(new TextComponent(ChatColor.RED + "Failed to add player " + player.username() + " to the whitelist. They may already be whitelisted."));
+                }
+            });
         }
         
         private void handleAddBedrockCommand(CommandSender sender, String[] args) {
@@ -401,12 +461,12 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
                 return;
             }
             
-            boolean botConnected = getDiscordBot().getJda() != null && 
-                                  getDiscordBot().getJda().getStatus() == net.dv8tion.jda.api.JDA.Status.CONNECTED;
+            DiscordBot.Status botStatus = getDiscordBot().getStatus();
+            ChatColor statusColor = botStatus == DiscordBot.Status.READY ? ChatColor.GREEN
+                : botStatus == DiscordBot.Status.CONNECTING ? ChatColor.GOLD : ChatColor.RED;
             
             sender.sendMessage(new TextComponent(ChatColor.GREEN + "Discord Whitelister Status:"));
-            sender.sendMessage(new TextComponent(ChatColor.YELLOW + "Discord Bot: " + 
-                              (botConnected ? ChatColor.GREEN + "Connected" : ChatColor.RED + "Disconnected")));
+            sender.sendMessage(new TextComponent(ChatColor.YELLOW + "Discord Bot: " + statusColor + botStatus.getDisplayName()));
             
             List<WhitelistedPlayer> players = getWhitelistedPlayers();
             long javaCount = players.stream().filter(p -> !p.isBedrock()).count();
@@ -414,6 +474,24 @@ public class DiscordWhitelisterBungee extends Plugin implements Listener {
             
             sender.sendMessage(new TextComponent(ChatColor.YELLOW + "Whitelisted Players: " + ChatColor.WHITE + players.size() + 
                               " (" + javaCount + " Java, " + bedrockCount + " Bedrock)"));
+            
+            RequestScheduler.Stats queue = getDiscordBot().getRequestScheduler().getStats();
+            sender.sendMessage(new TextComponent(ChatColor.YELLOW + "Request Queue: " + ChatColor.WHITE + queue.queueDepth() + " waiting, " + 
+                              queue.running() + " running" + String.format(" (avg wait %.0f ms, max %.0f ms)", 
+                              queue.averageWaitMillis(), queue.maxWaitMillis())));
+            
+            String tiers = service.getLookupChain().getStats().stream()
+                .map(ChainedPlayerLookup.TierStats::format)
+                .collect(Collectors.joining(", "));
+            sender.sendMessage(new TextComponent(ChatColor.YELLOW + "Lookup Tiers: " + ChatColor.WHITE + tiers));
+            
+            CachingPlayerLookup lookupCache = service.getLookupCache();
+            if (lookupCache != null) {
+                CachingPlayerLookup.Stats cache = lookupCache.getStats();
+                sender.sendMessage(new TextComponent(ChatColor.YELLOW + "Lookup Cache: " + ChatColor.WHITE + cache.size() + " names" +
+                                  String.format(" (%.0f%% hit rate, %d misses, %d evictions)",
+                                  cache.hitRate() * 100, cache.misses(), cache.evictions())));
+            }
         }
         
         private void handleReloadCommand(CommandSender sender) {
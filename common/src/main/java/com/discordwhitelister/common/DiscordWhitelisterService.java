@@ -1,15 +1,33 @@
 package com.discordwhitelister.common;
 
+import com.discordwhitelister.common.config.ConfigHolder;
 import com.discordwhitelister.common.config.WhitelisterConfig;
 import com.discordwhitelister.common.discord.DiscordBot;
+import com.discordwhitelister.common.login.LoginGate;
+import com.discordwhitelister.common.lookup.CachingPlayerLookup;
+import com.discordwhitelister.common.lookup.ChainedPlayerLookup;
+import com.discordwhitelister.common.lookup.GeyserXuidResolver;
 import com.discordwhitelister.common.lookup.MinecraftPlayerLookup;
 import com.discordwhitelister.common.lookup.MojangPlayerLookup;
+import com.discordwhitelister.common.lookup.MojangRequestScheduler;
+import com.discordwhitelister.common.lookup.NameRefreshCrawler;
+import com.discordwhitelister.common.lookup.OfflinePlayerLookup;
+import com.discordwhitelister.common.lookup.XuidResolver;
+import com.discordwhitelister.common.scheduler.ExecutorPlatformScheduler;
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
 import com.discordwhitelister.common.storage.DatabaseWhitelistStorage;
 import com.discordwhitelister.common.storage.JsonWhitelistStorage;
+import com.discordwhitelister.common.storage.ObservableWhitelistStorage;
+import com.discordwhitelister.common.storage.WhitelistChangeListener;
 import com.discordwhitelister.common.storage.WhitelistStorage;
+import com.discordwhitelister.common.util.WorkerPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -17,68 +35,246 @@ import java.util.concurrent.CompletableFuture;
  */
 public class DiscordWhitelisterService {
     private static final Logger LOGGER = LoggerFactory.getLogger(DiscordWhitelisterService.class);
+    private static final long CACHE_SAVE_INTERVAL_MILLIS = 5 * 60 * 1000;
     
-    private final WhitelisterConfig config;
-    private WhitelistStorage whitelistStorage;
+    private final ConfigHolder configHolder;
+    private WorkerPool workers;
+    private PlatformScheduler platformScheduler;
+    private ExecutorPlatformScheduler ownedScheduler;
+    private PlatformScheduler.Task cacheSaveTask;
+    private ObservableWhitelistStorage whitelistStorage;
     private MinecraftPlayerLookup playerLookup;
+    private MojangRequestScheduler mojangScheduler;
+    private MojangPlayerLookup mojangLookup;
+    private CachingPlayerLookup lookupCache;
+    private ChainedPlayerLookup lookupChain;
+    private XuidResolver xuidResolver;
+    private NameRefreshCrawler nameRefresh;
+    private final List<ChainedPlayerLookup.Tier> localLookups = new ArrayList<>();
     private DiscordBot discordBot;
+    private LoginGate loginGate;
     
     public DiscordWhitelisterService(WhitelisterConfig config) {
-        this.config = config;
+        this.configHolder = new ConfigHolder(config);
+    }
+    
+    /**
+     * Add a platform-local player source that is asked before the lookup cache and Mojang
+     * Must be called before initialize()
+     * 
+     * @param name Name of the source shown in lookup statistics
+     * @param lookup The source; a null result means the source doesn't know the name
+     */
+    public void addLocalLookup(String name, MinecraftPlayerLookup lookup) {
+        localLookups.add(new ChainedPlayerLookup.Tier(name, lookup));
+    }
+    
+    /**
+     * Set the scheduler for the platform's own threads
+     * Must be called before initialize(); without one, tasks run on the service's workers
+     * 
+     * @param scheduler The platform scheduler
+     */
+    public void setPlatformScheduler(PlatformScheduler scheduler) {
+        this.platformScheduler = scheduler;
     }
     
     /**
      * Initialize the service
      */
     public void initialize() {
+        // Blocking work runs on dedicated workers instead of JDA's or the server's threads
+        WhitelisterConfig config = configHolder.get();
+        workers = WorkerPool.create("Worker", config.getWorkerMode(), config.getWorkerMaxThreads());
+        if (platformScheduler == null) {
+            ownedScheduler = new ExecutorPlatformScheduler(workers);
+            platformScheduler = ownedScheduler;
+        }
+        
+        // Bedrock XUIDs don't depend on the lookup mode, so gamertags are resolved in either mode
+        if (config.isBedrockLookupEnabled()) {
+            xuidResolver = new GeyserXuidResolver(workers, config.getBedrockLookupApiUrl(),
+                config.getBedrockLookupMaxConcurrent(), config.getBedrockLookupCacheSize(),
+                config.getBedrockLookupCacheTtlSeconds(), config.getLookupNegativeTtlSeconds());
+        }
+        
         // Initialize player lookup
-        playerLookup = new MojangPlayerLookup();
+        if (config.isOfflineLookupMode()) {
+            // Offline-mode UUIDs are derived from the name, so nothing is sent to Mojang
+            lookupChain = new ChainedPlayerLookup(List.of(new ChainedPlayerLookup.Tier("offline", new OfflinePlayerLookup())), xuidResolver);
+            playerLookup = lookupChain;
+        } else {
+            initializeMojangLookup(config);
+        }
         
         // Initialize storage
         initializeStorage();
         
+        // Offline-mode names can't change under a UUID, so only online servers are refreshed
+        if (mojangLookup != null && config.isLookupRefreshEnabled()) {
+            String checkpointFile = config.getLookupRefreshCheckpointFile();
+            nameRefresh = new NameRefreshCrawler(whitelistStorage, mojangLookup, lookupCache,
+                config.getLookupRefreshDailyBudget(),
+                checkpointFile != null && !checkpointFile.isEmpty() ? Path.of(checkpointFile) : null,
+                platformScheduler);
+            nameRefresh.start(config.getLookupRefreshIntervalSeconds());
+        }
+        
+        // Initialize login checks
+        loginGate = new LoginGate(configHolder, whitelistStorage);
+        whitelistStorage.addListener(loginGate);
+        
         // Initialize Discord bot
-        discordBot = new DiscordBot(config, whitelistStorage, playerLookup);
+        discordBot = new DiscordBot(configHolder, whitelistStorage, playerLookup, workers);
         
         // Start the Discord bot
         start();
     }
     
+    /**
+     * Initialize the lookup chain for servers using Mojang UUIDs
+     * 
+     * @param config The configuration
+     */
+    private void initializeMojangLookup(WhitelisterConfig config) {
+        // Lookups are sent to Mojang in bulk requests of up to 10 names, paced to stay under the rate limit
+        mojangScheduler = new MojangRequestScheduler(workers, config.getLookupRequestsPerMinute(), config.getLookupMaxRetries());
+        mojangLookup = new MojangPlayerLookup(mojangScheduler, config.getLookupApiUrl());
+        mojangLookup.warmUp();
+        playerLookup = mojangLookup;
+        if (config.getLookupCacheSize() > 0) {
+            String cacheFile = config.getLookupCacheFile();
+            lookupCache = new CachingPlayerLookup(playerLookup, config.getLookupCacheSize(),
+                config.getLookupCacheTtlSeconds(), config.getLookupNegativeTtlSeconds(),
+                cacheFile != null && !cacheFile.isEmpty() ? Path.of(cacheFile) : null);
+            playerLookup = lookupCache;
+            
+            // Save the cache now and then so a crash doesn't lose it
+            if (cacheFile != null && !cacheFile.isEmpty()) {
+                cacheSaveTask = platformScheduler.runAsyncRepeating(lookupCache::save,
+                    CACHE_SAVE_INTERVAL_MILLIS, CACHE_SAVE_INTERVAL_MILLIS);
+            }
+        }
+        
+        // Players the server already knows are resolved locally before anything else
+        List<ChainedPlayerLookup.Tier> tiers = new ArrayList<>(localLookups);
+        tiers.add(new ChainedPlayerLookup.Tier("mojang", playerLookup));
+        lookupChain = new ChainedPlayerLookup(tiers, xuidResolver);
+        playerLookup = lookupChain;
+    }
+    
     /**
      * Initialize the storage based on configuration
      */
     private void initializeStorage() {
+        WhitelisterConfig config = configHolder.get();
         String storageType = config.getStorageType();
+        WhitelistStorage storage;
         
         if (storageType.equalsIgnoreCase("database")) {
-            whitelistStorage = new DatabaseWhitelistStorage(config);
+            storage = new DatabaseWhitelistStorage(config);
         } else {
             // Default to JSON storage
-            whitelistStorage = new JsonWhitelistStorage(config);
+            storage = new JsonWhitelistStorage(config);
         }
         
+        // Wrap the storage so other components can react to changes
+        whitelistStorage = new ObservableWhitelistStorage(storage);
         whitelistStorage.initialize();
         LOGGER.info("Initialized {} storage", storageType);
     }
     
     /**
      * Start the service
+     * Storage and login checks are available as soon as initialize() returns; this only waits for Discord
      * 
-     * @return CompletableFuture that completes when the service is started
+     * @return CompletableFuture that completes when the Discord bot is ready or has failed to connect
      */
     public CompletableFuture<Void> start() {
-        return discordBot.start().exceptionally(ex -> {
-            LOGGER.error("Failed to start Discord bot", ex);
-            return null;
-        });
+        // The bot connects in the background and logs its own failures
+        return discordBot.start().exceptionally(ex -> null);
+    }
+    
+    /**
+     * Apply a new configuration without restarting the service
+     * The Discord gateway reconnects only if the token or connection settings changed
+     * 
+     * @param config The new configuration
+     */
+    public void reload(WhitelisterConfig config) {
+        WhitelisterConfig previous = configHolder.set(config);
+        WhitelisterConfig current = configHolder.get();
+        
+        if (!Objects.equals(previous.getStorageType(), current.getStorageType())
+                || !Objects.equals(previous.getStoragePath(), current.getStoragePath())
+                || !Objects.equals(previous.getDatabaseUrl(), current.getDatabaseUrl())) {
+            LOGGER.warn("Storage settings changed; restart the server to apply them");
+        }
+        if (!Objects.equals(previous.getWorkerMode(), current.getWorkerMode())
+                || previous.getWorkerMaxThreads() != current.getWorkerMaxThreads()) {
+            LOGGER.warn("Worker settings changed; restart the server to apply them");
+        }
+        if (!Objects.equals(previous.getLookupMode(), current.getLookupMode())
+                || previous.getLookupCacheSize() != current.getLookupCacheSize()
+                || previous.getLookupCacheTtlSeconds() != current.getLookupCacheTtlSeconds()
+                || previous.getLookupNegativeTtlSeconds() != current.getLookupNegativeTtlSeconds()
+                || !Objects.equals(previous.getLookupCacheFile(), current.getLookupCacheFile())
+                || !Objects.equals(previous.getLookupApiUrl(), current.getLookupApiUrl())
+                || previous.getLookupRequestsPerMinute() != current.getLookupRequestsPerMinute()
+                || previous.getLookupMaxRetries() != current.getLookupMaxRetries()
+                || previous.isLookupRefreshEnabled() != current.isLookupRefreshEnabled()
+                || previous.getLookupRefreshIntervalSeconds() != current.getLookupRefreshIntervalSeconds()
+                || previous.getLookupRefreshDailyBudget() != current.getLookupRefreshDailyBudget()
+                || !Objects.equals(previous.getLookupRefreshCheckpointFile(), current.getLookupRefreshCheckpointFile())
+                || previous.isBedrockLookupEnabled() != current.isBedrockLookupEnabled()
+                || !Objects.equals(previous.getBedrockLookupApiUrl(), current.getBedrockLookupApiUrl())
+                || previous.getBedrockLookupMaxConcurrent() != current.getBedrockLookupMaxConcurrent()
+                || previous.getBedrockLookupCacheSize() != current.getBedrockLookupCacheSize()
+                || previous.getBedrockLookupCacheTtlSeconds() != current.getBedrockLookupCacheTtlSeconds()) {
+            LOGGER.warn("Lookup settings changed; restart the server to apply them");
+        }
+        
+        if (loginGate != null) {
+            loginGate.configChanged(previous, current);
+        }
+        if (discordBot != null) {
+            discordBot.configChanged(previous, current);
+        }
+        
+        LOGGER.info("Applied configuration version {}", current.getVersion());
     }
     
     /**
      * Shutdown the service
      */
     public void shutdown() {
+        if (nameRefresh != null) {
+            nameRefresh.close();
+        }
+        if (cacheSaveTask != null) {
+            cacheSaveTask.cancel();
+        }
         if (discordBot != null) {
-            discordBot.stop();
+            discordBot.shutdown();
+        }
+        
+        if (mojangLookup != null) {
+            mojangLookup.close();
+        }
+        if (mojangScheduler != null) {
+            mojangScheduler.close();
+        }
+        
+        // Let queued storage writes finish before the storage is closed
+        if (workers != null) {
+            workers.close();
+        }
+        
+        if (lookupCache != null) {
+            lookupCache.close();
+        }
+        if (ownedScheduler != null) {
+            ownedScheduler.close();
         }
         
         if (whitelistStorage instanceof AutoCloseable) {
@@ -90,6 +286,16 @@ public class DiscordWhitelisterService {
         }
     }
     
+    /**
+     * Register a listener for whitelist changes, for example to mirror them into a platform's own whitelist
+     * Call this after initialize()
+     * 
+     * @param listener The listener to add
+     */
+    public void addWhitelistListener(WhitelistChangeListener listener) {
+        whitelistStorage.addListener(listener);
+    }
+    
     /**
      * Get the whitelist storage
      * 
@@ -99,6 +305,15 @@ public class DiscordWhitelisterService {
         return whitelistStorage;
     }
     
+    /**
+     * Get the shared login check
+     * 
+     * @return The login gate
+     */
+    public LoginGate getLoginGate() {
+        return loginGate;
+    }
+    
     /**
      * Get the Discord bot
      * 
@@ -109,11 +324,66 @@ public class DiscordWhitelisterService {
     }
     
     /**
-     * Get the configuration
+     * Get the player lookup used for Discord requests and admin commands
+     * 
+     * @return The player lookup
+     */
+    public MinecraftPlayerLookup getPlayerLookup() {
+        return playerLookup;
+    }
+    
+    /**
+     * Get the chain of lookup tiers, for statistics
+     * 
+     * @return The lookup chain
+     */
+    public ChainedPlayerLookup getLookupChain() {
+        return lookupChain;
+    }
+    
+    /**
+     * Get the player lookup cache
+     * 
+     * @return The lookup cache, or null if caching is disabled or in offline lookup mode
+     */
+    public CachingPlayerLookup getLookupCache() {
+        return lookupCache;
+    }
+    
+    /**
+     * Get the scheduler pacing requests to the Mojang API
+     * 
+     * @return The request scheduler, or null in offline lookup mode
+     */
+    public MojangRequestScheduler getMojangScheduler() {
+        return mojangScheduler;
+    }
+    
+    /**
+     * Get the scheduler for the platform's own threads
+     * 
+     * @return The platform scheduler, or one running on the workers if the platform set none
+     */
+    public PlatformScheduler getPlatformScheduler() {
+        return platformScheduler;
+    }
+    
+    /**
+     * Get the executor for blocking whitelist work
+     * 
+     * @return The worker pool
+     */
+    public WorkerPool getWorkers() {
+        return workers;
+    }
+    
+    /**
+     * Get the current configuration snapshot
+     * The snapshot is read-only; use reload() to change the configuration
      * 
-     * @return The configuration
+     * @return The current configuration
      */
     public WhitelisterConfig getConfig() {
-        return config;
+        return configHolder.get();
     }
 }
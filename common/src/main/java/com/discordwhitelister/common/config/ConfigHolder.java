@@ -0,0 +1,37 @@
+package com.discordwhitelister.common.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current configuration as an immutable, versioned snapshot
+ * Readers take one snapshot per event and see a consistent configuration, while a reload
+ * swaps in a new snapshot atomically
+ */
+public class ConfigHolder {
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<WhitelisterConfig> current = new AtomicReference<>();
+    
+    public ConfigHolder(WhitelisterConfig initial) {
+        set(initial);
+    }
+    
+    /**
+     * Get the current configuration snapshot
+     * 
+     * @return The current snapshot
+     */
+    public WhitelisterConfig get() {
+        return current.get();
+    }
+    
+    /**
+     * Replace the current configuration
+     * 
+     * @param config The new configuration, which is copied into a new snapshot
+     * @return The previous snapshot, or null if there was none
+     */
+    public WhitelisterConfig set(WhitelisterConfig config) {
+        return current.getAndSet(config.snapshot(versions.incrementAndGet()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.discordwhitelister.common.config;
+
+import java.util.List;
+
+/**
+ * Whitelist request settings for a single Discord guild
+ * Template fields that are null (or an empty alias list) fall back to the global settings
+ *
+ * @param guildId The guild ID
+ * @param channelId The channel whitelist requests are accepted in
+ * @param requiredRoleId The role needed to make requests, or null if no role is required
+ * @param messageFormat The Java Edition request format
+ * @param messageAliases Additional Java Edition request formats
+ * @param bedrockMessageFormat The Bedrock Edition request format
+ * @param successMessage The reply sent when a player is whitelisted
+ */
+public record GuildSettings(String guildId, String channelId, String requiredRoleId, String messageFormat,
+                            List<String> messageAliases, String bedrockMessageFormat, String successMessage) {
+
+    public GuildSettings {
+        messageAliases = messageAliases != null ? List.copyOf(messageAliases) : List.of();
+    }
+
+    /**
+     * Check if a role is needed to make whitelist requests in this guild
+     *
+     * @return true if a role is required
+     */
+    public boolean isRoleRequired() {
+        return requiredRoleId != null && !requiredRoleId.isEmpty();
+    }
+
+    /**
+     * Fill unset template fields from the global settings
+     *
+     * @param defaults The global configuration
+     * @return Settings with every template field set
+     */
+    public GuildSettings withDefaults(WhitelisterConfig defaults) {
+        return new GuildSettings(
+            guildId,
+            channelId,
+            requiredRoleId,
+            messageFormat != null ? messageFormat : defaults.getMessageFormat(),
+            !messageAliases.isEmpty() ? messageAliases : defaults.getMessageAliases(),
+            bedrockMessageFormat != null ? bedrockMessageFormat : defaults.getBedrockMessageFormat(),
+            successMessage != null ? successMessage : defaults.getSuccessMessage()
+        );
+    }
+}
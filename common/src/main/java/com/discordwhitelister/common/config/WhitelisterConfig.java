@@ -1,5 +1,12 @@
 package com.discordwhitelister.common.config;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Configuration class for Discord Whitelister
  * Contains settings that are common across all platforms
@@ -14,17 +21,216 @@ public class WhitelisterConfig {
     private String databasePassword;
     private String jsonFilePath;
     private String messageFormat;
+    private List<String> messageAliases;
+    private String bedrockMessageFormat;
     private String successMessage;
+    private String requestMode; // "text", "slash" or "both"
+    private boolean leanMode;
+    private int leanMemberCacheSize;
     private boolean requireRole;
     private String requiredRoleId;
+    private boolean revokeOnRoleLoss;
     private String storagePath;
+    private int shardCount; // -1 lets Discord choose
+    private Map<String, GuildSettings> guilds;
+    
+    // Request queue settings
+    private int requestMaxConcurrent;
+    private int requestQueueSize;
+    private int requestUserBurst;
+    private int requestUserPeriodSeconds;
+    private int requestBatchSize;
+    private long requestBatchWindowMillis;
+    private String workerMode; // "auto", "virtual" or "platform"
+    private int workerMaxThreads;
+    private String lookupMode; // "online" or "offline"
+    private int lookupCacheSize;
+    private long lookupCacheTtlSeconds;
+    private long lookupNegativeTtlSeconds;
+    private String lookupCacheFile;
+    private String lookupApiUrl;
+    private int lookupRequestsPerMinute;
+    private int lookupMaxRetries;
+    private boolean lookupRefreshEnabled;
+    private long lookupRefreshIntervalSeconds;
+    private int lookupRefreshDailyBudget;
+    private String lookupRefreshCheckpointFile;
+    private boolean bedrockLookupEnabled;
+    private String bedrockLookupApiUrl;
+    private int bedrockLookupMaxConcurrent;
+    private int bedrockLookupCacheSize;
+    private long bedrockLookupCacheTtlSeconds;
+    
+    // Login protection settings
+    private boolean loginThrottleEnabled;
+    private int loginThrottleBurst;
+    private double loginThrottleRefillPerSecond;
+    private int denialCacheSeconds;
+    private int denialCacheMaxEntries;
+    private int prefixDenialThreshold;
+    private int denialLogIntervalSeconds;
+    
+    // Snapshot state
+    private long version;
+    private boolean frozen;
+    private Map<String, GuildSettings> resolvedGuilds;
     
     // Default constructor
     public WhitelisterConfig() {
         this.messageFormat = "Please whitelist my Minecraft username: {username}";
+        this.messageAliases = new ArrayList<>();
+        this.bedrockMessageFormat = "bedrock {username} xuid:{xuid}";
         this.successMessage = "You have been whitelisted! You can now join the server.";
+        this.requestMode = "both";
+        this.leanMode = false;
+        this.leanMemberCacheSize = 1000;
         this.storageType = "json";
         this.requireRole = false;
+        this.revokeOnRoleLoss = false;
+        this.shardCount = -1;
+        this.guilds = new LinkedHashMap<>();
+        this.requestMaxConcurrent = 10;
+        this.requestQueueSize = 500;
+        this.requestUserBurst = 3;
+        this.requestUserPeriodSeconds = 60;
+        this.requestBatchSize = 10;
+        this.requestBatchWindowMillis = 75;
+        this.workerMode = "auto";
+        this.workerMaxThreads = 16;
+        this.lookupMode = "online";
+        this.lookupCacheSize = 10000;
+        this.lookupCacheTtlSeconds = 21600;
+        this.lookupNegativeTtlSeconds = 300;
+        this.lookupApiUrl = "https://api.mojang.com";
+        this.lookupRequestsPerMinute = 60;
+        this.lookupMaxRetries = 4;
+        this.lookupRefreshEnabled = true;
+        this.lookupRefreshIntervalSeconds = 60;
+        this.lookupRefreshDailyBudget = 1000;
+        this.bedrockLookupEnabled = true;
+        this.bedrockLookupApiUrl = "https://api.geysermc.org";
+        this.bedrockLookupMaxConcurrent = 4;
+        this.bedrockLookupCacheSize = 1000;
+        this.bedrockLookupCacheTtlSeconds = 86400;
+        this.loginThrottleEnabled = true;
+        this.loginThrottleBurst = 10;
+        this.loginThrottleRefillPerSecond = 1.0;
+        this.denialCacheSeconds = 30;
+        this.denialCacheMaxEntries = 10000;
+        this.prefixDenialThreshold = 50;
+        this.denialLogIntervalSeconds = 10;
+    }
+    
+    /**
+     * Create a read-only copy of another configuration
+     */
+    private WhitelisterConfig(WhitelisterConfig other, long version) {
+        this.botToken = other.botToken;
+        this.guildId = other.guildId;
+        this.channelId = other.channelId;
+        this.storageType = other.storageType;
+        this.databaseUrl = other.databaseUrl;
+        this.databaseUser = other.databaseUser;
+        this.databasePassword = other.databasePassword;
+        this.jsonFilePath = other.jsonFilePath;
+        this.messageFormat = other.messageFormat;
+        this.bedrockMessageFormat = other.bedrockMessageFormat;
+        this.successMessage = other.successMessage;
+        this.requestMode = other.requestMode;
+        this.leanMode = other.leanMode;
+        this.leanMemberCacheSize = other.leanMemberCacheSize;
+        this.requireRole = other.requireRole;
+        this.requiredRoleId = other.requiredRoleId;
+        this.revokeOnRoleLoss = other.revokeOnRoleLoss;
+        this.storagePath = other.storagePath;
+        this.requestMaxConcurrent = other.requestMaxConcurrent;
+        this.requestQueueSize = other.requestQueueSize;
+        this.requestUserBurst = other.requestUserBurst;
+        this.requestUserPeriodSeconds = other.requestUserPeriodSeconds;
+        this.requestBatchSize = other.requestBatchSize;
+        this.requestBatchWindowMillis = other.requestBatchWindowMillis;
+        this.workerMode = other.workerMode;
+        this.workerMaxThreads = other.workerMaxThreads;
+        this.lookupMode = other.lookupMode;
+        this.lookupCacheSize = other.lookupCacheSize;
+        this.lookupCacheTtlSeconds = other.lookupCacheTtlSeconds;
+        this.lookupNegativeTtlSeconds = other.lookupNegativeTtlSeconds;
+        this.lookupCacheFile = other.lookupCacheFile;
+        this.lookupApiUrl = other.lookupApiUrl;
+        this.lookupRequestsPerMinute = other.lookupRequestsPerMinute;
+        this.lookupMaxRetries = other.lookupMaxRetries;
+        this.lookupRefreshEnabled = other.lookupRefreshEnabled;
+        this.lookupRefreshIntervalSeconds = other.lookupRefreshIntervalSeconds;
+        this.lookupRefreshDailyBudget = other.lookupRefreshDailyBudget;
+        this.lookupRefreshCheckpointFile = other.lookupRefreshCheckpointFile;
+        this.bedrockLookupEnabled = other.bedrockLookupEnabled;
+        this.bedrockLookupApiUrl = other.bedrockLookupApiUrl;
+        this.bedrockLookupMaxConcurrent = other.bedrockLookupMaxConcurrent;
+        this.bedrockLookupCacheSize = other.bedrockLookupCacheSize;
+        this.bedrockLookupCacheTtlSeconds = other.bedrockLookupCacheTtlSeconds;
+        this.loginThrottleEnabled = other.loginThrottleEnabled;
+        this.loginThrottleBurst = other.loginThrottleBurst;
+        this.loginThrottleRefillPerSecond = other.loginThrottleRefillPerSecond;
+        this.denialCacheSeconds = other.denialCacheSeconds;
+        this.denialCacheMaxEntries = other.denialCacheMaxEntries;
+        this.prefixDenialThreshold = other.prefixDenialThreshold;
+        this.denialLogIntervalSeconds = other.denialLogIntervalSeconds;
+        this.shardCount = other.shardCount;
+        this.messageAliases = List.copyOf(other.messageAliases);
+        this.guilds = Map.copyOf(other.guilds);
+        this.version = version;
+        this.frozen = true;
+        this.resolvedGuilds = resolveGuilds();
+    }
+    
+    /**
+     * Create an immutable snapshot of this configuration
+     * Setters on the snapshot throw an IllegalStateException
+     * 
+     * @param version The version number of the snapshot
+     * @return The snapshot
+     */
+    public WhitelisterConfig snapshot(long version) {
+        return new WhitelisterConfig(this, version);
+    }
+    
+    /**
+     * Get the version of this snapshot
+     * 
+     * @return The snapshot version, or 0 if this configuration is not a snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Check if this configuration is an immutable snapshot
+     * 
+     * @return true if the setters are disabled
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    /**
+     * Build the routing table of guild settings, including the top-level guild
+     */
+    private Map<String, GuildSettings> resolveGuilds() {
+        Map<String, GuildSettings> resolved = new HashMap<>();
+        if (guildId != null && !guildId.isEmpty()) {
+            resolved.put(guildId, new GuildSettings(guildId, channelId, requireRole ? requiredRoleId : null,
+                messageFormat, messageAliases, bedrockMessageFormat, successMessage));
+        }
+        for (GuildSettings guild : guilds.values()) {
+            resolved.put(guild.guildId(), guild.withDefaults(this));
+        }
+        return Map.copyOf(resolved);
+    }
+    
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Configuration snapshot " + version + " is read-only");
+        }
     }
     
     // Getters and setters
@@ -33,6 +239,7 @@ public class WhitelisterConfig {
     }
     
     public void setBotToken(String botToken) {
+        checkMutable();
         this.botToken = botToken;
     }
     
@@ -41,6 +248,7 @@ public class WhitelisterConfig {
     }
     
     public void setGuildId(String guildId) {
+        checkMutable();
         this.guildId = guildId;
     }
     
@@ -49,6 +257,7 @@ public class WhitelisterConfig {
     }
     
     public void setChannelId(String channelId) {
+        checkMutable();
         this.channelId = channelId;
     }
     
@@ -57,6 +266,7 @@ public class WhitelisterConfig {
     }
     
     public void setStorageType(String storageType) {
+        checkMutable();
         this.storageType = storageType;
     }
     
@@ -65,6 +275,7 @@ public class WhitelisterConfig {
     }
     
     public void setDatabaseUrl(String databaseUrl) {
+        checkMutable();
         this.databaseUrl = databaseUrl;
     }
     
@@ -73,6 +284,7 @@ public class WhitelisterConfig {
     }
     
     public void setDatabaseUser(String databaseUser) {
+        checkMutable();
         this.databaseUser = databaseUser;
     }
     
@@ -81,6 +293,7 @@ public class WhitelisterConfig {
     }
     
     public void setDatabasePassword(String databasePassword) {
+        checkMutable();
         this.databasePassword = databasePassword;
     }
     
@@ -89,6 +302,7 @@ public class WhitelisterConfig {
     }
     
     public void setJsonFilePath(String jsonFilePath) {
+        checkMutable();
         this.jsonFilePath = jsonFilePath;
     }
     
@@ -97,22 +311,89 @@ public class WhitelisterConfig {
     }
     
     public void setMessageFormat(String messageFormat) {
+        checkMutable();
         this.messageFormat = messageFormat;
     }
     
+    public List<String> getMessageAliases() {
+        return messageAliases;
+    }
+    
+    public void setMessageAliases(List<String> messageAliases) {
+        checkMutable();
+        this.messageAliases = messageAliases != null ? new ArrayList<>(messageAliases) : new ArrayList<>();
+    }
+    
+    public String getBedrockMessageFormat() {
+        return bedrockMessageFormat;
+    }
+    
+    public void setBedrockMessageFormat(String bedrockMessageFormat) {
+        checkMutable();
+        this.bedrockMessageFormat = bedrockMessageFormat;
+    }
+    
     public String getSuccessMessage() {
         return successMessage;
     }
     
     public void setSuccessMessage(String successMessage) {
+        checkMutable();
         this.successMessage = successMessage;
     }
     
+    public String getRequestMode() {
+        return requestMode;
+    }
+    
+    public void setRequestMode(String requestMode) {
+        checkMutable();
+        this.requestMode = requestMode;
+    }
+    
+    /**
+     * Check if whitelist requests are accepted as plain text messages
+     * Requires the privileged MESSAGE_CONTENT intent
+     * 
+     * @return true if text requests are enabled
+     */
+    public boolean isTextRequestsEnabled() {
+        return requestMode == null || !requestMode.equalsIgnoreCase("slash");
+    }
+    
+    /**
+     * Check if whitelist requests are accepted through the /whitelist slash command
+     * 
+     * @return true if slash commands are enabled
+     */
+    public boolean isSlashCommandsEnabled() {
+        return requestMode == null || !requestMode.equalsIgnoreCase("text");
+    }
+    
+    public boolean isLeanMode() {
+        return leanMode;
+    }
+    
+    public void setLeanMode(boolean leanMode) {
+        checkMutable();
+        this.leanMode = leanMode;
+    }
+    
+    public int getLeanMemberCacheSize() {
+        return leanMemberCacheSize;
+    }
+    
+    public void setLeanMemberCacheSize(int leanMemberCacheSize) {
+        checkMutable();
+        this.leanMemberCacheSize = leanMemberCacheSize;
+    }
+    
     public boolean isRequireRole() {
         return requireRole;
     }
     
     public void setRequireRole(boolean requireRole) {
+        checkMutable();
         this.requireRole = requireRole;
     }
     
@@ -121,9 +402,72 @@ public class WhitelisterConfig {
     }
     
     public void setRequiredRoleId(String requiredRoleId) {
+        checkMutable();
         this.requiredRoleId = requiredRoleId;
     }
     
+    /**
+     * Check if whitelist entries are revoked when their Discord user loses the required role or leaves the guild
+     * This needs the privileged GUILD_MEMBERS intent
+     * 
+     * @return true if role changes are tracked
+     */
+    public boolean isRevokeOnRoleLoss() {
+        return revokeOnRoleLoss;
+    }
+    
+    public void setRevokeOnRoleLoss(boolean revokeOnRoleLoss) {
+        checkMutable();
+        this.revokeOnRoleLoss = revokeOnRoleLoss;
+    }
+    
+    public int getShardCount() {
+        return shardCount;
+    }
+    
+    public void setShardCount(int shardCount) {
+        checkMutable();
+        this.shardCount = shardCount;
+    }
+    
+    /**
+     * Get the additional guilds configured on top of the top-level guild
+     * 
+     * @return The guild settings keyed by guild ID, as configured
+     */
+    public Map<String, GuildSettings> getGuilds() {
+        return guilds;
+    }
+    
+    public void setGuilds(Map<String, GuildSettings> guilds) {
+        checkMutable();
+        this.guilds = guilds != null ? new LinkedHashMap<>(guilds) : new LinkedHashMap<>();
+    }
+    
+    /**
+     * Get the effective settings for a guild, with unset templates filled from the global settings
+     * 
+     * @param guildId The guild ID
+     * @return The guild settings, or null if whitelist requests are not handled in this guild
+     */
+    public GuildSettings getGuildSettings(String guildId) {
+        if (guildId == null) {
+            return null;
+        }
+        Map<String, GuildSettings> routes = resolvedGuilds != null ? resolvedGuilds : resolveGuilds();
+        return routes.get(guildId);
+    }
+    
+    /**
+     * Get the effective settings for every guild whitelist requests are handled in
+     * 
+     * @return The guild settings
+     */
+    public Collection<GuildSettings> getAllGuildSettings() {
+        Map<String, GuildSettings> routes = resolvedGuilds != null ? resolvedGuilds : resolveGuilds();
+        return routes.values();
+    }
+    
     public String getStoragePath() {
         if (storageType.equalsIgnoreCase("json")) {
             return jsonFilePath;
@@ -132,8 +476,386 @@ public class WhitelisterConfig {
     }
     
     public void setStoragePath(String storagePath) {
+        checkMutable();
         this.storagePath = storagePath;
         // Also set the JSON file path for backward compatibility
         this.jsonFilePath = storagePath;
     }
+    
+    public int getRequestMaxConcurrent() {
+        return requestMaxConcurrent;
+    }
+    
+    public void setRequestMaxConcurrent(int requestMaxConcurrent) {
+        checkMutable();
+        this.requestMaxConcurrent = requestMaxConcurrent;
+    }
+    
+    public int getRequestQueueSize() {
+        return requestQueueSize;
+    }
+    
+    public void setRequestQueueSize(int requestQueueSize) {
+        checkMutable();
+        this.requestQueueSize = requestQueueSize;
+    }
+    
+    public int getRequestUserBurst() {
+        return requestUserBurst;
+    }
+    
+    public void setRequestUserBurst(int requestUserBurst) {
+        checkMutable();
+        this.requestUserBurst = requestUserBurst;
+    }
+    
+    public int getRequestUserPeriodSeconds() {
+        return requestUserPeriodSeconds;
+    }
+    
+    public void setRequestUserPeriodSeconds(int requestUserPeriodSeconds) {
+        checkMutable();
+        this.requestUserPeriodSeconds = requestUserPeriodSeconds;
+    }
+    
+    public int getRequestBatchSize() {
+        return requestBatchSize;
+    }
+    
+    public void setRequestBatchSize(int requestBatchSize) {
+        checkMutable();
+        this.requestBatchSize = requestBatchSize;
+    }
+    
+    public long getRequestBatchWindowMillis() {
+        return requestBatchWindowMillis;
+    }
+    
+    public void setRequestBatchWindowMillis(long requestBatchWindowMillis) {
+        checkMutable();
+        this.requestBatchWindowMillis = requestBatchWindowMillis;
+    }
+    
+    /**
+     * Get how blocking work is executed: "auto", "virtual" or "platform"
+     * 
+     * @return The worker mode
+     */
+    public String getWorkerMode() {
+        return workerMode;
+    }
+    
+    public void setWorkerMode(String workerMode) {
+        checkMutable();
+        this.workerMode = workerMode;
+    }
+    
+    /**
+     * Get the maximum number of platform worker threads, used when virtual threads are not available
+     * 
+     * @return The maximum number of threads
+     */
+    public int getWorkerMaxThreads() {
+        return workerMaxThreads;
+    }
+    
+    public void setWorkerMaxThreads(int workerMaxThreads) {
+        checkMutable();
+        this.workerMaxThreads = workerMaxThreads;
+    }
+    
+    /**
+     * Get how player UUIDs are resolved: "online" asks Mojang, "offline" derives offline-mode UUIDs locally
+     * 
+     * @return The lookup mode
+     */
+    public String getLookupMode() {
+        return lookupMode;
+    }
+    
+    public void setLookupMode(String lookupMode) {
+        checkMutable();
+        this.lookupMode = lookupMode;
+    }
+    
+    /**
+     * Check if player UUIDs are derived locally as on an offline-mode server
+     * 
+     * @return true in offline lookup mode
+     */
+    public boolean isOfflineLookupMode() {
+        return lookupMode != null && lookupMode.equalsIgnoreCase("offline");
+    }
+    
+    /**
+     * Get the maximum number of names in the player lookup cache, or 0 to disable the cache
+     * 
+     * @return The cache size
+     */
+    public int getLookupCacheSize() {
+        return lookupCacheSize;
+    }
+    
+    public void setLookupCacheSize(int lookupCacheSize) {
+        checkMutable();
+        this.lookupCacheSize = lookupCacheSize;
+    }
+    
+    public long getLookupCacheTtlSeconds() {
+        return lookupCacheTtlSeconds;
+    }
+    
+    public void setLookupCacheTtlSeconds(long lookupCacheTtlSeconds) {
+        checkMutable();
+        this.lookupCacheTtlSeconds = lookupCacheTtlSeconds;
+    }
+    
+    /**
+     * Get how long a name that does not exist stays cached
+     * 
+     * @return The negative TTL in seconds
+     */
+    public long getLookupNegativeTtlSeconds() {
+        return lookupNegativeTtlSeconds;
+    }
+    
+    public void setLookupNegativeTtlSeconds(long lookupNegativeTtlSeconds) {
+        checkMutable();
+        this.lookupNegativeTtlSeconds = lookupNegativeTtlSeconds;
+    }
+    
+    /**
+     * Get the file the player lookup cache is saved to on shutdown
+     * 
+     * @return The file path, or null or empty to keep the cache in memory only
+     */
+    public String getLookupCacheFile() {
+        return lookupCacheFile;
+    }
+    
+    public void setLookupCacheFile(String lookupCacheFile) {
+        checkMutable();
+        this.lookupCacheFile = lookupCacheFile;
+    }
+    
+    /**
+     * Get the base URL of the Mojang API, which can point at a local stub server for testing
+     * 
+     * @return The API base URL
+     */
+    public String getLookupApiUrl() {
+        return lookupApiUrl;
+    }
+    
+    public void setLookupApiUrl(String lookupApiUrl) {
+        checkMutable();
+        this.lookupApiUrl = lookupApiUrl;
+    }
+    
+    /**
+     * Get the maximum number of requests sent to the Mojang API per minute
+     * 
+     * @return The request limit
+     */
+    public int getLookupRequestsPerMinute() {
+        return lookupRequestsPerMinute;
+    }
+    
+    public void setLookupRequestsPerMinute(int lookupRequestsPerMinute) {
+        checkMutable();
+        this.lookupRequestsPerMinute = lookupRequestsPerMinute;
+    }
+    
+    /**
+     * Get how often a rate-limited or failed Mojang request is retried before the lookup is deferred
+     * 
+     * @return The number of retries
+     */
+    public int getLookupMaxRetries() {
+        return lookupMaxRetries;
+    }
+    
+    public void setLookupMaxRetries(int lookupMaxRetries) {
+        checkMutable();
+        this.lookupMaxRetries = lookupMaxRetries;
+    }
+    
+    /**
+     * Check if stored usernames are refreshed in the background after players rename their accounts
+     * 
+     * @return true if the name refresh crawler runs
+     */
+    public boolean isLookupRefreshEnabled() {
+        return lookupRefreshEnabled;
+    }
+    
+    public void setLookupRefreshEnabled(boolean lookupRefreshEnabled) {
+        checkMutable();
+        this.lookupRefreshEnabled = lookupRefreshEnabled;
+    }
+    
+    /**
+     * Get the seconds between two pages of the name refresh crawler
+     * 
+     * @return The interval in seconds
+     */
+    public long getLookupRefreshIntervalSeconds() {
+        return lookupRefreshIntervalSeconds;
+    }
+    
+    public void setLookupRefreshIntervalSeconds(long lookupRefreshIntervalSeconds) {
+        checkMutable();
+        this.lookupRefreshIntervalSeconds = lookupRefreshIntervalSeconds;
+    }
+    
+    /**
+     * Get the maximum number of Mojang requests the name refresh crawler sends per day
+     * 
+     * @return The daily request budget
+     */
+    public int getLookupRefreshDailyBudget() {
+        return lookupRefreshDailyBudget;
+    }
+    
+    public void setLookupRefreshDailyBudget(int lookupRefreshDailyBudget) {
+        checkMutable();
+        this.lookupRefreshDailyBudget = lookupRefreshDailyBudget;
+    }
+    
+    /**
+     * Get the file the name refresh crawler saves its progress to
+     * 
+     * @return The checkpoint file path, or null to start over on every restart
+     */
+    public String getLookupRefreshCheckpointFile() {
+        return lookupRefreshCheckpointFile;
+    }
+    
+    public void setLookupRefreshCheckpointFile(String lookupRefreshCheckpointFile) {
+        checkMutable();
+        this.lookupRefreshCheckpointFile = lookupRefreshCheckpointFile;
+    }
+    
+    /**
+     * Check if Bedrock requests without an XUID are resolved from the gamertag
+     * 
+     * @return true if XUIDs are looked up
+     */
+    public boolean isBedrockLookupEnabled() {
+        return bedrockLookupEnabled;
+    }
+    
+    public void setBedrockLookupEnabled(boolean bedrockLookupEnabled) {
+        checkMutable();
+        this.bedrockLookupEnabled = bedrockLookupEnabled;
+    }
+    
+    /**
+     * Get the base URL of the API used to resolve XUIDs
+     * 
+     * @return The base URL
+     */
+    public String getBedrockLookupApiUrl() {
+        return bedrockLookupApiUrl;
+    }
+    
+    public void setBedrockLookupApiUrl(String bedrockLookupApiUrl) {
+        checkMutable();
+        this.bedrockLookupApiUrl = bedrockLookupApiUrl;
+    }
+    
+    /**
+     * Get the maximum number of XUID requests in flight at once
+     * 
+     * @return The concurrency limit
+     */
+    public int getBedrockLookupMaxConcurrent() {
+        return bedrockLookupMaxConcurrent;
+    }
+    
+    public void setBedrockLookupMaxConcurrent(int bedrockLookupMaxConcurrent) {
+        checkMutable();
+        this.bedrockLookupMaxConcurrent = bedrockLookupMaxConcurrent;
+    }
+    
+    public int getBedrockLookupCacheSize() {
+        return bedrockLookupCacheSize;
+    }
+    
+    public void setBedrockLookupCacheSize(int bedrockLookupCacheSize) {
+        checkMutable();
+        this.bedrockLookupCacheSize = bedrockLookupCacheSize;
+    }
+    
+    public long getBedrockLookupCacheTtlSeconds() {
+        return bedrockLookupCacheTtlSeconds;
+    }
+    
+    public void setBedrockLookupCacheTtlSeconds(long bedrockLookupCacheTtlSeconds) {
+        checkMutable();
+        this.bedrockLookupCacheTtlSeconds = bedrockLookupCacheTtlSeconds;
+    }
+    
+    public boolean isLoginThrottleEnabled() {
+        return loginThrottleEnabled;
+    }
+    
+    public void setLoginThrottleEnabled(boolean loginThrottleEnabled) {
+        checkMutable();
+        this.loginThrottleEnabled = loginThrottleEnabled;
+    }
+    
+    public int getLoginThrottleBurst() {
+        return loginThrottleBurst;
+    }
+    
+    public void setLoginThrottleBurst(int loginThrottleBurst) {
+        checkMutable();
+        this.loginThrottleBurst = loginThrottleBurst;
+    }
+    
+    public double getLoginThrottleRefillPerSecond() {
+        return loginThrottleRefillPerSecond;
+    }
+    
+    public void setLoginThrottleRefillPerSecond(double loginThrottleRefillPerSecond) {
+        checkMutable();
+        this.loginThrottleRefillPerSecond = loginThrottleRefillPerSecond;
+    }
+    
+    public int getDenialCacheSeconds() {
+        return denialCacheSeconds;
+    }
+    
+    public void setDenialCacheSeconds(int denialCacheSeconds) {
+        checkMutable();
+        this.denialCacheSeconds = denialCacheSeconds;
+    }
+    
+    public int getDenialCacheMaxEntries() {
+        return denialCacheMaxEntries;
+    }
+    
+    public void setDenialCacheMaxEntries(int denialCacheMaxEntries) {
+        checkMutable();
+        this.denialCacheMaxEntries = denialCacheMaxEntries;
+    }
+    
+    public int getPrefixDenialThreshold() {
+        return prefixDenialThreshold;
+    }
+    
+    public void setPrefixDenialThreshold(int prefixDenialThreshold) {
+        checkMutable();
+        this.prefixDenialThreshold = prefixDenialThreshold;
+    }
+    
+    public int getDenialLogIntervalSeconds() {
+        return denialLogIntervalSeconds;
+    }
+    
+    public void setDenialLogIntervalSeconds(int denialLogIntervalSeconds) {
+        checkMutable();
+        this.denialLogIntervalSeconds = denialLogIntervalSeconds;
+    }
 }
@@ -1,237 +1,1056 @@
 package com.discordwhitelister.common.discord;
 
+import com.discordwhitelister.common.config.ConfigHolder;
+import com.discordwhitelister.common.config.GuildSettings;
 import com.discordwhitelister.common.config.WhitelisterConfig;
 import com.discordwhitelister.common.lookup.MinecraftPlayerLookup;
+import com.discordwhitelister.common.lookup.MinecraftPlayerLookup.LookupResult;
+import com.discordwhitelister.common.request.RequestScheduler;
 import com.discordwhitelister.common.storage.WhitelistStorage;
+import com.discordwhitelister.common.storage.WhitelistedPlayer;
+import com.discordwhitelister.common.util.MicroBatcher;
+import com.discordwhitelister.common.util.SingleFlight;
+import com.discordwhitelister.common.util.WorkerPool;
 import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberUpdateEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.events.session.ShutdownEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import net.dv8tion.jda.api.requests.ErrorResponse;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Discord bot implementation for whitelist management
  */
 public class DiscordBot extends ListenerAdapter {
     private static final Logger LOGGER = LoggerFactory.getLogger(DiscordBot.class);
-    private final WhitelisterConfig config;
+    private static final int MAX_RECENT_EVENTS = 1000;
+    private final ConfigHolder configHolder;
     private final WhitelistStorage storage;
     private final MinecraftPlayerLookup playerLookup;
-    private JDA jda;
+    private final WorkerPool workers;
+    private final RequestScheduler requestScheduler;
+    private final MicroBatcher<PendingRequest> requestBatcher;
     
-    // Pattern for Bedrock whitelist requests
-    private static final Pattern BEDROCK_PATTERN = Pattern.compile("bedrock\\s+(.+)\\s+xuid:([0-9]+)");
+    // Requests for a name already being processed join the in-flight request instead of racing it
+    private final SingleFlight<String, RequestOutcome> requestFlights = new SingleFlight<>();
     
-    public DiscordBot(WhitelisterConfig config, WhitelistStorage storage, MinecraftPlayerLookup playerLookup) {
-        this.config = config;
+    // IDs of recently handled messages and interactions, so replayed gateway events are ignored
+    private final Map<Long, Boolean> recentEvents = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_RECENT_EVENTS;
+        }
+    };
+    
+    private volatile ShardManager shardManager;
+    private RequesterCachePolicy requesterCachePolicy;
+    
+    // Required role holders, kept up to date from role events when revoking on role loss
+    private final RoleIndex roleIndex = new RoleIndex();
+    private volatile boolean roleTracking;
+    
+    // Connection state; start and stop swap it under the lock so a superseded connect can tell
+    private final Object connectionLock = new Object();
+    private volatile Status status = Status.STOPPED;
+    private volatile CompletableFuture<Void> readyFuture = CompletableFuture.completedFuture(null);
+    private volatile long connectStartedAt;
+    private final Set<Integer> readyShards = ConcurrentHashMap.newKeySet();
+    
+    // Request formats compiled from the current configuration, keyed by guild ID
+    private volatile Map<String, RequestMatcher> requestMatchers;
+    
+    public DiscordBot(ConfigHolder configHolder, WhitelistStorage storage, MinecraftPlayerLookup playerLookup, WorkerPool workers) {
+        WhitelisterConfig config = configHolder.get();
+        this.configHolder = configHolder;
         this.storage = storage;
         this.playerLookup = playerLookup;
+        this.workers = workers;
+        this.requestScheduler = new RequestScheduler(
+            config.getRequestMaxConcurrent(),
+            config.getRequestQueueSize(),
+            config.getRequestUserBurst(),
+            config.getRequestUserPeriodSeconds()
+        );
+        this.requestBatcher = new MicroBatcher<>(
+            "RequestBatcher",
+            config.getRequestBatchSize(),
+            config.getRequestBatchWindowMillis(),
+            // Batches block on storage, so they run on the workers and the batcher thread only collects
+            batch -> workers.supply(() -> handleBatch(batch)).thenCompose(done -> done)
+        );
+        this.requestMatchers = compileMatchers(config, Map.of());
+        applyRequiredRoles(config);
     }
     
     /**
      * Start the Discord bot
+     * Returns immediately; the gateway connection is made in the background
      * 
      * @return CompletableFuture that completes when the bot is ready
      */
     public CompletableFuture<Void> start() {
         CompletableFuture<Void> future = new CompletableFuture<>();
-        
-        try {
-            JDABuilder builder = JDABuilder.createDefault(config.getBotToken())
-                .enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT)
-                .addEventListeners(this);
-            
-            jda = builder.build();
-            
-            // Complete the future when the bot is ready
-            jda.awaitReady();
-            LOGGER.info("Discord bot started successfully");
-            future.complete(null);
-        } catch (Exception e) {
-            LOGGER.error("Failed to start Discord bot", e);
-            future.completeExceptionally(e);
+        synchronized (connectionLock) {
+            readyFuture = future;
+            status = Status.CONNECTING;
+            connectStartedAt = System.nanoTime();
+            readyShards.clear();
         }
         
+        // Building the shard manager validates the token with a blocking REST call, so keep it off the caller's thread
+        Thread connectThread = new Thread(() -> {
+            try {
+                WhitelisterConfig config = configHolder.get();
+                roleTracking = config.isRevokeOnRoleLoss();
+                roleIndex.clear();
+                if (roleTracking) {
+                    watchLinkedUsers();
+                }
+                
+                DefaultShardManagerBuilder builder = config.isLeanMode() ? createLeanBuilder(config) : createDefaultBuilder(config);
+                builder.setShardsTotal(config.getShardCount());
+                builder.addEventListeners(this);
+                ShardManager built = builder.build();
+                
+                // stop() or a newer start() may have run while the token was being checked
+                boolean superseded;
+                synchronized (connectionLock) {
+                    superseded = future != readyFuture || status == Status.STOPPED;
+                    if (!superseded) {
+                        shardManager = built;
+                    }
+                }
+                if (superseded) {
+                    built.shutdown();
+                    LOGGER.debug("Discarded Discord connection from a superseded start");
+                    return;
+                }
+                LOGGER.info("Connecting Discord bot with {} shard(s)...", built.getShardsTotal());
+            } catch (Exception e) {
+                failStart(future, e);
+            }
+        }, "DiscordWhitelister-Connect");
+        connectThread.setDaemon(true);
+        connectThread.start();
+        
         return future;
     }
     
+    private void failStart(CompletableFuture<Void> future, Throwable cause) {
+        if (future == readyFuture && future.completeExceptionally(cause)) {
+            status = Status.FAILED;
+            LOGGER.error("Failed to start Discord bot", cause);
+        }
+    }
+    
+    /**
+     * Create a shard manager builder with the default JDA caches
+     * 
+     * @param config The configuration to connect with
+     * @return The shard manager builder
+     */
+    private DefaultShardManagerBuilder createDefaultBuilder(WhitelisterConfig config) {
+        DefaultShardManagerBuilder builder = DefaultShardManagerBuilder.createDefault(config.getBotToken());
+        requesterCachePolicy = null;
+        
+        if (config.isTextRequestsEnabled()) {
+            builder.enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT);
+        } else {
+            // Slash commands arrive as interactions, so the message stream is not needed at all
+            builder.disableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.DIRECT_MESSAGES,
+                                   GatewayIntent.GUILD_MESSAGE_TYPING, GatewayIntent.DIRECT_MESSAGE_TYPING);
+        }
+        
+        if (config.isRevokeOnRoleLoss()) {
+            // Role and leave events need the member intent, and only cached members get role events
+            builder.enableIntents(GatewayIntent.GUILD_MEMBERS)
+                .setMemberCachePolicy(MemberCachePolicy.DEFAULT.or(roleIndex));
+        }
+        
+        return builder;
+    }
+    
+    /**
+     * Create a shard manager builder with minimal intents and caches
+     * No member list, presences, emojis, stickers or voice states are cached, and only
+     * members who made a whitelist request are kept in the member cache
+     * 
+     * @param config The configuration to connect with
+     * @return The shard manager builder
+     */
+    private DefaultShardManagerBuilder createLeanBuilder(WhitelisterConfig config) {
+        EnumSet<GatewayIntent> intents = EnumSet.noneOf(GatewayIntent.class);
+        if (config.isTextRequestsEnabled()) {
+            intents.add(GatewayIntent.GUILD_MESSAGES);
+            intents.add(GatewayIntent.MESSAGE_CONTENT);
+        }
+        if (config.isRevokeOnRoleLoss()) {
+            intents.add(GatewayIntent.GUILD_MEMBERS);
+        }
+        
+        requesterCachePolicy = new RequesterCachePolicy(config.getLeanMemberCacheSize(), this::unloadRequester);
+        MemberCachePolicy cachePolicy = config.isRevokeOnRoleLoss() ? requesterCachePolicy.or(roleIndex) : requesterCachePolicy;
+        
+        // createLight disables every cache flag and member chunking
+        return DefaultShardManagerBuilder.createLight(config.getBotToken(), intents)
+            .setMemberCachePolicy(cachePolicy)
+            .setChunkingFilter(ChunkingFilter.NONE);
+    }
+    
+    /**
+     * Remove a requester that fell out of the requester cache from JDA's member cache
+     * Members the role index still watches stay cached so they keep receiving role events
+     * 
+     * @param userId The Discord user ID
+     */
+    private void unloadRequester(String userId) {
+        ShardManager current = shardManager;
+        if (current == null) {
+            return;
+        }
+        
+        long memberId = Long.parseLong(userId);
+        for (Guild guild : current.getGuildCache()) {
+            Member member = guild.getMemberById(memberId);
+            if (member != null && !(roleTracking && roleIndex.cacheMember(member))) {
+                guild.unloadMember(memberId);
+            }
+        }
+    }
+    
     /**
      * Stop the Discord bot
      */
     public void stop() {
-        if (jda != null) {
-            jda.shutdown();
+        // Answer requests still waiting for their batch while JDA can still reply
+        requestBatcher.flush();
+        
+        ShardManager current;
+        synchronized (connectionLock) {
+            status = Status.STOPPED;
+            current = shardManager;
+            shardManager = null;
+        }
+        if (current != null) {
+            current.shutdown();
             LOGGER.info("Discord bot stopped");
         }
     }
     
+    /**
+     * Stop the Discord bot and release its request batching thread
+     * The bot cannot be started again afterwards
+     */
+    public void shutdown() {
+        stop();
+        requestBatcher.close();
+    }
+    
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
-        // Ignore messages from bots
-        if (event.getAuthor().isBot()) {
+    public void onReady(ReadyEvent event) {
+        if (status != Status.CONNECTING) {
             return;
         }
         
-        // Check if the message is in the configured guild and channel
-        if (!isTargetChannel(event)) {
+        // The bot is ready once every shard is
+        JDA.ShardInfo shard = event.getJDA().getShardInfo();
+        readyShards.add(shard.getShardId());
+        long elapsedMillis = (System.nanoTime() - connectStartedAt) / 1_000_000L;
+        if (readyShards.size() < shard.getShardTotal()) {
+            LOGGER.info("Discord shard {} ready in {} ms", shard.getShardString(), elapsedMillis);
             return;
         }
         
-        String content = event.getMessage().getContentRaw();
+        status = Status.READY;
+        ShardManager current = shardManager;
+        LOGGER.info("Discord bot ready in {} ms ({} shard(s), {} guild(s))", elapsedMillis, shard.getShardTotal(),
+                    current != null ? current.getGuildCache().size() : event.getGuildTotalCount());
+        readyFuture.complete(null);
+    }
+    
+    @Override
+    public void onShutdown(ShutdownEvent event) {
+        // A shutdown before the first ready event means the gateway rejected the login
+        if (status == Status.CONNECTING && event.getJDA().getShardManager() == shardManager) {
+            failStart(readyFuture, new IllegalStateException("Discord gateway closed during login: " + event.getCloseCode()));
+        }
+    }
+    
+    @Override
+    public void onGuildReady(GuildReadyEvent event) {
+        WhitelisterConfig config = configHolder.get();
+        Guild guild = event.getGuild();
+        if (config.getGuildSettings(guild.getId()) != null) {
+            updateCommands(guild, config.isSlashCommandsEnabled());
+            if (roleTracking) {
+                indexLinkedMembers(guild);
+            }
+        }
+    }
+    
+    @Override
+    public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
+        if (roleTracking && containsRequiredRole(event.getGuild(), event.getRoles())) {
+            updateRoleIndex(event.getMember());
+        }
+    }
+    
+    @Override
+    public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
+        if (roleTracking && containsRequiredRole(event.getGuild(), event.getRoles())) {
+            updateRoleIndex(event.getMember());
+        }
+    }
+    
+    @Override
+    public void onGuildMemberUpdate(GuildMemberUpdateEvent event) {
+        // Members that were not cached yet get no role events for their first update
+        if (roleTracking && roleIndex.isWatched(event.getMember().getIdLong())) {
+            updateRoleIndex(event.getMember());
+        }
+    }
+    
+    @Override
+    public void onGuildMemberRemove(GuildMemberRemoveEvent event) {
+        Guild guild = event.getGuild();
+        if (!roleTracking || configHolder.get().getGuildSettings(guild.getId()) == null) {
+            return;
+        }
         
-        // Check for Bedrock whitelist request first
-        Matcher bedrockMatcher = BEDROCK_PATTERN.matcher(content);
-        if (bedrockMatcher.find()) {
-            String username = bedrockMatcher.group(1).trim();
-            String xuid = bedrockMatcher.group(2).trim();
-            processBedrockWhitelistRequest(event, username, xuid);
+        roleIndex.removeHolder(guild.getIdLong(), event.getUser().getIdLong());
+        User user = event.getUser();
+        workers.execute(() -> revokeLinkedPlayers(guild, user, "left the guild"));
+    }
+    
+    /**
+     * Compute the required role IDs of every configured guild
+     * 
+     * @param config The configuration
+     */
+    private void applyRequiredRoles(WhitelisterConfig config) {
+        Set<Long> guildIds = new HashSet<>();
+        for (GuildSettings settings : config.getAllGuildSettings()) {
+            if (!settings.isRoleRequired()) {
+                continue;
+            }
+            try {
+                long guildId = Long.parseLong(settings.guildId());
+                roleIndex.setRequiredRole(guildId, Long.parseLong(settings.requiredRoleId()));
+                guildIds.add(guildId);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Invalid guild or role ID in configuration: {} / {}", settings.guildId(), settings.requiredRoleId());
+            }
+        }
+        roleIndex.retainGuilds(guildIds);
+    }
+    
+    /**
+     * Track every Discord user linked to a whitelist entry
+     */
+    private void watchLinkedUsers() {
+        for (WhitelistedPlayer player : storage.getAllPlayers()) {
+            try {
+                roleIndex.watch(Long.parseLong(player.getDiscordId()));
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Skipping whitelist entry {} with invalid Discord ID {}", player.getUsername(), player.getDiscordId());
+            }
+        }
+    }
+    
+    /**
+     * Index which linked members of a guild hold its required role
+     * Only the members linked to whitelist entries are requested, never the whole member list
+     * 
+     * @param guild The guild
+     */
+    private void indexLinkedMembers(Guild guild) {
+        long roleId = roleIndex.getRequiredRole(guild.getIdLong());
+        Set<Long> linked = roleIndex.getWatched();
+        if (roleId == 0L || linked.isEmpty()) {
             return;
         }
         
-        // Check for Java Edition whitelist request
-        String messageFormat = config.getMessageFormat().replace("{username}", "(.+)");
-        Pattern pattern = Pattern.compile(messageFormat);
-        Matcher matcher = pattern.matcher(content);
+        guild.retrieveMembersByIds(linked).onSuccess(members -> {
+            int holders = 0;
+            for (Member member : members) {
+                if (holdsRole(member, roleId)) {
+                    roleIndex.addHolder(guild.getIdLong(), member.getIdLong());
+                    holders++;
+                }
+            }
+            LOGGER.info("Indexed {} of {} linked Discord user(s) holding the required role in guild {}",
+                        holders, linked.size(), guild.getName());
+        }).onError(ex -> LOGGER.warn("Failed to index role holders in guild {}", guild.getName(), ex));
+    }
+    
+    private boolean containsRequiredRole(Guild guild, List<Role> roles) {
+        long roleId = roleIndex.getRequiredRole(guild.getIdLong());
+        if (roleId == 0L) {
+            return false;
+        }
+        for (Role role : roles) {
+            if (role.getIdLong() == roleId) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean holdsRole(Member member, long roleId) {
+        for (Role role : member.getRoles()) {
+            if (role.getIdLong() == roleId) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Bring the role index up to date for a member and revoke their whitelist entries if they lost the role
+     * 
+     * @param member The member after the update
+     */
+    private void updateRoleIndex(Member member) {
+        Guild guild = member.getGuild();
+        long roleId = roleIndex.getRequiredRole(guild.getIdLong());
+        if (roleId == 0L) {
+            return;
+        }
         
-        if (matcher.matches()) {
-            String username = matcher.group(1).trim();
-            processWhitelistRequest(event, username);
+        if (holdsRole(member, roleId)) {
+            roleIndex.addHolder(guild.getIdLong(), member.getIdLong());
         } else {
-            // If message doesn't match any pattern, provide help
-            if (content.toLowerCase().contains("help") || content.toLowerCase().contains("whitelist")) {
-                sendHelpMessage(event);
+            roleIndex.removeHolder(guild.getIdLong(), member.getIdLong());
+            workers.execute(() -> revokeLinkedPlayers(guild, member.getUser(), "lost the required role"));
+        }
+    }
+    
+    /**
+     * Remove the whitelist entries linked to a Discord user who lost access
+     * Entries are kept while any other configured guild still grants the user access
+     * 
+     * @param guild The guild the user lost access in
+     * @param user The Discord user
+     * @param reason Why access was lost, for the log
+     */
+    private void revokeLinkedPlayers(Guild guild, User user, String reason) {
+        long userId = user.getIdLong();
+        if (!roleIndex.isWatched(userId) || hasAccessElsewhere(guild.getIdLong(), user.getId())) {
+            return;
+        }
+        
+        List<String> usernames = new ArrayList<>();
+        for (WhitelistedPlayer player : storage.getPlayersByDiscordId(user.getId())) {
+            usernames.add(player.getUsername());
+        }
+        
+        // One storage write, and one server whitelist update, for all of the user's entries
+        for (WhitelistedPlayer player : usernames.isEmpty() ? List.<WhitelistedPlayer>of() : storage.removePlayers(usernames)) {
+            LOGGER.info("Removed {} from whitelist: Discord user {} {} in guild {}",
+                        player.getUsername(), user.getId(), reason, guild.getName());
+        }
+        roleIndex.unwatch(userId);
+    }
+    
+    /**
+     * Check the live membership of a user in every configured guild other than the given one
+     * The role index is not trusted here, as holders are indexed asynchronously after startup
+     * Blocks on Discord requests, so only call this from the worker pool
+     * 
+     * @param guildId The guild the user lost access in
+     * @param userId The Discord user ID
+     * @return true if another guild still grants access, or if one of them could not be checked
+     */
+    private boolean hasAccessElsewhere(long guildId, String userId) {
+        ShardManager current = shardManager;
+        for (GuildSettings settings : configHolder.get().getAllGuildSettings()) {
+            if (settings.guildId() == null || settings.guildId().equals(Long.toString(guildId))) {
+                continue;
+            }
+            
+            Guild other = current == null ? null : current.getGuildById(settings.guildId());
+            if (other == null) {
+                // Unavailable guilds can't prove the user lost access there
+                LOGGER.warn("Keeping whitelist entries of Discord user {}: guild {} is not available to check",
+                            userId, settings.guildId());
+                return true;
+            }
+            
+            Member member;
+            try {
+                member = other.retrieveMemberById(userId).complete();
+            } catch (ErrorResponseException e) {
+                if (e.getErrorResponse() == ErrorResponse.UNKNOWN_MEMBER) {
+                    continue;
+                }
+                LOGGER.warn("Keeping whitelist entries of Discord user {}: failed to check guild {}",
+                            userId, other.getName(), e);
+                return true;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Keeping whitelist entries of Discord user {}: failed to check guild {}",
+                            userId, other.getName(), e);
+                return true;
+            }
+            
+            if (hasRequiredRole(member, settings)) {
+                return true;
             }
         }
+        return false;
     }
     
-    private void sendHelpMessage(MessageReceivedEvent event) {
+    /**
+     * Register or remove the /whitelist command in a guild
+     * 
+     * @param guild The guild
+     * @param enabled Whether the command should be available
+     */
+    private void updateCommands(Guild guild, boolean enabled) {
+        if (enabled) {
+            // Guild commands are available immediately, unlike global commands
+            guild.updateCommands().addCommands(
+                Commands.slash("whitelist", "Request to be whitelisted on the Minecraft server")
+                    .addSubcommands(
+                        new SubcommandData("java", "Whitelist a Java Edition account")
+                            .addOption(OptionType.STRING, "name", "Your Minecraft username", true),
+                        new SubcommandData("bedrock", "Whitelist a Bedrock Edition account")
+                            .addOption(OptionType.STRING, "gamertag", "Your Bedrock gamertag", true)
+                            .addOption(OptionType.STRING, "xuid", "Your Xbox User ID (XUID), if it can't be looked up", false)
+                    )
+            ).queue(
+                commands -> LOGGER.info("Registered slash commands in guild {}", guild.getName()),
+                ex -> LOGGER.error("Failed to register slash commands in guild {}", guild.getName(), ex)
+            );
+        } else {
+            // Remove commands left over from a previous configuration
+            guild.updateCommands().queue();
+        }
+    }
+    
+    @Override
+    public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
+        WhitelisterConfig config = configHolder.get();
+        if (!event.getName().equals("whitelist") || !config.isSlashCommandsEnabled()) {
+            return;
+        }
+        
+        GuildSettings guild = event.isFromGuild() ? config.getGuildSettings(event.getGuild().getId()) : null;
+        if (guild == null) {
+            event.reply("This command is not available here.").setEphemeral(true).queue();
+            return;
+        }
+        
+        if (guild.channelId() != null && !event.getChannel().getId().equals(guild.channelId())) {
+            event.reply("Please use this command in <#" + guild.channelId() + ">.").setEphemeral(true).queue();
+            return;
+        }
+        
+        if (!markHandled(event.getIdLong())) {
+            return;
+        }
+        
+        String subcommand = event.getSubcommandName();
+        if ("java".equals(subcommand)) {
+            String username = event.getOption("name", OptionMapping::getAsString);
+            event.deferReply().queue();
+            processWhitelistRequest(new SlashCommandRequest(event), guild, username.trim());
+        } else if ("bedrock".equals(subcommand)) {
+            String gamertag = event.getOption("gamertag", OptionMapping::getAsString);
+            String xuid = event.getOption("xuid", OptionMapping::getAsString);
+            event.deferReply().queue();
+            processBedrockWhitelistRequest(new SlashCommandRequest(event), guild, gamertag.trim(),
+                xuid != null && !xuid.isBlank() ? xuid.trim() : null);
+        } else {
+            event.reply("Unknown subcommand.").setEphemeral(true).queue();
+        }
+    }
+    
+    @Override
+    public void onMessageReceived(MessageReceivedEvent event) {
+        WhitelisterConfig config = configHolder.get();
+        
+        // Ignore messages from bots, and all messages when text requests are disabled
+        if (event.getAuthor().isBot() || !config.isTextRequestsEnabled()) {
+            return;
+        }
+        
+        // Route the message to its guild's settings and check the request channel
+        GuildSettings guild = getTargetGuild(event, config);
+        if (guild == null) {
+            return;
+        }
+        
+        RequestMatcher matcher = requestMatchers.get(guild.guildId());
+        if (matcher == null) {
+            // The configuration was swapped after the routing lookup
+            return;
+        }
+        
+        if (!markHandled(event.getMessageIdLong())) {
+            LOGGER.debug("Ignoring replayed message {}", event.getMessageId());
+            return;
+        }
+        
+        String content = event.getMessage().getContentRaw();
+        RequestMatcher.Match match = matcher.match(content);
+        
+        switch (match.type()) {
+            case BEDROCK:
+                processBedrockWhitelistRequest(new MessageRequest(event), guild, match.username(), match.xuid());
+                break;
+            case JAVA:
+                processWhitelistRequest(new MessageRequest(event), guild, match.username());
+                break;
+            case HELP:
+                // If message doesn't match any format, provide help
+                sendHelpMessage(event, guild);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void sendHelpMessage(MessageReceivedEvent event, GuildSettings guild) {
         StringBuilder help = new StringBuilder("**Discord Whitelister Help**\n\n");
         help.append("To whitelist your Java Edition account:\n");
-        help.append("`").append(config.getMessageFormat().replace("{username}", "YourMinecraftUsername")).append("`\n\n");
+        help.append("`").append(guild.messageFormat().replace("{username}", "YourMinecraftUsername")).append("`\n\n");
         help.append("To whitelist your Bedrock Edition account:\n");
-        help.append("`bedrock YourGamertag xuid:1234567890`\n");
-        help.append("(Replace YourGamertag with your Bedrock username and the number with your XUID)\n\n");
-        help.append("You can find your XUID using websites like https://cxkes.me/xbox/xuid or https://www.cxkes.me/xbox/xuid");
+        String bedrockFormat = guild.bedrockMessageFormat();
+        if (configHolder.get().isBedrockLookupEnabled() && bedrockFormat.contains("{username}")) {
+            // The XUID is looked up from the gamertag, so the short form is enough
+            help.append("`").append(bedrockFormat.substring(0, bedrockFormat.indexOf("{username}"))).append("YourGamertag`\n");
+            help.append("(Replace YourGamertag with your Bedrock username)");
+        } else {
+            help.append("`").append(bedrockFormat
+                .replace("{username}", "YourGamertag")
+                .replace("{xuid}", "1234567890")).append("`\n");
+            help.append("(Replace YourGamertag with your Bedrock username and the number with your XUID)\n\n");
+            help.append("You can find your XUID using websites like https://cxkes.me/xbox/xuid or https://www.cxkes.me/xbox/xuid");
+        }
         
         event.getMessage().reply(help.toString()).queue();
     }
     
-    private boolean isTargetChannel(MessageReceivedEvent event) {
-        String guildId = config.getGuildId();
-        String channelId = config.getChannelId();
-        
-        if (guildId == null || channelId == null) {
-            return false;
+    /**
+     * Find the settings for the guild a message was sent in, if it was sent in that guild's request channel
+     * 
+     * @param event The message event
+     * @param config The current configuration
+     * @return The guild settings, or null if the message is not a whitelist request
+     */
+    private GuildSettings getTargetGuild(MessageReceivedEvent event, WhitelisterConfig config) {
+        if (!event.isFromGuild()) {
+            return null;
         }
         
-        return event.getGuild().getId().equals(guildId) && 
-               event.getChannel().getId().equals(channelId);
+        GuildSettings guild = config.getGuildSettings(event.getGuild().getId());
+        if (guild == null || guild.channelId() == null || !event.getChannel().getId().equals(guild.channelId())) {
+            return null;
+        }
+        return guild;
     }
     
-    private void processWhitelistRequest(MessageReceivedEvent event, String username) {
+    /**
+     * Compile the request formats of every guild, reusing matchers whose formats did not change
+     * 
+     * @param config The configuration
+     * @param previous The matchers compiled for the previous configuration
+     * @return The matchers keyed by guild ID
+     */
+    private static Map<String, RequestMatcher> compileMatchers(WhitelisterConfig config, Map<String, RequestMatcher> previous) {
+        Map<String, RequestMatcher> matchers = new HashMap<>();
+        for (GuildSettings guild : config.getAllGuildSettings()) {
+            RequestMatcher matcher = previous.get(guild.guildId());
+            if (matcher == null || !matcher.isFor(guild.messageFormat(), guild.messageAliases(), guild.bedrockMessageFormat())) {
+                matcher = new RequestMatcher(guild.messageFormat(), guild.messageAliases(), guild.bedrockMessageFormat());
+            }
+            matchers.put(guild.guildId(), matcher);
+        }
+        return Map.copyOf(matchers);
+    }
+    
+    private void processWhitelistRequest(DiscordRequest request, GuildSettings guild, String username) {
         // Check if the user has the required role if enabled
-        if (config.isRequireRole() && !hasRequiredRole(event.getMember())) {
-            event.getMessage().reply("You don't have the required role to use this command.").queue();
-            return;
+        checkRequiredRole(request, guild).thenAccept(allowed -> {
+            if (!allowed) {
+                request.reply("You don't have the required role to use this command.");
+                return;
+            }
+            
+            // Check if the username is valid
+            if (!isValidMinecraftUsername(username)) {
+                request.reply("Invalid Minecraft username. Usernames must be 3-16 characters and contain only letters, numbers, and underscores.");
+                return;
+            }
+            
+            enqueue(new PendingRequest(request, guild, username, false, null));
+        });
+    }
+    
+    private void processBedrockWhitelistRequest(DiscordRequest request, GuildSettings guild, String username, String xuid) {
+        // Check if the user has the required role if enabled
+        checkRequiredRole(request, guild).thenAccept(allowed -> {
+            if (!allowed) {
+                request.reply("You don't have the required role to use this command.");
+                return;
+            }
+            
+            // Check if the username is valid (Bedrock usernames can have spaces)
+            if (username.length() < 1 || username.length() > 16) {
+                request.reply("Invalid Bedrock gamertag. Gamertags must be 1-16 characters.");
+                return;
+            }
+            
+            // Without an XUID the gamertag is resolved during the lookup, if that is enabled
+            if (xuid == null) {
+                if (!configHolder.get().isBedrockLookupEnabled()) {
+                    request.reply("Please include your XUID. It can't be looked up automatically on this server.");
+                    return;
+                }
+            } else if (!xuid.matches("^[0-9]+$")) {
+                // Check if XUID is valid (should be a numeric string)
+                request.reply("Invalid XUID format. XUID should be a numeric value.");
+                return;
+            }
+            
+            enqueue(new PendingRequest(request, guild, username, true, xuid));
+        });
+    }
+    
+    /**
+     * Remember a message or interaction as handled
+     * 
+     * @param id The message or interaction ID
+     * @return true if the event was not handled before
+     */
+    private boolean markHandled(long id) {
+        synchronized (recentEvents) {
+            return recentEvents.put(id, Boolean.TRUE) == null;
         }
+    }
+    
+    /**
+     * Queue a validated request, joining a request for the same name that is already in flight
+     * 
+     * @param pending The request
+     */
+    private void enqueue(PendingRequest pending) {
+        DiscordRequest request = pending.request();
+        // Java names and Bedrock gamertags are separate namespaces, so only requests of the same edition are joined
+        String key = (pending.isBedrock() ? "bedrock:" : "java:") + pending.username().toLowerCase(Locale.ROOT);
         
-        // Check if the username is valid
-        if (!isValidMinecraftUsername(username)) {
-            event.getMessage().reply("Invalid Minecraft username. Usernames must be 3-16 characters and contain only letters, numbers, and underscores.").queue();
-            return;
-        }
+        enqueue(request, () -> {
+            SingleFlight.Call<RequestOutcome> call = requestFlights.execute(key, () -> requestBatcher.add(pending).handle((ignored, ex) -> {
+                // A request the batch handler never answered, for example because it failed, counts as failed
+                pending.outcome().complete(RequestOutcome.FAILED);
+                return pending.outcome().join();
+            }));
+            if (!call.shared()) {
+                return call.future();
+            }
+            
+            // Another request is already looking up and adding this name; answer from its outcome
+            LOGGER.debug("Joined in-flight whitelist request for {}", pending.username());
+            return call.future().handle((outcome, ex) -> {
+                replyToJoinedRequest(pending, ex != null ? RequestOutcome.FAILED : outcome);
+                return null;
+            });
+        });
+    }
+    
+    /**
+     * Hand a request to the scheduler and tell the user if it has to wait
+     * 
+     * @param request The request
+     * @param work The work to run once the request gets a slot
+     */
+    private void enqueue(DiscordRequest request, Supplier<CompletableFuture<?>> work) {
+        RequestScheduler.Submission submission = requestScheduler.submit(request.getUserId(), work);
         
-        // Check if already whitelisted
-        if (storage.isWhitelisted(username)) {
-            event.getMessage().reply("This username is already whitelisted.").queue();
-            return;
+        switch (submission.status()) {
+            case QUEUED:
+                request.reply("You're #" + submission.position() + " in queue. Your request will be processed shortly.");
+                break;
+            case DUPLICATE:
+                request.reply("You already have a whitelist request in progress. Please wait for it to finish.");
+                break;
+            case RATE_LIMITED:
+                request.reply("You're sending whitelist requests too quickly. Please wait a moment and try again.");
+                break;
+            case QUEUE_FULL:
+                request.reply("The whitelist queue is full right now. Please try again in a few minutes.");
+                break;
+            default:
+                break;
         }
+    }
+    
+    /**
+     * Handle a batch of requests with one bulk lookup and one storage write
+     * 
+     * @param batch The requests collected during the batch window
+     * @return CompletableFuture that completes when every request in the batch has been answered
+     */
+    private CompletableFuture<Void> handleBatch(List<PendingRequest> batch) {
+        List<PendingRequest> accepted = new ArrayList<>(batch.size());
+        List<String> usernames = new ArrayList<>();
+        Map<String, CompletableFuture<LookupResult>> gamertags = new LinkedHashMap<>();
         
-        // Look up UUID if possible
-        playerLookup.lookupPlayer(username).thenAccept(playerInfo -> {
-            if (playerInfo != null) {
-                // Add to whitelist with UUID
-                boolean added = storage.addPlayer(playerInfo.username(), playerInfo.uuid(), event.getAuthor().getId());
-                if (added) {
-                    event.getMessage().reply(config.getSuccessMessage()).queue();
-                    LOGGER.info("Added player {} ({}) to whitelist, requested by Discord user {}", 
-                                playerInfo.username(), playerInfo.uuid(), event.getAuthor().getId());
-                } else {
-                    event.getMessage().reply("Failed to add you to the whitelist. Please try again later.").queue();
+        // Answer requests for players that are already whitelisted without a lookup
+        for (PendingRequest pending : batch) {
+            if (pending.isBedrock()) {
+                if (storage.isWhitelisted(pending.username())
+                        || (pending.xuid() != null && storage.isBedrockWhitelisted(pending.xuid()))) {
+                    pending.reply("This Bedrock account is already whitelisted.", RequestOutcome.ALREADY_WHITELISTED);
+                    continue;
+                }
+                if (pending.xuid() == null) {
+                    // A failed XUID lookup says nothing about the gamertag, so it is deferred rather than not found
+                    gamertags.computeIfAbsent(pending.username().toLowerCase(Locale.ROOT), key ->
+                        playerLookup.lookupBedrockPlayer(pending.username(), null).handle((info, ex) ->
+                            ex != null ? LookupResult.DEFERRED : info != null ? LookupResult.found(info) : LookupResult.NOT_FOUND));
                 }
             } else {
-                // Add to whitelist without UUID (offline mode)
-                boolean added = storage.addPlayer(username, null, event.getAuthor().getId());
-                if (added) {
-                    event.getMessage().reply(config.getSuccessMessage() + " (Note: UUID lookup failed, added in offline mode)").queue();
-                    LOGGER.info("Added player {} to whitelist (offline mode), requested by Discord user {}", 
-                                username, event.getAuthor().getId());
+                if (storage.isWhitelisted(pending.username())) {
+                    pending.reply("This username is already whitelisted.", RequestOutcome.ALREADY_WHITELISTED);
+                    continue;
+                }
+                usernames.add(pending.username());
+            }
+            accepted.add(pending);
+        }
+        
+        if (accepted.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        CompletableFuture<Map<String, LookupResult>> lookups = usernames.isEmpty()
+            ? CompletableFuture.completedFuture(Map.of())
+            : playerLookup.lookupPlayers(usernames);
+        CompletableFuture<Void> xuids = CompletableFuture.allOf(gamertags.values().toArray(new CompletableFuture<?>[0]));
+        
+        // Storage writes and replies run on the workers, not on the HTTP client's completion thread
+        return lookups.thenCombine(xuids, (results, ignored) -> results).thenAcceptAsync(results -> {
+            List<PendingRequest> resolved = new ArrayList<>(accepted.size());
+            List<WhitelistedPlayer> players = new ArrayList<>(accepted.size());
+            for (PendingRequest pending : accepted) {
+                String discordId = pending.request().getUserId();
+                if (pending.isBedrock()) {
+                    String xuid = pending.xuid();
+                    if (xuid == null) {
+                        LookupResult result = gamertags.get(pending.username().toLowerCase(Locale.ROOT)).join();
+                        if (result.deferred()) {
+                            pending.reply(deferredMessage(pending), RequestOutcome.DEFERRED);
+                            continue;
+                        }
+                        if (!result.isFound()) {
+                            pending.reply(notFoundMessage(pending), RequestOutcome.NOT_FOUND);
+                            continue;
+                        }
+                        xuid = result.player().xuid();
+                        if (storage.isBedrockWhitelisted(xuid)) {
+                            pending.reply("This Bedrock account is already whitelisted.", RequestOutcome.ALREADY_WHITELISTED);
+                            continue;
+                        }
+                    }
+                    resolved.add(pending);
+                    players.add(new WhitelistedPlayer(pending.username(), xuid, discordId, true));
+                    continue;
+                }
+                
+                // Only players with a verified UUID are added
+                LookupResult result = results.getOrDefault(pending.username().toLowerCase(Locale.ROOT), LookupResult.DEFERRED);
+                if (result.isFound()) {
+                    resolved.add(pending);
+                    players.add(new WhitelistedPlayer(result.player().username(), result.player().uuid(), discordId));
+                } else if (result.deferred()) {
+                    pending.reply(deferredMessage(pending), RequestOutcome.DEFERRED);
+                    LOGGER.info("Deferred whitelist request for {} from Discord user {}: lookup unavailable", 
+                                pending.username(), discordId);
                 } else {
-                    event.getMessage().reply("Failed to add you to the whitelist. Please try again later.").queue();
+                    pending.reply(notFoundMessage(pending), RequestOutcome.NOT_FOUND);
+                }
+            }
+            
+            List<Boolean> added = players.isEmpty() ? List.of() : storage.addPlayers(players);
+            for (int i = 0; i < resolved.size(); i++) {
+                if (roleTracking && added.get(i)) {
+                    roleIndex.watch(Long.parseLong(players.get(i).getDiscordId()));
                 }
+                replyToBatchedRequest(resolved.get(i), players.get(i), added.get(i));
+            }
+            LOGGER.debug("Processed batch of {} whitelist request(s) with {} lookup(s)", batch.size(), usernames.size() + gamertags.size());
+        }, workers).exceptionally(ex -> {
+            for (PendingRequest pending : accepted) {
+                pending.reply("An error occurred while processing your request. Please try again later.", RequestOutcome.FAILED);
             }
-        }).exceptionally(ex -> {
-            event.getMessage().reply("An error occurred while processing your request. Please try again later.").queue();
-            LOGGER.error("Error processing whitelist request", ex);
+            LOGGER.error("Error processing whitelist requests", ex);
             return null;
         });
     }
     
-    private void processBedrockWhitelistRequest(MessageReceivedEvent event, String username, String xuid) {
-        // Check if the user has the required role if enabled
-        if (config.isRequireRole() && !hasRequiredRole(event.getMember())) {
-            event.getMessage().reply("You don't have the required role to use this command.").queue();
+    private void replyToBatchedRequest(PendingRequest pending, WhitelistedPlayer player, boolean added) {
+        GuildSettings guild = pending.guild();
+        DiscordRequest request = pending.request();
+        
+        if (pending.isBedrock()) {
+            if (added) {
+                pending.reply("Your Bedrock account has been whitelisted! You can now join the server.", RequestOutcome.ADDED);
+                LOGGER.info("Added Bedrock player {} (XUID: {}) to whitelist, requested by Discord user {}", 
+                            player.getUsername(), player.getXuid(), request.getUserId());
+            } else if (storage.isWhitelisted(player.getUsername()) || storage.isBedrockWhitelisted(player.getXuid())) {
+                // Another request in the same batch got there first
+                pending.reply("This Bedrock account is already whitelisted.", RequestOutcome.ALREADY_WHITELISTED);
+            } else {
+                pending.reply("Failed to add your Bedrock account to the whitelist. Please try again later.", RequestOutcome.FAILED);
+            }
             return;
         }
         
-        // Check if the username is valid (Bedrock usernames can have spaces)
-        if (username.length() < 1 || username.length() > 16) {
-            event.getMessage().reply("Invalid Bedrock gamertag. Gamertags must be 1-16 characters.").queue();
-            return;
+        if (added) {
+            pending.reply(guild.successMessage(), RequestOutcome.ADDED);
+            LOGGER.info("Added player {} ({}) to whitelist, requested by Discord user {}", 
+                        player.getUsername(), player.getUuid(), request.getUserId());
+        } else if (storage.isWhitelisted(player.getUsername())) {
+            pending.reply("This username is already whitelisted.", RequestOutcome.ALREADY_WHITELISTED);
+        } else {
+            pending.reply("Failed to add you to the whitelist. Please try again later.", RequestOutcome.FAILED);
+        }
+    }
+    
+    /**
+     * Answer a request that joined another request for the same name, from that request's outcome
+     * 
+     * @param pending The joined request
+     * @param outcome The outcome of the request it joined
+     */
+    private void replyToJoinedRequest(PendingRequest pending, RequestOutcome outcome) {
+        switch (outcome) {
+            case ADDED:
+            case ALREADY_WHITELISTED:
+                pending.reply(pending.isBedrock() ? "This Bedrock account is already whitelisted." : "This username is already whitelisted.",
+                              RequestOutcome.ALREADY_WHITELISTED);
+                break;
+            case NOT_FOUND:
+                pending.reply(notFoundMessage(pending), RequestOutcome.NOT_FOUND);
+                break;
+            case DEFERRED:
+                pending.reply(deferredMessage(pending), RequestOutcome.DEFERRED);
+                break;
+            default:
+                pending.reply("An error occurred while processing your request. Please try again later.", RequestOutcome.FAILED);
+                break;
+        }
+    }
+    
+    private static String notFoundMessage(PendingRequest pending) {
+        return pending.isBedrock()
+            ? "No Xbox account with the gamertag " + pending.username() + " was found. Please check the spelling and try again."
+            : "No Minecraft account named " + pending.username() + " was found. Please check the spelling and try again.";
+    }
+    
+    private static String deferredMessage(PendingRequest pending) {
+        return pending.isBedrock()
+            ? "Your gamertag couldn't be verified with Xbox Live right now. Please try again in a few minutes."
+            : "Your username couldn't be verified with Mojang right now. Please try again in a few minutes.";
+    }
+    
+    /**
+     * Check if the requesting user has the required role, loading the member lazily if it is not cached
+     * 
+     * @param request The request
+     * @param settings The settings of the guild the request was made in
+     * @return CompletableFuture that completes with true if the user may make requests
+     */
+    private CompletableFuture<Boolean> checkRequiredRole(DiscordRequest request, GuildSettings settings) {
+        if (!settings.isRoleRequired()) {
+            return CompletableFuture.completedFuture(true);
         }
         
-        // Check if XUID is valid (should be a numeric string)
-        if (!xuid.matches("^[0-9]+$")) {
-            event.getMessage().reply("Invalid XUID format. XUID should be a numeric value.").queue();
-            return;
+        // Indexed holders need neither the member nor a role scan
+        Guild requestGuild = request.getGuild();
+        if (roleTracking && requestGuild != null
+                && roleIndex.hasRole(requestGuild.getIdLong(), Long.parseLong(request.getUserId()))) {
+            return CompletableFuture.completedFuture(true);
         }
         
-        // Check if already whitelisted
-        if (storage.isWhitelisted(username) || storage.isBedrockWhitelisted(xuid)) {
-            event.getMessage().reply("This Bedrock account is already whitelisted.").queue();
-            return;
+        if (requesterCachePolicy != null) {
+            requesterCachePolicy.addRequester(request.getUserId());
         }
         
-        // Add to whitelist
-        boolean added = storage.addBedrockPlayer(username, xuid, event.getAuthor().getId());
-        if (added) {
-            event.getMessage().reply("Your Bedrock account has been whitelisted! You can now join the server.").queue();
-            LOGGER.info("Added Bedrock player {} (XUID: {}) to whitelist, requested by Discord user {}", 
-                        username, xuid, event.getAuthor().getId());
-        } else {
-            event.getMessage().reply("Failed to add your Bedrock account to the whitelist. Please try again later.").queue();
+        Member member = request.getMember();
+        if (member != null) {
+            return CompletableFuture.completedFuture(hasRequiredRole(member, settings));
         }
+        
+        Guild guild = request.getGuild();
+        if (guild == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        return guild.retrieveMemberById(request.getUserId()).submit()
+            .thenApply(loaded -> hasRequiredRole(loaded, settings))
+            .exceptionally(ex -> {
+                LOGGER.warn("Failed to load member {} for role check", request.getUserId(), ex);
+                return false;
+            });
     }
     
-    private boolean hasRequiredRole(Member member) {
+    private boolean hasRequiredRole(Member member, GuildSettings settings) {
         if (member == null) {
             return false;
         }
         
-        String requiredRoleId = config.getRequiredRoleId();
-        if (requiredRoleId == null || requiredRoleId.isEmpty()) {
+        if (!settings.isRoleRequired()) {
             return true;
         }
         
-        return member.getRoles().stream()
-            .anyMatch(role -> role.getId().equals(requiredRoleId));
+        long guildId = member.getGuild().getIdLong();
+        long roleId = roleIndex.getRequiredRole(guildId);
+        if (roleId == 0L || !holdsRole(member, roleId)) {
+            return false;
+        }
+        
+        if (roleTracking) {
+            roleIndex.addHolder(guildId, member.getIdLong());
+        }
+        return true;
     }
     
     private boolean isValidMinecraftUsername(String username) {
@@ -240,11 +1059,177 @@ public class DiscordBot extends ListenerAdapter {
     }
     
     /**
-     * Get the JDA instance
+     * Get the scheduler that queues Discord whitelist requests
+     * 
+     * @return The request scheduler
+     */
+    public RequestScheduler getRequestScheduler() {
+        return requestScheduler;
+    }
+    
+    /**
+     * Apply a new configuration without reconnecting unless the connection settings changed
+     * 
+     * @param previous The previous configuration
+     * @param current The new configuration
+     */
+    public void configChanged(WhitelisterConfig previous, WhitelisterConfig current) {
+        requestScheduler.updateLimits(current.getRequestMaxConcurrent(), current.getRequestQueueSize(),
+                                      current.getRequestUserBurst(), current.getRequestUserPeriodSeconds());
+        requestBatcher.setLimits(current.getRequestBatchSize(), current.getRequestBatchWindowMillis());
+        
+        requestMatchers = compileMatchers(current, requestMatchers);
+        applyRequiredRoles(current);
+        
+        // The token, intents, cache policy and shard count are fixed when the shards log in
+        boolean reconnect = !Objects.equals(previous.getBotToken(), current.getBotToken())
+            || previous.getShardCount() != current.getShardCount()
+            || previous.isRevokeOnRoleLoss() != current.isRevokeOnRoleLoss()
+            || previous.isLeanMode() != current.isLeanMode()
+            || previous.isTextRequestsEnabled() != current.isTextRequestsEnabled()
+            || (current.isLeanMode() && previous.getLeanMemberCacheSize() != current.getLeanMemberCacheSize());
+        if (reconnect || status == Status.FAILED) {
+            if (status != Status.STOPPED) {
+                LOGGER.info("Discord connection settings changed, reconnecting");
+                stop();
+                start();
+            }
+            return;
+        }
+        
+        // Everything else is read per event, so only the guild commands need updating
+        ShardManager currentManager = shardManager;
+        if (currentManager == null) {
+            return;
+        }
+        boolean commandsToggled = previous.isSlashCommandsEnabled() != current.isSlashCommandsEnabled();
+        Set<String> guildIds = new HashSet<>();
+        for (GuildSettings settings : previous.getAllGuildSettings()) {
+            guildIds.add(settings.guildId());
+        }
+        for (GuildSettings settings : current.getAllGuildSettings()) {
+            guildIds.add(settings.guildId());
+        }
+        for (String guildId : guildIds) {
+            boolean wasConfigured = previous.getGuildSettings(guildId) != null;
+            boolean isConfigured = current.getGuildSettings(guildId) != null;
+            if (wasConfigured == isConfigured && !commandsToggled) {
+                continue;
+            }
+            Guild guild = findGuild(currentManager, guildId);
+            if (guild != null) {
+                updateCommands(guild, isConfigured && current.isSlashCommandsEnabled());
+            }
+        }
+    }
+    
+    private Guild findGuild(ShardManager manager, String guildId) {
+        if (guildId == null || guildId.isEmpty()) {
+            return null;
+        }
+        try {
+            return manager.getGuildById(guildId);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid guild ID in configuration: {}", guildId);
+            return null;
+        }
+    }
+    
+    /**
+     * Get the connection status of the bot
+     * 
+     * @return The current status
+     */
+    public Status getStatus() {
+        Status current = status;
+        ShardManager currentManager = shardManager;
+        
+        // Shards reconnect on their own after the first ready event
+        if (current == Status.READY && (currentManager == null || currentManager.getShards().stream()
+                .anyMatch(shard -> shard.getStatus() != JDA.Status.CONNECTED))) {
+            return Status.CONNECTING;
+        }
+        return current;
+    }
+    
+    /**
+     * Check whether the bot is connected and ready
+     * 
+     * @return true if ready
+     */
+    public boolean isReady() {
+        return getStatus() == Status.READY;
+    }
+    
+    /**
+     * Connection status of the Discord bot
+     */
+    public enum Status {
+        STOPPED("Stopped"),
+        CONNECTING("Connecting"),
+        READY("Connected"),
+        FAILED("Failed");
+        
+        private final String displayName;
+        
+        Status(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
+    /**
+     * A validated request waiting for its batch
+     * 
+     * @param request The Discord request
+     * @param guild The settings of the guild the request was made in
+     * @param username The Minecraft username or Bedrock gamertag
+     * @param bedrock true for Bedrock Edition requests
+     * @param xuid The Bedrock XUID, or null for Java Edition requests and Bedrock requests that are resolved from the gamertag
+     * @param outcome Completes with the outcome once the request has been answered
+     */
+    private record PendingRequest(DiscordRequest request, GuildSettings guild, String username, boolean bedrock, String xuid,
+                                  CompletableFuture<RequestOutcome> outcome) {
+        PendingRequest(DiscordRequest request, GuildSettings guild, String username, boolean bedrock, String xuid) {
+            this(request, guild, username, bedrock, xuid, new CompletableFuture<>());
+        }
+        
+        boolean isBedrock() {
+            return bedrock;
+        }
+        
+        /**
+         * Answer the request and record its outcome
+         * 
+         * @param message The reply
+         * @param outcome The outcome
+         */
+        void reply(String message, RequestOutcome outcome) {
+            request.reply(message);
+            this.outcome.complete(outcome);
+        }
+    }
+    
+    /**
+     * How a whitelist request ended, shared with requests that joined it
+     */
+    private enum RequestOutcome {
+        ADDED,
+        ALREADY_WHITELISTED,
+        NOT_FOUND,
+        DEFERRED,
+        FAILED
+    }
+    
+    /**
+     * Get the shard manager
      * 
-     * @return JDA instance
+     * @return The shard manager, or null if the bot is not running
      */
-    public JDA getJda() {
-        return jda;
+    public ShardManager getShardManager() {
+        return shardManager;
     }
 }
@@ -0,0 +1,44 @@
+package com.discordwhitelister.common.discord;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+
+/**
+ * A whitelist request received from Discord, independent of how it was sent
+ */
+public interface DiscordRequest {
+    /**
+     * Get the Discord ID of the user who made the request
+     * 
+     * @return The Discord user ID
+     */
+    String getUserId();
+    
+    /**
+     * Get the guild member who made the request
+     * 
+     * @return The member, or null if unavailable
+     */
+    Member getMember();
+    
+    /**
+     * Get the guild the request was made in
+     * 
+     * @return The guild
+     */
+    Guild getGuild();
+    
+    /**
+     * Get the Discord ID of the message or interaction that carried the request
+     * 
+     * @return The request ID
+     */
+    String getRequestId();
+    
+    /**
+     * Send a reply to the user who made the request
+     * 
+     * @param message The reply text
+     */
+    void reply(String message);
+}
@@ -0,0 +1,41 @@
+package com.discordwhitelister.common.discord;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * Whitelist request sent as a plain text message in the whitelist channel
+ */
+public class MessageRequest implements DiscordRequest {
+    private final MessageReceivedEvent event;
+    
+    public MessageRequest(MessageReceivedEvent event) {
+        this.event = event;
+    }
+    
+    @Override
+    public String getUserId() {
+        return event.getAuthor().getId();
+    }
+    
+    @Override
+    public Member getMember() {
+        return event.getMember();
+    }
+    
+    @Override
+    public Guild getGuild() {
+        return event.getGuild();
+    }
+    
+    @Override
+    public String getRequestId() {
+        return event.getMessageId();
+    }
+    
+    @Override
+    public void reply(String message) {
+        event.getMessage().reply(message).queue();
+    }
+}
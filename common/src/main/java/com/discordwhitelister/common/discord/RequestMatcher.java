@@ -0,0 +1,225 @@
+package com.discordwhitelister.common.discord;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches Discord messages against the configured whitelist request formats
+ *
+ * All formats are compiled once when the matcher is built. Literal text in a format is
+ * quoted so it can never be interpreted as regex syntax, runs of whitespace match any
+ * amount of whitespace, and each format carries a cheap literal prefilter that is checked
+ * before running the regex.
+ *
+ * A Bedrock request may leave out the XUID: the part of the Bedrock format up to
+ * {username} also matches, with a null XUID, so it can be resolved from the gamertag.
+ */
+public class RequestMatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestMatcher.class);
+    private static final String USERNAME_PLACEHOLDER = "{username}";
+    private static final String XUID_PLACEHOLDER = "{xuid}";
+
+    private final String javaFormat;
+    private final List<String> aliases;
+    private final String bedrockFormat;
+    private final List<CompiledFormat> javaFormats = new ArrayList<>();
+    private final CompiledFormat bedrock;
+    private final CompiledFormat bedrockWithoutXuid;
+
+    /**
+     * Compile a matcher for the given formats
+     *
+     * @param javaFormat The Java Edition request format (must contain {username})
+     * @param aliases Additional Java Edition request formats
+     * @param bedrockFormat The Bedrock Edition request format (must contain {username}, and usually {xuid} after it)
+     */
+    public RequestMatcher(String javaFormat, List<String> aliases, String bedrockFormat) {
+        this.javaFormat = javaFormat;
+        this.aliases = aliases != null ? List.copyOf(aliases) : List.of();
+        this.bedrockFormat = bedrockFormat;
+
+        addJavaFormat(javaFormat);
+        for (String alias : this.aliases) {
+            addJavaFormat(alias);
+        }
+
+        CompiledFormat compiledBedrock = null;
+        CompiledFormat compiledShort = null;
+        if (bedrockFormat != null && bedrockFormat.contains(USERNAME_PLACEHOLDER)) {
+            int usernameEnd = bedrockFormat.indexOf(USERNAME_PLACEHOLDER) + USERNAME_PLACEHOLDER.length();
+            if (bedrockFormat.contains(XUID_PLACEHOLDER)) {
+                compiledBedrock = compile(bedrockFormat, false);
+            }
+            if (bedrockFormat.indexOf(XUID_PLACEHOLDER, usernameEnd) >= 0 || !bedrockFormat.contains(XUID_PLACEHOLDER)) {
+                compiledShort = compile(bedrockFormat.substring(0, usernameEnd), true);
+            }
+        } else if (bedrockFormat != null && !bedrockFormat.isEmpty()) {
+            LOGGER.warn("Ignoring Bedrock message format without {username}: {}", bedrockFormat);
+        }
+        this.bedrock = compiledBedrock;
+        this.bedrockWithoutXuid = compiledShort;
+    }
+
+    private void addJavaFormat(String format) {
+        if (format == null || format.isEmpty()) {
+            return;
+        }
+        if (!format.contains(USERNAME_PLACEHOLDER)) {
+            LOGGER.warn("Ignoring message format without {username}: {}", format);
+            return;
+        }
+        javaFormats.add(compile(format, true));
+    }
+
+    /**
+     * Check whether this matcher was built from the given formats
+     *
+     * @param javaFormat The Java Edition request format
+     * @param aliases Additional Java Edition request formats
+     * @param bedrockFormat The Bedrock Edition request format
+     * @return true if the formats are unchanged
+     */
+    public boolean isFor(String javaFormat, List<String> aliases, String bedrockFormat) {
+        return Objects.equals(this.javaFormat, javaFormat)
+            && Objects.equals(this.aliases, aliases != null ? aliases : List.of())
+            && Objects.equals(this.bedrockFormat, bedrockFormat);
+    }
+
+    /**
+     * Match a message against the configured request formats
+     *
+     * @param content The raw message content
+     * @return The match result, never null
+     */
+    public Match match(String content) {
+        // Bedrock requests are checked first, as before
+        if (bedrock != null && bedrock.prefilter(content)) {
+            Matcher matcher = bedrock.pattern.matcher(content);
+            if (matcher.find()) {
+                return new Match(MatchType.BEDROCK, matcher.group("username").trim(), matcher.group("xuid").trim());
+            }
+        }
+        if (bedrockWithoutXuid != null && bedrockWithoutXuid.prefilter(content)) {
+            Matcher matcher = bedrockWithoutXuid.pattern.matcher(content);
+            if (matcher.matches()) {
+                return new Match(MatchType.BEDROCK, matcher.group("username").trim(), null);
+            }
+        }
+
+        for (CompiledFormat format : javaFormats) {
+            if (!format.prefilter(content)) {
+                continue;
+            }
+            Matcher matcher = format.pattern.matcher(content);
+            if (matcher.matches()) {
+                return new Match(MatchType.JAVA, matcher.group("username").trim(), null);
+            }
+        }
+
+        String lower = content.toLowerCase(Locale.ROOT);
+        if (lower.contains("help") || lower.contains("whitelist")) {
+            return new Match(MatchType.HELP, null, null);
+        }
+
+        return Match.NONE;
+    }
+
+    /**
+     * Compile a request format into a regex
+     *
+     * @param format The format with placeholders
+     * @param anchored Whether the whole message must match (otherwise the format may appear anywhere)
+     * @return The compiled format
+     */
+    private static CompiledFormat compile(String format, boolean anchored) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+
+        while (i < format.length()) {
+            if (format.startsWith(USERNAME_PLACEHOLDER, i)) {
+                appendLiteral(regex, literal);
+                regex.append("(?<username>.+)");
+                i += USERNAME_PLACEHOLDER.length();
+            } else if (format.startsWith(XUID_PLACEHOLDER, i)) {
+                appendLiteral(regex, literal);
+                regex.append("(?<xuid>[0-9]+)");
+                i += XUID_PLACEHOLDER.length();
+            } else if (Character.isWhitespace(format.charAt(i))) {
+                appendLiteral(regex, literal);
+                while (i < format.length() && Character.isWhitespace(format.charAt(i))) {
+                    i++;
+                }
+                regex.append("\\s+");
+            } else {
+                literal.append(format.charAt(i));
+                i++;
+            }
+        }
+        appendLiteral(regex, literal);
+
+        return new CompiledFormat(Pattern.compile(regex.toString()), leadingWord(format), anchored);
+    }
+
+    private static void appendLiteral(StringBuilder regex, StringBuilder literal) {
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * Get the literal text before the first whitespace or placeholder
+     */
+    private static String leadingWord(String format) {
+        int end = 0;
+        while (end < format.length() && format.charAt(end) != '{' && !Character.isWhitespace(format.charAt(end))) {
+            end++;
+        }
+        return format.substring(0, end);
+    }
+
+    private static class CompiledFormat {
+        private final Pattern pattern;
+        private final String prefix;
+        private final boolean anchored;
+
+        private CompiledFormat(Pattern pattern, String prefix, boolean anchored) {
+            this.pattern = pattern;
+            this.prefix = prefix;
+            this.anchored = anchored;
+        }
+
+        private boolean prefilter(String content) {
+            if (prefix.isEmpty()) {
+                return true;
+            }
+            return anchored ? content.startsWith(prefix) : content.contains(prefix);
+        }
+    }
+
+    /**
+     * Kind of request a message represents
+     */
+    public enum MatchType {
+        JAVA,
+        BEDROCK,
+        HELP,
+        NONE
+    }
+
+    /**
+     * Result of matching a message
+     * The XUID is null for Java requests and for Bedrock requests that left it out
+     */
+    public record Match(MatchType type, String username, String xuid) {
+        static final Match NONE = new Match(MatchType.NONE, null, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.discordwhitelister.common.discord;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Member cache policy that only keeps members who recently made a whitelist request
+ * Used in lean mode so the bot never holds the full member list of a guild
+ */
+public class RequesterCachePolicy implements MemberCachePolicy {
+    private final Map<String, Boolean> requesters;
+    private final Consumer<String> evictionListener;
+    private String evicted;
+    
+    /**
+     * Create a new policy
+     * 
+     * @param maxRequesters Maximum number of requesters to remember
+     * @param evictionListener Called with the ID of a requester that was forgotten, so its
+     *                         member can be unloaded from JDA's cache
+     */
+    public RequesterCachePolicy(int maxRequesters, Consumer<String> evictionListener) {
+        this.evictionListener = evictionListener;
+        this.requesters = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                if (size() > maxRequesters) {
+                    evicted = eldest.getKey();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Remember a Discord user as a requester so their member gets cached
+     * 
+     * @param userId The Discord user ID
+     */
+    public void addRequester(String userId) {
+        String forgotten;
+        synchronized (this) {
+            requesters.put(userId, Boolean.TRUE);
+            forgotten = evicted;
+            evicted = null;
+        }
+        
+        // Outside the lock, JDA may ask this policy about the member while unloading it
+        if (forgotten != null) {
+            evictionListener.accept(forgotten);
+        }
+    }
+    
+    @Override
+    public synchronized boolean cacheMember(Member member) {
+        return requesters.containsKey(member.getId());
+    }
+}
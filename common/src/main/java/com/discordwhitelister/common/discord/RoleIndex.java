@@ -0,0 +1,152 @@
+package com.discordwhitelister.common.discord;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local index of the Discord users holding the required role of each guild
+ *
+ * The index is kept up to date from role and member-leave events instead of scanning
+ * guild member lists, so role checks are a set lookup. It also tracks the Discord users
+ * linked to whitelist entries and, as a member cache policy, keeps exactly those members
+ * cached so JDA delivers their role events.
+ */
+public class RoleIndex implements MemberCachePolicy {
+    private final Map<Long, GuildRoles> guilds = new ConcurrentHashMap<>();
+    private final Set<Long> watched = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Set the required role of a guild, dropping its holders if the role changed
+     *
+     * @param guildId The guild ID
+     * @param roleId The required role ID
+     */
+    public void setRequiredRole(long guildId, long roleId) {
+        guilds.compute(guildId, (id, current) ->
+            current != null && current.roleId == roleId ? current : new GuildRoles(roleId));
+    }
+
+    /**
+     * Keep only the given guilds in the index
+     *
+     * @param guildIds IDs of the guilds that still require a role
+     */
+    public void retainGuilds(Collection<Long> guildIds) {
+        guilds.keySet().retainAll(guildIds);
+    }
+
+    /**
+     * Get the required role of a guild
+     *
+     * @param guildId The guild ID
+     * @return The role ID, or 0 if the guild does not require a role
+     */
+    public long getRequiredRole(long guildId) {
+        GuildRoles roles = guilds.get(guildId);
+        return roles != null ? roles.roleId : 0L;
+    }
+
+    /**
+     * Check if a user is known to hold the required role of a guild
+     * A false result only means the user is not indexed; callers fall back to the member's roles
+     *
+     * @param guildId The guild ID
+     * @param userId The Discord user ID
+     * @return true if the user holds the role
+     */
+    public boolean hasRole(long guildId, long userId) {
+        GuildRoles roles = guilds.get(guildId);
+        return roles != null && roles.holders.contains(userId);
+    }
+
+    /**
+     * Record that a user holds the required role of a guild
+     *
+     * @param guildId The guild ID
+     * @param userId The Discord user ID
+     */
+    public void addHolder(long guildId, long userId) {
+        GuildRoles roles = guilds.get(guildId);
+        if (roles != null) {
+            roles.holders.add(userId);
+        }
+    }
+
+    /**
+     * Record that a user no longer holds the required role of a guild
+     *
+     * @param guildId The guild ID
+     * @param userId The Discord user ID
+     * @return true if the user was indexed as a holder
+     */
+    public boolean removeHolder(long guildId, long userId) {
+        GuildRoles roles = guilds.get(guildId);
+        return roles != null && roles.holders.remove(userId);
+    }
+
+    /**
+     * Start tracking a Discord user linked to a whitelist entry
+     *
+     * @param userId The Discord user ID
+     */
+    public void watch(long userId) {
+        watched.add(userId);
+    }
+
+    /**
+     * Stop tracking a Discord user
+     *
+     * @param userId The Discord user ID
+     */
+    public void unwatch(long userId) {
+        watched.remove(userId);
+    }
+
+    /**
+     * Check if a Discord user is linked to a whitelist entry
+     *
+     * @param userId The Discord user ID
+     * @return true if the user is tracked
+     */
+    public boolean isWatched(long userId) {
+        return watched.contains(userId);
+    }
+
+    /**
+     * Get the Discord users linked to whitelist entries
+     *
+     * @return A copy of the tracked user IDs
+     */
+    public Set<Long> getWatched() {
+        return Set.copyOf(watched);
+    }
+
+    /**
+     * Forget all holders and tracked users, keeping the configured roles
+     */
+    public void clear() {
+        watched.clear();
+        for (GuildRoles roles : guilds.values()) {
+            roles.holders.clear();
+        }
+    }
+
+    @Override
+    public boolean cacheMember(Member member) {
+        return watched.contains(member.getIdLong());
+    }
+
+    private static class GuildRoles {
+        private final long roleId;
+        private final Set<Long> holders = ConcurrentHashMap.newKeySet();
+
+        private GuildRoles(long roleId) {
+            this.roleId = roleId;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.discordwhitelister.common.discord;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+
+/**
+ * Whitelist request sent through the /whitelist slash command
+ * The interaction must be deferred before processing, replies are sent as follow-ups
+ */
+public class SlashCommandRequest implements DiscordRequest {
+    private final SlashCommandInteractionEvent event;
+    
+    public SlashCommandRequest(SlashCommandInteractionEvent event) {
+        this.event = event;
+    }
+    
+    @Override
+    public String getUserId() {
+        return event.getUser().getId();
+    }
+    
+    @Override
+    public Member getMember() {
+        return event.getMember();
+    }
+    
+    @Override
+    public Guild getGuild() {
+        return event.getGuild();
+    }
+    
+    @Override
+    public String getRequestId() {
+        return event.getId();
+    }
+    
+    @Override
+    public void reply(String message) {
+        event.getHook().sendMessage(message).queue();
+    }
+}
@@ -0,0 +1,87 @@
+package com.discordwhitelister.common.login;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, time-decayed cache of recent login denials
+ * Entries expire once no denial has been recorded for the configured time to live,
+ * and the least recently used entries are evicted once the cache is full
+ */
+public class DenialCache {
+    private final Map<String, Entry> entries;
+    private final long ttlNanos;
+    
+    /**
+     * Create a new denial cache
+     * 
+     * @param maxEntries Maximum number of keys to track
+     * @param ttlSeconds Seconds after the last denial before an entry expires
+     */
+    public DenialCache(int maxEntries, long ttlSeconds) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    /**
+     * Record a denial for the given key
+     * 
+     * @param key The cache key
+     * @return The number of denials recorded for the key since it last expired
+     */
+    public synchronized int record(String key) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry == null || now - entry.lastDenied > ttlNanos) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        entry.count++;
+        entry.lastDenied = now;
+        return entry.count;
+    }
+    
+    /**
+     * Get the number of recent denials for the given key
+     * 
+     * @param key The cache key
+     * @return The number of denials, or 0 if the key is unknown or expired
+     */
+    public synchronized int count(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return 0;
+        }
+        if (System.nanoTime() - entry.lastDenied > ttlNanos) {
+            entries.remove(key);
+            return 0;
+        }
+        return entry.count;
+    }
+    
+    /**
+     * Forget any denials recorded for the given key
+     * 
+     * @param key The cache key
+     */
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+    
+    /**
+     * Forget all recorded denials
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+    
+    private static class Entry {
+        private int count;
+        private long lastDenied;
+    }
+}
@@ -0,0 +1,229 @@
+package com.discordwhitelister.common.login;
+
+import com.discordwhitelister.common.config.ConfigHolder;
+import com.discordwhitelister.common.config.WhitelisterConfig;
+import com.discordwhitelister.common.storage.WhitelistChangeListener;
+import com.discordwhitelister.common.storage.WhitelistStorage;
+import com.discordwhitelister.common.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Shared whitelist check for player logins on every platform
+ *
+ * Login attempts are throttled per address range with a token bucket, and recent
+ * denials are cached by name so that repeated attempts are rejected without touching
+ * storage. Denials are also counted per address range; a range past the threshold
+ * still lets whitelisted players in, but its other names are rejected without being
+ * cached one by one, so a bot rotating names can't flush the name cache. Private and
+ * local addresses are never throttled or counted. Denials are logged in aggregate
+ * rather than one line per attempt.
+ */
+public class LoginGate implements WhitelistChangeListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoginGate.class);
+
+    private final ConfigHolder configHolder;
+    private final WhitelistStorage storage;
+    private volatile DenialCache deniedNames;
+    private volatile DenialCache deniedPrefixes;
+    private final Map<String, TokenBucket> buckets;
+
+    // Aggregated denial logging
+    private final Object logLock = new Object();
+    private long windowStart;
+    private int windowDenied;
+    private int windowThrottled;
+
+    public LoginGate(ConfigHolder configHolder, WhitelistStorage storage) {
+        this.configHolder = configHolder;
+        this.storage = storage;
+
+        WhitelisterConfig config = configHolder.get();
+        this.deniedNames = new DenialCache(config.getDenialCacheMaxEntries(), config.getDenialCacheSeconds());
+        this.deniedPrefixes = new DenialCache(config.getDenialCacheMaxEntries(), config.getDenialCacheSeconds());
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > configHolder.get().getDenialCacheMaxEntries();
+            }
+        };
+    }
+
+    /**
+     * Check whether a Java Edition player may log in
+     *
+     * @param username The player's username
+     * @param address The player's address (may be null if unknown)
+     * @return The login result
+     */
+    public LoginResult checkJava(String username, InetAddress address) {
+        String key = "java:" + username.toLowerCase(Locale.ROOT);
+        return check(key, username, address, () -> storage.isWhitelisted(username));
+    }
+
+    /**
+     * Check whether a Bedrock Edition player may log in
+     *
+     * @param gamertag The player's gamertag
+     * @param xuid The player's XUID
+     * @param address The player's address (may be null if unknown)
+     * @return The login result
+     */
+    public LoginResult checkBedrock(String gamertag, String xuid, InetAddress address) {
+        String key = "bedrock:" + xuid;
+        return check(key, gamertag, address, () -> storage.isBedrockWhitelisted(xuid));
+    }
+
+    private LoginResult check(String key, String name, InetAddress address, BooleanSupplier whitelisted) {
+        WhitelisterConfig config = configHolder.get();
+        String prefix = addressPrefix(address);
+
+        // Throttle bursts from a single address range before doing any other work
+        if (prefix != null && config.isLoginThrottleEnabled() && !bucketFor(prefix, config).tryConsume()) {
+            recordDenial(name, LoginResult.THROTTLED, config);
+            return LoginResult.THROTTLED;
+        }
+
+        // Repeated offenders are rejected straight from the denial cache
+        if (deniedNames.count(key) > 0) {
+            recordDenial(name, LoginResult.DENIED, config);
+            return LoginResult.DENIED;
+        }
+
+        // Storage is asked before the address range, so a busy range never locks out whitelisted players
+        if (whitelisted.getAsBoolean()) {
+            return LoginResult.ALLOWED;
+        }
+
+        int prefixThreshold = config.getPrefixDenialThreshold();
+        if (prefix == null || prefixThreshold <= 0 || deniedPrefixes.count(prefix) < prefixThreshold) {
+            deniedNames.record(key);
+        }
+        if (prefix != null) {
+            deniedPrefixes.record(prefix);
+        }
+        recordDenial(name, LoginResult.DENIED, config);
+        return LoginResult.DENIED;
+    }
+
+    private TokenBucket bucketFor(String prefix, WhitelisterConfig config) {
+        synchronized (buckets) {
+            return buckets.computeIfAbsent(prefix, p -> new TokenBucket(
+                config.getLoginThrottleBurst(), config.getLoginThrottleRefillPerSecond()));
+        }
+    }
+
+    /**
+     * Reduce an address to the range used for throttling (/24 for IPv4, /64 for IPv6)
+     *
+     * @param address The address
+     * @return The range key, or null if the address should not be throttled
+     */
+    private String addressPrefix(InetAddress address) {
+        // Loopback covers backends behind a proxy without IP forwarding, private and
+        // link-local ranges cover LAN players and proxies on the same network
+        if (address == null || address.isLoopbackAddress() || address.isAnyLocalAddress()
+                || address.isSiteLocalAddress() || address.isLinkLocalAddress()) {
+            return null;
+        }
+
+        byte[] bytes = address.getAddress();
+        // IPv6 unique local addresses (fc00::/7) are private too, but not site-local to InetAddress
+        if (bytes.length == 16 && (bytes[0] & 0xFE) == 0xFC) {
+            return null;
+        }
+
+        int length = bytes.length == 4 ? 3 : 8;
+        StringBuilder prefix = new StringBuilder(length * 3);
+        for (int i = 0; i < length; i++) {
+            prefix.append(Integer.toHexString(bytes[i] & 0xFF)).append(':');
+        }
+        return prefix.toString();
+    }
+
+    private void recordDenial(String name, LoginResult result, WhitelisterConfig config) {
+        long intervalNanos = config.getDenialLogIntervalSeconds() * 1_000_000_000L;
+        long now = System.nanoTime();
+
+        synchronized (logLock) {
+            if (windowDenied + windowThrottled == 0) {
+                // Log the first denial of each window individually
+                windowStart = now;
+                LOGGER.info("Blocked login attempt by non-whitelisted player: {}{}",
+                            name, result == LoginResult.THROTTLED ? " (throttled)" : "");
+            }
+
+            if (result == LoginResult.THROTTLED) {
+                windowThrottled++;
+            } else {
+                windowDenied++;
+            }
+
+            long elapsed = now - windowStart;
+            if (elapsed >= intervalNanos) {
+                int total = windowDenied + windowThrottled;
+                if (total > 1) {
+                    LOGGER.info("{} login denials in last {}s ({} throttled)",
+                                total, elapsed / 1_000_000_000L, windowThrottled);
+                }
+                windowDenied = 0;
+                windowThrottled = 0;
+            }
+        }
+    }
+
+    @Override
+    public void playerAdded(String username, UUID uuid, String xuid) {
+        // Newly whitelisted players must not be rejected by a stale denial
+        deniedNames.invalidate("java:" + username.toLowerCase(Locale.ROOT));
+        if (xuid != null) {
+            deniedNames.invalidate("bedrock:" + xuid);
+        }
+    }
+
+    @Override
+    public void playerRenamed(String oldName, String newName, UUID uuid) {
+        // The new name may have been denied before the entry moved to it
+        deniedNames.invalidate("java:" + newName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Apply a new configuration, keeping cached state that is still valid
+     *
+     * @param previous The previous configuration
+     * @param current The new configuration
+     */
+    public void configChanged(WhitelisterConfig previous, WhitelisterConfig current) {
+        if (previous.getDenialCacheMaxEntries() != current.getDenialCacheMaxEntries()
+                || previous.getDenialCacheSeconds() != current.getDenialCacheSeconds()) {
+            deniedNames = new DenialCache(current.getDenialCacheMaxEntries(), current.getDenialCacheSeconds());
+            deniedPrefixes = new DenialCache(current.getDenialCacheMaxEntries(), current.getDenialCacheSeconds());
+        }
+
+        // Existing buckets keep the rate they were created with
+        if (previous.getLoginThrottleBurst() != current.getLoginThrottleBurst()
+                || previous.getLoginThrottleRefillPerSecond() != current.getLoginThrottleRefillPerSecond()) {
+            synchronized (buckets) {
+                buckets.clear();
+            }
+        }
+    }
+
+    /**
+     * Forget all cached denials and throttling state
+     */
+    public void reset() {
+        deniedNames.clear();
+        deniedPrefixes.clear();
+        synchronized (buckets) {
+            buckets.clear();
+        }
+    }
+}
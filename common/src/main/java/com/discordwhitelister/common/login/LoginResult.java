@@ -0,0 +1,30 @@
+package com.discordwhitelister.common.login;
+
+/**
+ * Outcome of a whitelist check on login
+ */
+public enum LoginResult {
+    /**
+     * The player is whitelisted and may join
+     */
+    ALLOWED,
+    
+    /**
+     * The player is not whitelisted
+     */
+    DENIED,
+    
+    /**
+     * Too many login attempts from the player's address range
+     */
+    THROTTLED;
+    
+    /**
+     * Check if the login may proceed
+     * 
+     * @return true if the player may join
+     */
+    public boolean isAllowed() {
+        return this == ALLOWED;
+    }
+}
@@ -0,0 +1,264 @@
+package com.discordwhitelister.common.lookup;
+
+import com.discordwhitelister.common.util.SingleFlight;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Player lookup decorator that caches results of another lookup
+ *
+ * Found players and names that do not exist are cached with separate TTLs, so repeated
+ * requests for the same name never reach the API while the entry is fresh. Failed lookups
+ * are not cached. The cache is bounded and evicts the least recently used entry, and it can
+ * be saved to a file periodically and on shutdown so a restart does not start cold.
+ */
+public class CachingPlayerLookup implements MinecraftPlayerLookup, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingPlayerLookup.class);
+    private static final Type ENTRY_LIST_TYPE = new TypeToken<ArrayList<StoredEntry>>(){}.getType();
+
+    private final MinecraftPlayerLookup delegate;
+    private final long positiveTtlMillis;
+    private final long negativeTtlMillis;
+    private final Path persistenceFile;
+    private final Map<String, Entry> cache;
+    private final SingleFlight<String, PlayerInfo> lookups = new SingleFlight<>();
+
+    // Statistics, guarded by the cache lock
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a caching lookup
+     *
+     * @param delegate The lookup to cache
+     * @param maxEntries Maximum number of cached names
+     * @param positiveTtlSeconds Seconds to cache a found player
+     * @param negativeTtlSeconds Seconds to cache a name that does not exist
+     * @param persistenceFile File to load the cache from and save it to, or null to keep it in memory only
+     */
+    public CachingPlayerLookup(MinecraftPlayerLookup delegate, int maxEntries, long positiveTtlSeconds,
+                               long negativeTtlSeconds, Path persistenceFile) {
+        this.delegate = delegate;
+        this.positiveTtlMillis = Math.max(0, positiveTtlSeconds) * 1000L;
+        this.negativeTtlMillis = Math.max(0, negativeTtlSeconds) * 1000L;
+        this.persistenceFile = persistenceFile;
+        int capacity = Math.max(1, maxEntries);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        load();
+    }
+
+    @Override
+    public CompletableFuture<PlayerInfo> lookupPlayer(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                if (entry.player != null) {
+                    hits++;
+                } else {
+                    negativeHits++;
+                }
+                return CompletableFuture.completedFuture(entry.player);
+            }
+            if (entry != null) {
+                cache.remove(key);
+            }
+            misses++;
+        }
+
+        // Concurrent misses for the same name share one call to the delegate
+        return lookups.execute(key, () -> delegate.lookupPlayer(username).thenApply(player -> {
+            put(key, player);
+            return player;
+        })).future();
+    }
+
+    @Override
+    public CompletableFuture<PlayerInfo> lookupBedrockPlayer(String gamertag, String xuid) {
+        return delegate.lookupBedrockPlayer(gamertag, xuid);
+    }
+
+    private void put(String key, PlayerInfo player) {
+        long ttl = player != null ? positiveTtlMillis : negativeTtlMillis;
+        if (ttl <= 0) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(key, new Entry(player, System.currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * Remove a name from the cache, for example after it is known to have changed
+     *
+     * @param username The Minecraft username
+     */
+    public void invalidate(String username) {
+        synchronized (cache) {
+            cache.remove(username.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Get a snapshot of the cache statistics
+     *
+     * @return The current statistics
+     */
+    public Stats getStats() {
+        synchronized (cache) {
+            return new Stats(cache.size(), hits, negativeHits, misses, evictions);
+        }
+    }
+
+    private void load() {
+        if (persistenceFile == null || !Files.exists(persistenceFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(persistenceFile, StandardCharsets.UTF_8)) {
+            List<StoredEntry> stored = new Gson().fromJson(reader, ENTRY_LIST_TYPE);
+            if (stored == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            int loaded = 0;
+            synchronized (cache) {
+                for (StoredEntry entry : stored) {
+                    if (entry.key == null || entry.expiresAt <= now) {
+                        continue;
+                    }
+                    PlayerInfo player = entry.username != null && entry.uuid != null
+                        ? new PlayerInfo(entry.username, UUID.fromString(entry.uuid), null)
+                        : null;
+                    cache.put(entry.key, new Entry(player, entry.expiresAt));
+                    loaded++;
+                }
+            }
+            LOGGER.info("Loaded {} cached player lookup(s) from {}", loaded, persistenceFile);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to load player lookup cache from {}", persistenceFile, e);
+        }
+    }
+
+    /**
+     * Save the unexpired entries to the persistence file, if one is configured
+     */
+    public synchronized void save() {
+        if (persistenceFile == null) {
+            return;
+        }
+
+        List<StoredEntry> stored = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            for (Map.Entry<String, Entry> entry : cache.entrySet()) {
+                Entry value = entry.getValue();
+                if (value.expiresAt > now) {
+                    stored.add(new StoredEntry(entry.getKey(),
+                        value.player != null ? value.player.username() : null,
+                        value.player != null ? value.player.uuid().toString() : null,
+                        value.expiresAt));
+                }
+            }
+        }
+
+        try {
+            Path parent = persistenceFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // Write to a temporary file first so a crash never leaves a truncated cache
+            Path temp = persistenceFile.resolveSibling(persistenceFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                new Gson().toJson(stored, ENTRY_LIST_TYPE, writer);
+            }
+            Files.move(temp, persistenceFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save player lookup cache to {}", persistenceFile, e);
+        }
+    }
+
+    /**
+     * Save the cache before shutdown
+     */
+    @Override
+    public void close() {
+        save();
+    }
+
+    private static class Entry {
+        private final PlayerInfo player;
+        private final long expiresAt;
+
+        private Entry(PlayerInfo player, long expiresAt) {
+            this.player = player;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class StoredEntry {
+        private final String key;
+        private final String username;
+        private final String uuid;
+        private final long expiresAt;
+
+        private StoredEntry(String key, String username, String uuid, long expiresAt) {
+            this.key = key;
+            this.username = username;
+            this.uuid = uuid;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Snapshot of cache statistics
+     *
+     * @param size Number of cached names
+     * @param hits Lookups answered with a cached player
+     * @param negativeHits Lookups answered with a cached "not found"
+     * @param misses Lookups that went to the underlying lookup
+     * @param evictions Entries dropped because the cache was full
+     */
+    public record Stats(int size, long hits, long negativeHits, long misses, long evictions) {
+        /**
+         * Get the share of lookups answered from the cache
+         *
+         * @return The hit rate between 0 and 1
+         */
+        public double hitRate() {
+            long total = hits + negativeHits + misses;
+            return total > 0 ? (double) (hits + negativeHits) / total : 0;
+        }
+    }
+}
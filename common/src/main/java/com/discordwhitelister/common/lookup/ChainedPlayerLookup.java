@@ -0,0 +1,157 @@
+package com.discordwhitelister.common.lookup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Player lookup that asks a chain of lookups in order
+ *
+ * Every tier but the last is a source that may simply not know a name, such as the players
+ * the server has already seen, so a null result or a failure moves on to the next tier. The
+ * last tier, usually the cached Mojang lookup, gives the final answer. Each tier counts how
+ * many lookups reached it and how many it answered.
+ *
+ * Bedrock lookups without an XUID are resolved by the chain's XUID resolver, if it has one.
+ */
+public class ChainedPlayerLookup implements MinecraftPlayerLookup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChainedPlayerLookup.class);
+
+    private final List<TierState> tiers;
+    private final XuidResolver xuidResolver;
+
+    /**
+     * Create a chain
+     *
+     * @param tiers The tiers in the order they are asked; the last one is authoritative
+     */
+    public ChainedPlayerLookup(List<Tier> tiers) {
+        this(tiers, null);
+    }
+
+    /**
+     * Create a chain that resolves Bedrock gamertags
+     *
+     * @param tiers The tiers in the order they are asked; the last one is authoritative
+     * @param xuidResolver Resolver for Bedrock lookups without an XUID, or null to require one
+     */
+    public ChainedPlayerLookup(List<Tier> tiers, XuidResolver xuidResolver) {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("A lookup chain needs at least one tier");
+        }
+        this.tiers = new ArrayList<>(tiers.size());
+        for (Tier tier : tiers) {
+            this.tiers.add(new TierState(tier));
+        }
+        this.xuidResolver = xuidResolver;
+    }
+
+    @Override
+    public CompletableFuture<PlayerInfo> lookupPlayer(String username) {
+        return lookupFrom(0, username);
+    }
+
+    private CompletableFuture<PlayerInfo> lookupFrom(int index, String username) {
+        TierState state = tiers.get(index);
+        state.lookups.incrementAndGet();
+
+        CompletableFuture<PlayerInfo> lookup;
+        try {
+            lookup = state.tier.lookup().lookupPlayer(username);
+        } catch (RuntimeException e) {
+            lookup = CompletableFuture.failedFuture(e);
+        }
+
+        if (index == tiers.size() - 1) {
+            return lookup.whenComplete((player, ex) -> {
+                if (ex == null) {
+                    state.hits.incrementAndGet();
+                }
+            });
+        }
+
+        return lookup.handle((player, ex) -> {
+            if (ex != null) {
+                LOGGER.debug("Lookup tier {} failed for {}", state.tier.name(), username, ex);
+            }
+            return ex == null ? player : null;
+        }).thenCompose(player -> {
+            if (player != null) {
+                state.hits.incrementAndGet();
+                return CompletableFuture.completedFuture(player);
+            }
+            return lookupFrom(index + 1, username);
+        });
+    }
+
+    @Override
+    public CompletableFuture<PlayerInfo> lookupBedrockPlayer(String gamertag, String xuid) {
+        if ((xuid == null || xuid.isEmpty()) && xuidResolver != null) {
+            return xuidResolver.resolveXuid(gamertag)
+                .thenApply(resolved -> resolved != null ? new PlayerInfo(gamertag, null, resolved) : null);
+        }
+        return tiers.get(tiers.size() - 1).tier.lookup().lookupBedrockPlayer(gamertag, xuid);
+    }
+
+    /**
+     * Get a snapshot of the statistics of every tier, in chain order
+     *
+     * @return The tier statistics
+     */
+    public List<TierStats> getStats() {
+        List<TierStats> stats = new ArrayList<>(tiers.size());
+        for (TierState state : tiers) {
+            stats.add(new TierStats(state.tier.name(), state.lookups.get(), state.hits.get()));
+        }
+        return stats;
+    }
+
+    private static class TierState {
+        private final Tier tier;
+        private final AtomicLong lookups = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+
+        private TierState(Tier tier) {
+            this.tier = tier;
+        }
+    }
+
+    /**
+     * One tier of the chain
+     *
+     * @param name Name shown in statistics
+     * @param lookup The lookup for this tier
+     */
+    public record Tier(String name, MinecraftPlayerLookup lookup) {}
+
+    /**
+     * Snapshot of one tier's statistics
+     *
+     * @param name The tier name
+     * @param lookups Lookups that reached this tier
+     * @param hits Lookups this tier answered
+     */
+    public record TierStats(String name, long lookups, long hits) {
+        /**
+         * Get the share of lookups reaching this tier that it answered
+         *
+         * @return The hit rate between 0 and 1
+         */
+        public double hitRate() {
+            return lookups > 0 ? (double) hits / lookups : 0;
+        }
+
+        /**
+         * Format the statistics for status output, for example "server 40% (12/30)"
+         *
+         * @return The formatted statistics
+         */
+        public String format() {
+            return String.format("%s %.0f%% (%d/%d)", name, hitRate() * 100, hits, lookups);
+        }
+    }
+}
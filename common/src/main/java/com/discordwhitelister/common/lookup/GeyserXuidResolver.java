@@ -0,0 +1,207 @@
+package com.discordwhitelister.common.lookup;
+
+import com.discordwhitelister.common.util.SingleFlight;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * XUID resolver backed by the Geyser global API
+ *
+ * Results, including gamertags that don't exist, are kept in a bounded LRU cache with
+ * separate TTLs. Concurrent lookups for the same gamertag share one request, and at most a
+ * fixed number of requests are in flight at once; further lookups wait for a free slot
+ * instead of being sent. Rate limits and server errors fail the lookup with a
+ * {@link LookupDeferredException}.
+ */
+public class GeyserXuidResolver implements XuidResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeyserXuidResolver.class);
+    public static final String DEFAULT_API_URL = "https://api.geysermc.org";
+    private static final String XUID_PATH = "/v2/xbox/xuid/";
+
+    private final HttpClient httpClient;
+    private final String xuidUrl;
+    private final long positiveTtlMillis;
+    private final long negativeTtlMillis;
+    private final Map<String, Entry> cache;
+    private final SingleFlight<String, String> lookups = new SingleFlight<>();
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Create a resolver
+     *
+     * @param executor Executor for response handling, or null for the HTTP client's default
+     * @param apiUrl Base URL of the API, for example a local stub server in tests
+     * @param maxConcurrent Maximum number of requests in flight at once
+     * @param maxEntries Maximum number of cached gamertags
+     * @param positiveTtlSeconds Seconds to cache a resolved XUID
+     * @param negativeTtlSeconds Seconds to cache a gamertag that does not exist
+     */
+    public GeyserXuidResolver(Executor executor, String apiUrl, int maxConcurrent, int maxEntries,
+                              long positiveTtlSeconds, long negativeTtlSeconds) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10));
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        this.httpClient = builder.build();
+
+        String base = apiUrl == null || apiUrl.isEmpty() ? DEFAULT_API_URL : apiUrl;
+        if (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        this.xuidUrl = base + XUID_PATH;
+        this.positiveTtlMillis = positiveTtlSeconds * 1000;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+
+        int capacity = Math.max(1, maxEntries);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<String> resolveXuid(String gamertag) {
+        String key = gamertag.toLowerCase(Locale.ROOT);
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                return CompletableFuture.completedFuture(entry.xuid);
+            }
+        }
+
+        return lookups.execute(key, () -> limited(() -> request(gamertag)).thenApply(xuid -> {
+            long ttl = xuid != null ? positiveTtlMillis : negativeTtlMillis;
+            if (ttl > 0) {
+                synchronized (cache) {
+                    cache.put(key, new Entry(xuid, System.currentTimeMillis() + ttl));
+                }
+            }
+            return xuid;
+        })).future();
+    }
+
+    /**
+     * Run a request once a slot is free
+     */
+    private CompletableFuture<String> limited(Supplier<CompletableFuture<String>> request) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            CompletableFuture<String> sent;
+            try {
+                sent = request.get();
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            sent.whenComplete((xuid, ex) -> {
+                permits.release();
+                startWaiting();
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(xuid);
+                }
+            });
+        });
+        startWaiting();
+        return result;
+    }
+
+    private void startWaiting() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+                return;
+            }
+            next.run();
+        }
+    }
+
+    private CompletableFuture<String> request(String gamertag) {
+        String encoded = URLEncoder.encode(gamertag, StandardCharsets.UTF_8).replace("+", "%20");
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(xuidUrl + encoded))
+            .timeout(Duration.ofSeconds(10))
+            .GET()
+            .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()).thenApply(response -> {
+            try (InputStream body = response.body()) {
+                int status = response.statusCode();
+                if (status == 400 || status == 404) {
+                    return null;
+                }
+                if (status != 200) {
+                    throw new LookupDeferredException("Geyser API returned HTTP " + status, null);
+                }
+                return readXuid(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((xuid, ex) -> {
+            if (ex != null) {
+                LOGGER.warn("Failed to resolve the XUID of {}", gamertag, ex);
+            }
+        });
+    }
+
+    /**
+     * Read the "xuid" field of a response, which the API sends as a number
+     */
+    private static String readXuid(InputStream body) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return null;
+        }
+
+        String xuid = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("xuid") && reader.peek() != JsonToken.NULL) {
+                xuid = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return xuid != null && !xuid.isEmpty() && !xuid.equals("0") ? xuid : null;
+    }
+
+    private static class Entry {
+        private final String xuid;
+        private final long expiresAt;
+
+        private Entry(String xuid, long expiresAt) {
+            this.xuid = xuid;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
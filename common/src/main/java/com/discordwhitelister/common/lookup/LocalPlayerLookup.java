@@ -0,0 +1,118 @@
+package com.discordwhitelister.common.lookup;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Player lookup answered from players the server already knows, without network access
+ *
+ * Players are remembered when they join, and the server's user cache can be loaded at
+ * startup. An optional resolver asks the platform directly, for example for online players
+ * on a proxy. Only use this on servers whose player UUIDs come from Mojang: in offline
+ * mode the UUIDs a server knows are not the ones Mojang would return.
+ */
+public class LocalPlayerLookup implements MinecraftPlayerLookup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalPlayerLookup.class);
+
+    private final Function<String, PlayerInfo> resolver;
+    private final Map<String, PlayerInfo> known;
+
+    /**
+     * Create a local lookup
+     *
+     * @param resolver Function asking the platform for a player by name, or null if there is none
+     * @param maxEntries Maximum number of remembered players
+     */
+    public LocalPlayerLookup(Function<String, PlayerInfo> resolver, int maxEntries) {
+        this.resolver = resolver;
+        int capacity = Math.max(1, maxEntries);
+        this.known = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PlayerInfo> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<PlayerInfo> lookupPlayer(String username) {
+        PlayerInfo player;
+        synchronized (known) {
+            player = known.get(username.toLowerCase(Locale.ROOT));
+        }
+        if (player == null && resolver != null) {
+            player = resolver.apply(username);
+            if (player != null && !isMojangUuid(player.uuid())) {
+                player = null;
+            }
+        }
+        return CompletableFuture.completedFuture(player);
+    }
+
+    /**
+     * Remember a player who joined the server
+     *
+     * @param username The player's name
+     * @param uuid The player's UUID
+     */
+    public void remember(String username, UUID uuid) {
+        if (username == null || !isMojangUuid(uuid)) {
+            return;
+        }
+        synchronized (known) {
+            known.put(username.toLowerCase(Locale.ROOT), new PlayerInfo(username, uuid, null));
+        }
+    }
+
+    private static boolean isMojangUuid(UUID uuid) {
+        // Geyser players get UUIDs derived from their XUID, which Mojang doesn't know
+        return uuid != null && uuid.getMostSignificantBits() != 0;
+    }
+
+    /**
+     * Load the players in a vanilla usercache.json file
+     *
+     * @param file The user cache file
+     * @return The number of players loaded
+     */
+    public int loadUserCache(Path file) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        int loaded = 0;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonArray entries = new Gson().fromJson(reader, JsonArray.class);
+            if (entries == null) {
+                return 0;
+            }
+            for (JsonElement element : entries) {
+                JsonObject entry = element.getAsJsonObject();
+                if (entry.has("name") && entry.has("uuid")) {
+                    remember(entry.get("name").getAsString(), UUID.fromString(entry.get("uuid").getAsString()));
+                    loaded++;
+                }
+            }
+            LOGGER.info("Loaded {} known player(s) from {}", loaded, file);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to load user cache from {}", file, e);
+        }
+        return loaded;
+    }
+}
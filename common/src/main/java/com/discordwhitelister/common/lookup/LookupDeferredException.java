@@ -0,0 +1,16 @@
+package com.discordwhitelister.common.lookup;
+
+/**
+ * Thrown when a player lookup could not be completed right now, for example because the
+ * API kept rate limiting or failing after all retries
+ *
+ * Unlike a lookup that finds no player, a deferred lookup says nothing about whether the
+ * player exists, so callers should ask the user to try again later.
+ */
+public class LookupDeferredException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public LookupDeferredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,5 +1,9 @@
 package com.discordwhitelister.common.lookup;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -11,16 +15,38 @@ public interface MinecraftPlayerLookup {
      * Look up a Java Edition player by username
      * 
      * @param username The Minecraft username
-     * @return CompletableFuture that completes with player info or null if not found
+     * @return CompletableFuture that completes with player info or null if not found, or completes exceptionally if the lookup failed
      */
     CompletableFuture<PlayerInfo> lookupPlayer(String username);
     
+    /**
+     * Look up several Java Edition players at once
+     * Implementations backed by a bulk API should override this; the default looks up each name separately
+     * 
+     * @param usernames The Minecraft usernames
+     * @return CompletableFuture that completes with a result for every name, keyed by lower-case username
+     */
+    default CompletableFuture<Map<String, LookupResult>> lookupPlayers(Collection<String> usernames) {
+        Map<String, CompletableFuture<LookupResult>> lookups = new LinkedHashMap<>();
+        for (String username : usernames) {
+            // A failed lookup says nothing about the name, so it is deferred rather than not found
+            lookups.computeIfAbsent(username.toLowerCase(Locale.ROOT), key -> lookupPlayer(username).handle((info, ex) ->
+                ex != null ? LookupResult.DEFERRED : info != null ? LookupResult.found(info) : LookupResult.NOT_FOUND));
+        }
+        
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, LookupResult> results = new LinkedHashMap<>();
+            lookups.forEach((key, lookup) -> results.put(key, lookup.join()));
+            return results;
+        });
+    }
+    
     /**
      * Look up a Bedrock Edition player by gamertag and XUID
      * 
      * @param gamertag The Bedrock player's gamertag
-     * @param xuid The Bedrock player's XUID
-     * @return CompletableFuture that completes with player info
+     * @param xuid The Bedrock player's XUID, or null to resolve it from the gamertag if the implementation can
+     * @return CompletableFuture that completes with player info, or null if the gamertag wasn't found
      */
     default CompletableFuture<PlayerInfo> lookupBedrockPlayer(String gamertag, String xuid) {
         // Default implementation just returns the provided information
@@ -31,4 +57,23 @@ public interface MinecraftPlayerLookup {
      * Record class for player information
      */
     record PlayerInfo(String username, UUID uuid, String xuid) {}
+    
+    /**
+     * Outcome of looking up one name
+     * 
+     * @param player The player, or null if the name was not found or the lookup was deferred
+     * @param deferred true if the lookup could not be completed now and should be retried later
+     */
+    record LookupResult(PlayerInfo player, boolean deferred) {
+        public static final LookupResult NOT_FOUND = new LookupResult(null, false);
+        public static final LookupResult DEFERRED = new LookupResult(null, true);
+        
+        public static LookupResult found(PlayerInfo player) {
+            return new LookupResult(player, false);
+        }
+        
+        public boolean isFound() {
+            return player != null;
+        }
+    }
 }
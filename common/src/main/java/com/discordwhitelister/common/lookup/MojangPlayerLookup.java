@@ -1,84 +1,315 @@
 package com.discordwhitelister.common.lookup;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.discordwhitelister.common.util.MicroBatcher;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
- * Implementation of MinecraftPlayerLookup using Mojang API
+ * Implementation of MinecraftPlayerLookup using Mojang's bulk profile endpoint
+ *
+ * Individual lookups are queued and sent together as one POST of up to 10 names, the
+ * most the endpoint accepts. A batch is sent when it is full or shortly after its first
+ * lookup, and each lookup's future completes on its own once the response arrives.
+ * Requests go through a {@link MojangRequestScheduler}, so a batch that keeps being rate
+ * limited fails its lookups with a {@link LookupDeferredException}. Responses are read
+ * as a stream, and profile IDs are converted to UUIDs without string manipulation.
  */
-public class MojangPlayerLookup implements MinecraftPlayerLookup {
+public class MojangPlayerLookup implements MinecraftPlayerLookup, AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(MojangPlayerLookup.class);
-    private static final String MOJANG_API_URL = "https://api.mojang.com/users/profiles/minecraft/";
-    
-    private final HttpClient httpClient;
-    private final Gson gson;
-    
-    public MojangPlayerLookup() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
-        this.gson = new Gson();
+    public static final String DEFAULT_API_URL = "https://api.mojang.com";
+    private static final String BULK_PATH = "/profiles/minecraft";
+    private static final String PROFILE_PATH = "/user/profile/";
+    private static final int MAX_NAMES_PER_REQUEST = 10;
+    private static final long BATCH_WINDOW_MILLIS = 50;
+
+    private final MojangRequestScheduler scheduler;
+    private final boolean ownsScheduler;
+    private final URI bulkUri;
+    private final String profileUrl;
+    private final MicroBatcher<PendingLookup> batcher;
+
+    /**
+     * Create a lookup against the public Mojang API
+     *
+     * @param executor Executor for response handling, or null for the HTTP client's default
+     */
+    public MojangPlayerLookup(Executor executor) {
+        this(new MojangRequestScheduler(executor), true, DEFAULT_API_URL);
+    }
+
+    /**
+     * Create a lookup that sends its requests through a shared scheduler
+     *
+     * @param scheduler The scheduler pacing requests to the API; the caller closes it
+     * @param apiUrl Base URL of the API, for example a local stub server in tests
+     */
+    public MojangPlayerLookup(MojangRequestScheduler scheduler, String apiUrl) {
+        this(scheduler, false, apiUrl);
+    }
+
+    private MojangPlayerLookup(MojangRequestScheduler scheduler, boolean ownsScheduler, String apiUrl) {
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+
+        String base = apiUrl == null || apiUrl.isEmpty() ? DEFAULT_API_URL : apiUrl;
+        if (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        this.bulkUri = URI.create(base + BULK_PATH);
+        this.profileUrl = base + PROFILE_PATH;
+        this.batcher = new MicroBatcher<>("MojangLookup", MAX_NAMES_PER_REQUEST, BATCH_WINDOW_MILLIS, this::lookupBatch);
+    }
+
+    /**
+     * Open the connection to the API ahead of the first lookup
+     */
+    public void warmUp() {
+        scheduler.warmUp(bulkUri);
     }
-    
+
     @Override
     public CompletableFuture<PlayerInfo> lookupPlayer(String username) {
+        // A name Mojang can't have would only be sent in a batch with valid names and
+        // could fail the whole request, so it is answered as not found right away
+        if (!isValidName(username)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        PendingLookup lookup = new PendingLookup(username, new CompletableFuture<>());
+        batcher.add(lookup).whenComplete((ignored, ex) -> {
+            // The batch handler completes every lookup; this only catches a closed batcher
+            if (ex != null) {
+                lookup.result().completeExceptionally(ex);
+            }
+        });
+        return lookup.result();
+    }
+
+    /**
+     * Check if a name can be a Java Edition player name: 1 to 16 ASCII letters, digits or underscores
+     *
+     * @param username The name to check
+     * @return true if the name is valid
+     */
+    static boolean isValidName(String username) {
+        if (username == null || username.isEmpty() || username.length() > 16) {
+            return false;
+        }
+        for (int i = 0; i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolve a batch of lookups with one bulk request
+     *
+     * @param batch The queued lookups
+     * @return CompletableFuture that completes when every lookup in the batch is complete
+     */
+    private CompletableFuture<Void> lookupBatch(List<PendingLookup> batch) {
+        // The same name may be queued more than once; each distinct name is sent once
+        Map<String, List<PendingLookup>> byName = new LinkedHashMap<>();
+        for (PendingLookup lookup : batch) {
+            byName.computeIfAbsent(lookup.username().toLowerCase(Locale.ROOT), key -> new ArrayList<>()).add(lookup);
+        }
+
         HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(MOJANG_API_URL + username))
+            .uri(bulkUri)
             .timeout(Duration.ofSeconds(10))
-            .GET()
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(writeNames(byName.values())))
             .build();
-        
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+
+        return scheduler.send(request, HttpResponse.BodyHandlers.ofInputStream())
             .thenApply(response -> {
-                if (response.statusCode() == 200) {
-                    String body = response.body();
-                    JsonObject json = gson.fromJson(body, JsonObject.class);
-                    
-                    String id = json.get("id").getAsString();
-                    String name = json.get("name").getAsString();
-                    
-                    // Convert the Mojang ID format to UUID format with hyphens
-                    UUID uuid = formatUUID(id);
-                    
-                    return new PlayerInfo(name, uuid, null);
-                } else if (response.statusCode() == 204 || response.statusCode() == 404) {
-                    // Player not found
-                    LOGGER.warn("Player not found: {}", username);
-                    return null;
-                } else {
-                    // Other error
-                    LOGGER.error("Error looking up player {}: HTTP {}", username, response.statusCode());
-                    return null;
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("Mojang API returned HTTP " + response.statusCode());
+                    }
+                    return readProfiles(body);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
             })
-            .exceptionally(ex -> {
-                LOGGER.error("Exception looking up player {}", username, ex);
+            .handle((found, ex) -> {
+                if (ex != null) {
+                    LOGGER.error("Exception looking up {} player(s)", byName.size(), ex);
+                }
+                byName.forEach((key, lookups) -> {
+                    for (PendingLookup lookup : lookups) {
+                        if (ex != null) {
+                            lookup.result().completeExceptionally(ex);
+                        } else {
+                            // Names missing from the response do not exist
+                            lookup.result().complete(found.get(key));
+                        }
+                    }
+                });
+                LOGGER.debug("Resolved {} name(s) with one bulk request", byName.size());
                 return null;
             });
     }
-    
+
     /**
-     * Format a Mojang ID string into a UUID with hyphens
+     * Look up the current name of a Java Edition player
+     * Mojang has no bulk endpoint for this, so each call is one request
      * 
-     * @param id Mojang ID string (32 chars, no hyphens)
+     * @param uuid The Minecraft UUID
+     * @return CompletableFuture that completes with the current name, or null if the profile doesn't exist
+     */
+    public CompletableFuture<String> lookupName(UUID uuid) {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(profileUrl + uuid.toString().replace("-", "")))
+            .timeout(Duration.ofSeconds(10))
+            .GET()
+            .build();
+
+        return scheduler.send(request, HttpResponse.BodyHandlers.ofInputStream()).thenApply(response -> {
+            try (InputStream body = response.body()) {
+                if (response.statusCode() == 204 || response.statusCode() == 404) {
+                    return null;
+                }
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Mojang API returned HTTP " + response.statusCode());
+                }
+
+                JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                String name = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("name")) {
+                        name = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                return name;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String writeNames(Iterable<List<PendingLookup>> names) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginArray();
+            for (List<PendingLookup> lookups : names) {
+                writer.value(lookups.get(0).username());
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            // A StringWriter doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Read the profiles in a bulk response without building a JSON tree
+     *
+     * @param body The response body, an array of objects with "id" and "name"
+     * @return The players keyed by lower-case name
+     */
+    static Map<String, PlayerInfo> readProfiles(InputStream body) throws IOException {
+        Map<String, PlayerInfo> found = new HashMap<>();
+        JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            return found;
+        }
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String id = null;
+            String name = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id" -> id = reader.nextString();
+                    case "name" -> name = reader.nextString();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (id != null && name != null) {
+                found.put(name.toLowerCase(Locale.ROOT), new PlayerInfo(name, parseUuid(id), null));
+            }
+        }
+        reader.endArray();
+        return found;
+    }
+
+    /**
+     * Parse a Mojang profile ID, a UUID written as 32 hex digits without hyphens
+     *
+     * @param id Mojang ID string
      * @return UUID object
      */
-    private UUID formatUUID(String id) {
-        // Insert hyphens at the correct positions: 8-4-4-4-12
-        String uuidString = id.replaceFirst(
-            "(\\p{XDigit}{8})(\\p{XDigit}{4})(\\p{XDigit}{4})(\\p{XDigit}{4})(\\p{XDigit}+)",
-            "$1-$2-$3-$4-$5"
-        );
-        return UUID.fromString(uuidString);
+    static UUID parseUuid(String id) {
+        if (id.length() != 32) {
+            throw new IllegalArgumentException("Invalid profile ID: " + id);
+        }
+        return new UUID(parseHex(id, 0), parseHex(id, 16));
     }
+
+    private static long parseHex(String id, int start) {
+        long value = 0;
+        for (int i = start; i < start + 16; i++) {
+            char c = id.charAt(i);
+            int digit;
+            // Only ASCII hex digits, Character.digit would also accept other Unicode digits
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else if (c >= 'A' && c <= 'F') {
+                digit = c - 'A' + 10;
+            } else {
+                throw new IllegalArgumentException("Invalid profile ID: " + id);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Send queued lookups and stop the batching thread
+     */
+    @Override
+    public void close() {
+        batcher.close();
+        if (ownsScheduler) {
+            scheduler.close();
+        }
+    }
+
+    private record PendingLookup(String username, CompletableFuture<PlayerInfo> result) {}
 }
@@ -0,0 +1,305 @@
+package com.discordwhitelister.common.lookup;
+
+import com.discordwhitelister.common.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate-limit-aware sender for Mojang API requests
+ *
+ * Requests are paced by a token bucket and wait in a FIFO queue instead of being dropped.
+ * When Mojang answers with HTTP 429 every request pauses until the Retry-After time (or a
+ * backoff) has passed, and the rate-limited request is retried first. Server errors and
+ * network failures are retried with jittered exponential backoff. A request that still
+ * fails after the last retry completes with a {@link LookupDeferredException}.
+ *
+ * The scheduler owns the one HTTP client used for Mojang requests. It prefers HTTP/2 so
+ * concurrent requests share a single kept-alive connection, and {@link #warmUp(URI)} opens
+ * that connection before the first lookup needs it.
+ */
+public class MojangRequestScheduler implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MojangRequestScheduler.class);
+    public static final int DEFAULT_REQUESTS_PER_MINUTE = 60;
+    public static final int DEFAULT_MAX_RETRIES = 4;
+    private static final long BASE_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final int BURST = 5;
+
+    private final HttpClient httpClient;
+    private final TokenBucket bucket;
+    private final int maxRetries;
+    private final ScheduledExecutorService timer;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Attempt<?>> queue = new ArrayDeque<>();
+    private long cooldownUntil;
+    private boolean drainScheduled;
+
+    // Metrics, guarded by the lock
+    private long sent;
+    private long rateLimited;
+    private long retried;
+    private long deferred;
+
+    /**
+     * Create a scheduler with the default limits
+     * 
+     * @param executor Executor for response handling, or null for the HTTP client's default
+     */
+    public MojangRequestScheduler(Executor executor) {
+        this(executor, DEFAULT_REQUESTS_PER_MINUTE, DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * Create a new scheduler
+     *
+     * @param executor Executor for response handling, or null for the HTTP client's default
+     * @param requestsPerMinute Maximum number of requests sent per minute
+     * @param maxRetries Number of retries before a request is deferred
+     */
+    public MojangRequestScheduler(Executor executor, int requestsPerMinute, int maxRetries) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10));
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        this.httpClient = builder.build();
+        this.bucket = new TokenBucket(BURST, Math.max(1, requestsPerMinute) / 60.0);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DiscordWhitelister-MojangScheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cooldownUntil = System.nanoTime();
+    }
+
+    /**
+     * Open a connection to the API host so the first lookup doesn't pay for the TLS handshake
+     * The request bypasses the queue and its response is ignored
+     *
+     * @param uri Any URI on the API host
+     */
+    public void warmUp(URI uri) {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(uri)
+            .timeout(Duration.ofSeconds(10))
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, ex) -> {
+            if (ex != null) {
+                LOGGER.debug("Failed to warm up connection to {}", uri, ex);
+            } else {
+                LOGGER.debug("Warmed up {} connection to {}", response.version(), uri);
+            }
+        });
+    }
+
+    /**
+     * Queue a request with a string response body
+     *
+     * @param request The request
+     * @return CompletableFuture that completes with the response, or with a LookupDeferredException if it kept failing
+     */
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Queue a request
+     * The body of a response that is retried is closed if it is closeable, so streaming handlers don't leak connections
+     *
+     * @param request The request
+     * @param bodyHandler Handler for the response body
+     * @param <T> The response body type
+     * @return CompletableFuture that completes with the response, or with a LookupDeferredException if it kept failing
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        Attempt<T> attempt = new Attempt<>(request, bodyHandler);
+        synchronized (lock) {
+            queue.addLast(attempt);
+        }
+        drain();
+        return attempt.result;
+    }
+
+    /**
+     * Send as many queued requests as the rate limit allows and schedule the next drain
+     */
+    private void drain() {
+        List<Attempt<?>> ready = new ArrayList<>();
+        synchronized (lock) {
+            long delay = 0;
+            long now = System.nanoTime();
+            if (now - cooldownUntil < 0) {
+                delay = cooldownUntil - now;
+            } else {
+                while (!queue.isEmpty()) {
+                    long wait = bucket.nanosUntilAvailable(1);
+                    if (wait > 0) {
+                        delay = wait;
+                        break;
+                    }
+                    bucket.tryConsume();
+                    ready.add(queue.pollFirst());
+                }
+            }
+
+            if (delay > 0 && !queue.isEmpty() && !drainScheduled && !timer.isShutdown()) {
+                drainScheduled = true;
+                timer.schedule(() -> {
+                    synchronized (lock) {
+                        drainScheduled = false;
+                    }
+                    drain();
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+            sent += ready.size();
+        }
+
+        for (Attempt<?> attempt : ready) {
+            dispatch(attempt);
+        }
+    }
+
+    private <T> void dispatch(Attempt<T> attempt) {
+        httpClient.sendAsync(attempt.request, attempt.bodyHandler).whenComplete((response, ex) -> {
+            if (ex == null && response.statusCode() != 429 && response.statusCode() < 500) {
+                attempt.result.complete(response);
+            } else {
+                if (response != null && response.body() instanceof AutoCloseable body) {
+                    try {
+                        body.close();
+                    } catch (Exception ignored) {
+                        // The connection is discarded either way
+                    }
+                }
+                retry(attempt, response, ex);
+            }
+        });
+    }
+
+    private void retry(Attempt<?> attempt, HttpResponse<?> response, Throwable error) {
+        attempt.retries++;
+        String reason = error != null ? error.toString() : "HTTP " + response.statusCode();
+
+        if (attempt.retries > maxRetries) {
+            synchronized (lock) {
+                deferred++;
+            }
+            LOGGER.warn("Giving up on Mojang request after {} retries ({})", maxRetries, reason);
+            attempt.result.completeExceptionally(new LookupDeferredException("Mojang API unavailable: " + reason, error));
+            return;
+        }
+
+        long backoffNanos = backoffNanos(attempt.retries);
+        if (response != null && response.statusCode() == 429) {
+            // The limit applies to the whole server, so every queued request waits
+            long waitNanos = Math.max(backoffNanos, retryAfterNanos(response));
+            synchronized (lock) {
+                rateLimited++;
+                retried++;
+                cooldownUntil = Math.max(cooldownUntil, System.nanoTime() + waitNanos);
+                queue.addFirst(attempt);
+            }
+            LOGGER.warn("Mojang API rate limit reached, pausing lookups for {} ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            drain();
+            return;
+        }
+
+        synchronized (lock) {
+            retried++;
+        }
+        LOGGER.debug("Retrying Mojang request in {} ms ({})", TimeUnit.NANOSECONDS.toMillis(backoffNanos), reason);
+        try {
+            timer.schedule(() -> {
+                synchronized (lock) {
+                    queue.addFirst(attempt);
+                }
+                drain();
+            }, backoffNanos, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            attempt.result.completeExceptionally(new LookupDeferredException("Mojang request scheduler is closed", error));
+        }
+    }
+
+    /**
+     * Get a jittered exponential backoff for the given retry
+     */
+    private static long backoffNanos(int retry) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(retry - 1, 16));
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return TimeUnit.MILLISECONDS.toNanos(jittered);
+    }
+
+    private static long retryAfterNanos(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After").map(value -> {
+            try {
+                return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }).orElse(0L);
+    }
+
+    /**
+     * Get a snapshot of the scheduler metrics
+     *
+     * @return The current metrics
+     */
+    public Stats getStats() {
+        synchronized (lock) {
+            return new Stats(queue.size(), sent, rateLimited, retried, deferred);
+        }
+    }
+
+    /**
+     * Stop the scheduler; queued requests are deferred
+     */
+    @Override
+    public void close() {
+        List<Attempt<?>> pending;
+        synchronized (lock) {
+            pending = new ArrayList<>(queue);
+            queue.clear();
+        }
+        timer.shutdownNow();
+        for (Attempt<?> attempt : pending) {
+            attempt.result.completeExceptionally(new LookupDeferredException("Mojang request scheduler is closed", null));
+        }
+    }
+
+    private static class Attempt<T> {
+        private final HttpRequest request;
+        private final HttpResponse.BodyHandler<T> bodyHandler;
+        private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        private int retries;
+
+        private Attempt(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+            this.request = request;
+            this.bodyHandler = bodyHandler;
+        }
+    }
+
+    /**
+     * Snapshot of scheduler metrics
+     */
+    public record Stats(int queued, long sent, long rateLimited, long retried, long deferred) {}
+}
@@ -0,0 +1,251 @@
+package com.discordwhitelister.common.lookup;
+
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
+import com.discordwhitelister.common.storage.WhitelistStorage;
+import com.discordwhitelister.common.storage.WhitelistedPlayer;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background job that keeps stored usernames up to date after players rename their accounts
+ *
+ * Each run checks one page of whitelisted Java players. Their stored names are resolved
+ * with one bulk request; a name that no longer belongs to the stored UUID is then looked
+ * up by UUID, one request per player. Changed names are written back in one storage
+ * update. Requests go through the same rate-limited scheduler as Discord lookups, and a
+ * daily request budget keeps the crawler from crowding them out. Progress is saved to a
+ * checkpoint file so a restart continues where the crawler stopped. Pages are checked on
+ * the platform's async scheduler, and a page still running when the next one is due is not
+ * overlapped.
+ */
+public class NameRefreshCrawler implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NameRefreshCrawler.class);
+    public static final int PAGE_SIZE = 10;
+
+    private final WhitelistStorage storage;
+    private final MojangPlayerLookup lookup;
+    private final CachingPlayerLookup cache;
+    private final int dailyBudget;
+    private final Path checkpointFile;
+    private final PlatformScheduler scheduler;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile PlatformScheduler.Task task;
+
+    // Progress, only touched by the run holding the running flag
+    private Checkpoint checkpoint;
+
+    /**
+     * Create a crawler
+     *
+     * @param storage The whitelist storage to refresh
+     * @param lookup The Mojang lookup; the cache is bypassed so stale names are not read back
+     * @param cache The lookup cache to invalidate for renamed players, or null if there is none
+     * @param dailyBudget Maximum number of Mojang requests per UTC day
+     * @param checkpointFile File to load and save progress, or null to start from the beginning on every restart
+     * @param scheduler The platform scheduler running the crawler
+     */
+    public NameRefreshCrawler(WhitelistStorage storage, MojangPlayerLookup lookup, CachingPlayerLookup cache,
+                              int dailyBudget, Path checkpointFile, PlatformScheduler scheduler) {
+        this.storage = storage;
+        this.lookup = lookup;
+        this.cache = cache;
+        this.dailyBudget = Math.max(1, dailyBudget);
+        this.checkpointFile = checkpointFile;
+        this.scheduler = scheduler;
+        this.checkpoint = loadCheckpoint();
+    }
+
+    /**
+     * Start refreshing one page per interval
+     *
+     * @param intervalSeconds Seconds between pages
+     */
+    public void start(long intervalSeconds) {
+        long interval = TimeUnit.SECONDS.toMillis(Math.max(1, intervalSeconds));
+        task = scheduler.runAsyncRepeating(() -> {
+            // Skip this run if the previous page is still waiting for Mojang
+            if (!running.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                refreshPage();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Name refresh failed", e);
+            } finally {
+                running.set(false);
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * Check the next page of players and store any changed names
+     */
+    private void refreshPage() {
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        if (checkpoint.day != today) {
+            checkpoint.day = today;
+            checkpoint.requestsToday = 0;
+        }
+        if (checkpoint.requestsToday >= dailyBudget) {
+            return;
+        }
+
+        List<WhitelistedPlayer> page = storage.getPlayers(checkpoint.offset, PAGE_SIZE);
+        if (page.isEmpty()) {
+            // Past the end of the whitelist; start the next pass from the beginning
+            if (checkpoint.offset > 0) {
+                checkpoint.offset = 0;
+                saveCheckpoint();
+            }
+            return;
+        }
+
+        List<WhitelistedPlayer> players = new ArrayList<>(page.size());
+        for (WhitelistedPlayer player : page) {
+            if (!player.isBedrock() && player.getUuid() != null) {
+                players.add(player);
+            }
+        }
+
+        Map<String, String> renames = new LinkedHashMap<>();
+        boolean complete = players.isEmpty() || checkPlayers(players, renames);
+
+        if (!renames.isEmpty()) {
+            Map<String, WhitelistedPlayer> renamed = storage.renamePlayers(renames);
+            renamed.forEach((oldName, player) -> {
+                LOGGER.info("Player {} was renamed to {}", oldName, player.getUsername());
+                if (cache != null) {
+                    cache.invalidate(oldName);
+                    cache.invalidate(player.getUsername());
+                }
+            });
+        }
+
+        // An unfinished page is checked again on the next run
+        if (complete) {
+            checkpoint.offset += page.size();
+        }
+        saveCheckpoint();
+    }
+
+    /**
+     * Find the current names of a page of players
+     *
+     * @param players Java players with a UUID
+     * @param renames Map to add new names to, keyed by the stored name
+     * @return true if every player was checked, false if the budget ran out or Mojang deferred a lookup
+     */
+    private boolean checkPlayers(List<WhitelistedPlayer> players, Map<String, String> renames) {
+        List<String> names = new ArrayList<>(players.size());
+        for (WhitelistedPlayer player : players) {
+            names.add(player.getUsername());
+        }
+
+        checkpoint.requestsToday++;
+        Map<String, MinecraftPlayerLookup.LookupResult> results = lookup.lookupPlayers(names).join();
+
+        for (WhitelistedPlayer player : players) {
+            String stored = player.getUsername();
+            MinecraftPlayerLookup.LookupResult result = results.get(stored.toLowerCase(Locale.ROOT));
+            if (result == null || result.deferred()) {
+                return false;
+            }
+            if (result.isFound() && result.player().uuid().equals(player.getUuid())) {
+                // Same account; only the capitalisation may have changed
+                if (!result.player().username().equals(stored)) {
+                    renames.put(stored, result.player().username());
+                }
+                continue;
+            }
+
+            // The name is free or belongs to someone else now, so ask who this UUID is
+            if (checkpoint.requestsToday >= dailyBudget) {
+                return false;
+            }
+            checkpoint.requestsToday++;
+            String current;
+            try {
+                current = lookup.lookupName(player.getUuid()).join();
+            } catch (CompletionException e) {
+                LOGGER.debug("Failed to look up the current name of {}", stored, e);
+                return false;
+            }
+            if (current != null && !current.equals(stored)) {
+                renames.put(stored, current);
+            }
+        }
+        return true;
+    }
+
+    private Checkpoint loadCheckpoint() {
+        if (checkpointFile != null && Files.exists(checkpointFile)) {
+            try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+                Checkpoint loaded = new Gson().fromJson(reader, Checkpoint.class);
+                if (loaded != null) {
+                    return loaded;
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to load name refresh checkpoint from {}", checkpointFile, e);
+            }
+        }
+        return new Checkpoint();
+    }
+
+    private void saveCheckpoint() {
+        if (checkpointFile == null) {
+            return;
+        }
+
+        try {
+            Path parent = checkpointFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // Write to a temporary file first so a crash never leaves a truncated checkpoint
+            Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                new Gson().toJson(checkpoint, writer);
+            }
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save name refresh checkpoint to {}", checkpointFile, e);
+        }
+    }
+
+    /**
+     * Stop the crawler; a page in progress finishes, and an unfinished page is checked again after a restart
+     */
+    @Override
+    public void close() {
+        PlatformScheduler.Task scheduled = task;
+        if (scheduled != null) {
+            scheduled.cancel();
+            task = null;
+        }
+    }
+
+    private static class Checkpoint {
+        private int offset;
+        private long day;
+        private int requestsToday;
+    }
+}
@@ -0,0 +1,28 @@
+package com.discordwhitelister.common.lookup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Player lookup for offline-mode servers
+ *
+ * Offline-mode servers don't use Mojang UUIDs; they derive each player's UUID from the name,
+ * the same way this lookup does. No network request is made, and every name resolves.
+ */
+public class OfflinePlayerLookup implements MinecraftPlayerLookup {
+    @Override
+    public CompletableFuture<PlayerInfo> lookupPlayer(String username) {
+        return CompletableFuture.completedFuture(new PlayerInfo(username, offlineUuid(username), null));
+    }
+
+    /**
+     * Get the UUID an offline-mode server assigns to a name
+     *
+     * @param username The Minecraft username
+     * @return The name-based UUID of "OfflinePlayer:" followed by the name
+     */
+    public static UUID offlineUuid(String username) {
+        return UUID.nameUUIDFromBytes(("OfflinePlayer:" + username).getBytes(StandardCharsets.UTF_8));
+    }
+}
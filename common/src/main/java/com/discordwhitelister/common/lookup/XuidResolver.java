@@ -0,0 +1,16 @@
+package com.discordwhitelister.common.lookup;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves Bedrock Edition gamertags to Xbox User IDs (XUIDs)
+ */
+public interface XuidResolver {
+    /**
+     * Look up the XUID of a gamertag
+     * 
+     * @param gamertag The Bedrock gamertag
+     * @return CompletableFuture that completes with the XUID or null if the gamertag doesn't exist, or completes exceptionally if the lookup failed
+     */
+    CompletableFuture<String> resolveXuid(String gamertag);
+}
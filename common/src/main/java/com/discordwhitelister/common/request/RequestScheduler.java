@@ -0,0 +1,269 @@
+package com.discordwhitelister.common.request;
+
+import com.discordwhitelister.common.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Fair scheduler for whitelist requests coming from Discord
+ *
+ * Each Discord user may have at most one request pending and is rate limited with a
+ * token bucket. Accepted requests run with a global concurrency cap, and requests beyond
+ * the cap wait in a bounded FIFO queue. Queue depth and wait times are tracked for status
+ * output.
+ */
+public class RequestScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestScheduler.class);
+    private static final int MAX_TRACKED_USERS = 10000;
+
+    private int maxConcurrent;
+    private int maxQueueSize;
+    private int userBurst;
+    private double userRefillPerSecond;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private final Set<String> pendingUsers = new HashSet<>();
+    private final Map<String, TokenBucket> userBuckets;
+    private int running;
+
+    // Metrics
+    private int maxQueueDepth;
+    private long completed;
+    private long rejected;
+    private long rateLimited;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Create a new scheduler
+     *
+     * @param maxConcurrent Maximum number of requests processed at the same time
+     * @param maxQueueSize Maximum number of requests waiting for a slot
+     * @param userBurst Number of requests a user may make in a burst
+     * @param userPeriodSeconds Seconds for a user to earn back one request
+     */
+    public RequestScheduler(int maxConcurrent, int maxQueueSize, int userBurst, int userPeriodSeconds) {
+        applyLimits(maxConcurrent, maxQueueSize, userBurst, userPeriodSeconds);
+        this.userBuckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > MAX_TRACKED_USERS;
+            }
+        };
+    }
+
+    /**
+     * Change the scheduler limits without dropping queued requests
+     * If the concurrency cap grows, queued requests start right away
+     *
+     * @param maxConcurrent Maximum number of requests processed at the same time
+     * @param maxQueueSize Maximum number of requests waiting for a slot
+     * @param userBurst Number of requests a user may make in a burst
+     * @param userPeriodSeconds Seconds for a user to earn back one request
+     */
+    public void updateLimits(int maxConcurrent, int maxQueueSize, int userBurst, int userPeriodSeconds) {
+        List<Task> started = new ArrayList<>();
+        synchronized (lock) {
+            int previousBurst = this.userBurst;
+            double previousRefill = this.userRefillPerSecond;
+            applyLimits(maxConcurrent, maxQueueSize, userBurst, userPeriodSeconds);
+            if (previousBurst != this.userBurst || previousRefill != this.userRefillPerSecond) {
+                userBuckets.clear();
+            }
+
+            while (running < this.maxConcurrent && !queue.isEmpty()) {
+                running++;
+                started.add(queue.pollFirst());
+            }
+        }
+
+        for (Task task : started) {
+            runFrom(task);
+        }
+    }
+
+    private void applyLimits(int maxConcurrent, int maxQueueSize, int userBurst, int userPeriodSeconds) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueueSize = Math.max(0, maxQueueSize);
+        this.userBurst = Math.max(1, userBurst);
+        this.userRefillPerSecond = userPeriodSeconds > 0 ? 1.0 / userPeriodSeconds : Double.MAX_VALUE;
+    }
+
+    /**
+     * Submit a request for processing
+     *
+     * @param userId The Discord user ID that made the request
+     * @param work Supplier that starts the work and returns a future completing when it is done
+     * @return The submission result
+     */
+    public Submission submit(String userId, Supplier<CompletableFuture<?>> work) {
+        Task task = new Task(userId, work, System.nanoTime());
+        int position;
+
+        synchronized (lock) {
+            if (pendingUsers.contains(userId)) {
+                return new Submission(SubmissionStatus.DUPLICATE, 0);
+            }
+
+            boolean canStart = running < maxConcurrent;
+            if (!canStart && queue.size() >= maxQueueSize) {
+                rejected++;
+                return new Submission(SubmissionStatus.QUEUE_FULL, 0);
+            }
+
+            TokenBucket bucket = userBuckets.computeIfAbsent(userId, id -> new TokenBucket(userBurst, userRefillPerSecond));
+            if (!bucket.tryConsume()) {
+                rateLimited++;
+                return new Submission(SubmissionStatus.RATE_LIMITED, 0);
+            }
+
+            pendingUsers.add(userId);
+            if (canStart) {
+                running++;
+                position = 0;
+            } else {
+                queue.addLast(task);
+                position = queue.size();
+                maxQueueDepth = Math.max(maxQueueDepth, position);
+            }
+        }
+
+        if (position == 0) {
+            runFrom(task);
+            return new Submission(SubmissionStatus.STARTED, 0);
+        }
+        return new Submission(SubmissionStatus.QUEUED, position);
+    }
+
+    /**
+     * Run the given task and keep pulling from the queue while tasks complete synchronously
+     */
+    private void runFrom(Task first) {
+        Task task = first;
+        while (task != null) {
+            CompletableFuture<?> future = start(task);
+            if (!future.isDone()) {
+                Task current = task;
+                future.whenComplete((result, ex) -> runFrom(finish(current)));
+                return;
+            }
+            task = finish(task);
+        }
+    }
+
+    private CompletableFuture<?> start(Task task) {
+        long waited = System.nanoTime() - task.submittedAt;
+        synchronized (lock) {
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+        }
+
+        try {
+            CompletableFuture<?> future = task.work.get();
+            return future != null ? future : CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            LOGGER.error("Whitelist request for Discord user {} failed", task.userId, e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Mark a task as finished and hand its slot to the next queued task
+     *
+     * @return The next task to run, or null if the queue is empty
+     */
+    private Task finish(Task task) {
+        synchronized (lock) {
+            pendingUsers.remove(task.userId);
+            completed++;
+
+            Task next = queue.pollFirst();
+            if (next == null) {
+                running--;
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Get a snapshot of the scheduler metrics
+     *
+     * @return The current metrics
+     */
+    public Stats getStats() {
+        synchronized (lock) {
+            double averageWaitMillis = completed + running > 0
+                ? totalWaitNanos / 1_000_000.0 / (completed + running)
+                : 0;
+            return new Stats(queue.size(), running, maxQueueDepth, completed, rejected, rateLimited,
+                             averageWaitMillis, maxWaitNanos / 1_000_000.0);
+        }
+    }
+
+    private static class Task {
+        private final String userId;
+        private final Supplier<CompletableFuture<?>> work;
+        private final long submittedAt;
+
+        private Task(String userId, Supplier<CompletableFuture<?>> work, long submittedAt) {
+            this.userId = userId;
+            this.work = work;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    /**
+     * Outcome of submitting a request
+     */
+    public enum SubmissionStatus {
+        /**
+         * The request started immediately
+         */
+        STARTED,
+
+        /**
+         * The request is waiting in the queue
+         */
+        QUEUED,
+
+        /**
+         * The user already has a request pending
+         */
+        DUPLICATE,
+
+        /**
+         * The user is sending requests too quickly
+         */
+        RATE_LIMITED,
+
+        /**
+         * The queue is full
+         */
+        QUEUE_FULL
+    }
+
+    /**
+     * Result of submitting a request
+     *
+     * @param status The submission outcome
+     * @param position Position in the queue (1-based) when queued, otherwise 0
+     */
+    public record Submission(SubmissionStatus status, int position) {}
+
+    /**
+     * Snapshot of scheduler metrics
+     */
+    public record Stats(int queueDepth, int running, int maxQueueDepth, long completed, long rejected,
+                        long rateLimited, double averageWaitMillis, double maxWaitMillis) {}
+}
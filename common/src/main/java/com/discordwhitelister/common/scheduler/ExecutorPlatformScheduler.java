@@ -0,0 +1,79 @@
+package com.discordwhitelister.common.scheduler;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler for platforms without a scheduler of their own
+ *
+ * There is no main thread, so sync and async tasks both run on the given executor. Delayed
+ * and repeating tasks are timed by one daemon thread and then handed to the executor, so a
+ * slow task doesn't hold up the others.
+ */
+public class ExecutorPlatformScheduler implements PlatformScheduler, AutoCloseable {
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    
+    /**
+     * Create a scheduler
+     * 
+     * @param executor Executor running the tasks
+     */
+    public ExecutorPlatformScheduler(Executor executor) {
+        this.executor = executor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DiscordWhitelister-Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public void runSync(Runnable task) {
+        executor.execute(task);
+    }
+    
+    @Override
+    public void runAsync(Runnable task) {
+        executor.execute(task);
+    }
+    
+    @Override
+    public Task runSyncLater(Runnable task, long delayMillis) {
+        return runAsyncLater(task, delayMillis);
+    }
+    
+    @Override
+    public Task runAsyncLater(Runnable task, long delayMillis) {
+        ScheduledFuture<?> future = timer.schedule(() -> executor.execute(task), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        return () -> future.cancel(false);
+    }
+    
+    @Override
+    public Task runSyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        return runAsyncRepeating(task, delayMillis, periodMillis);
+    }
+    
+    @Override
+    public Task runAsyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        ScheduledFuture<?> future = timer.scheduleAtFixedRate(() -> executor.execute(task),
+            Math.max(0, delayMillis), Math.max(1, periodMillis), TimeUnit.MILLISECONDS);
+        return () -> future.cancel(false);
+    }
+    
+    @Override
+    public boolean hasMainThread() {
+        return false;
+    }
+    
+    /**
+     * Stop timing delayed and repeating tasks; tasks already handed to the executor still run
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
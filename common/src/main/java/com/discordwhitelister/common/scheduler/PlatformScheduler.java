@@ -0,0 +1,118 @@
+package com.discordwhitelister.common.scheduler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on a platform's own threads
+ *
+ * Sync tasks run on the thread that owns the game state: the server's main thread, or the
+ * global region on Folia. Proxies have no such thread, so there sync tasks run like async
+ * ones. Async tasks run on the platform's async pool. Delays and periods are given in
+ * milliseconds; platforms that schedule in ticks round them up to whole ticks.
+ */
+public interface PlatformScheduler {
+    /**
+     * Length of a server tick
+     */
+    long MILLIS_PER_TICK = 50;
+    
+    /**
+     * Run a task on the main thread
+     * 
+     * @param task The task
+     */
+    void runSync(Runnable task);
+    
+    /**
+     * Run a task off the main thread
+     * 
+     * @param task The task
+     */
+    void runAsync(Runnable task);
+    
+    /**
+     * Run a task on the main thread after a delay
+     * 
+     * @param task The task
+     * @param delayMillis Delay before the task runs
+     * @return The scheduled task
+     */
+    Task runSyncLater(Runnable task, long delayMillis);
+    
+    /**
+     * Run a task off the main thread after a delay
+     * 
+     * @param task The task
+     * @param delayMillis Delay before the task runs
+     * @return The scheduled task
+     */
+    Task runAsyncLater(Runnable task, long delayMillis);
+    
+    /**
+     * Run a task on the main thread repeatedly
+     * 
+     * @param task The task
+     * @param delayMillis Delay before the first run
+     * @param periodMillis Time between runs
+     * @return The scheduled task
+     */
+    Task runSyncRepeating(Runnable task, long delayMillis, long periodMillis);
+    
+    /**
+     * Run a task off the main thread repeatedly
+     * Runs may overlap if a run takes longer than the period
+     * 
+     * @param task The task
+     * @param delayMillis Delay before the first run
+     * @param periodMillis Time between runs
+     * @return The scheduled task
+     */
+    Task runAsyncRepeating(Runnable task, long delayMillis, long periodMillis);
+    
+    /**
+     * Check if sync tasks run on a dedicated main thread
+     * 
+     * @return false on proxies, where sync tasks run on the async pool
+     */
+    default boolean hasMainThread() {
+        return true;
+    }
+    
+    /**
+     * Get an executor that runs tasks on the main thread
+     * 
+     * @return The executor
+     */
+    default Executor syncExecutor() {
+        return this::runSync;
+    }
+    
+    /**
+     * Get an executor that runs tasks off the main thread
+     * 
+     * @return The executor
+     */
+    default Executor asyncExecutor() {
+        return this::runAsync;
+    }
+    
+    /**
+     * Convert a delay to server ticks
+     * 
+     * @param millis The delay in milliseconds
+     * @return The delay in ticks, at least one
+     */
+    static long toTicks(long millis) {
+        return Math.max(1, (millis + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK);
+    }
+    
+    /**
+     * A scheduled task
+     */
+    interface Task {
+        /**
+         * Stop the task if it hasn't run yet, or stop repeating it
+         */
+        void cancel();
+    }
+}
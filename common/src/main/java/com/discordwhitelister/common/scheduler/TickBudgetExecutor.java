@@ -0,0 +1,82 @@
+package com.discordwhitelister.common.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that runs queued tasks on the main thread, a few per tick
+ *
+ * Tasks can be queued from any thread. Every tick the queue is drained until either the
+ * batch size is reached or the tick's time budget is spent, so a burst of work is spread
+ * over several ticks instead of stalling one.
+ */
+public class TickBudgetExecutor implements Executor, AutoCloseable {
+    private final PlatformScheduler scheduler;
+    private final int batchSize;
+    private final long budgetNanos;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private PlatformScheduler.Task task;
+    
+    /**
+     * Create an executor; call start() to begin running tasks
+     * 
+     * @param scheduler The scheduler running the drain task
+     * @param batchSize Maximum number of tasks run per tick
+     * @param budgetMillis Maximum time spent running tasks per tick
+     */
+    public TickBudgetExecutor(PlatformScheduler scheduler, int batchSize, long budgetMillis) {
+        this.scheduler = scheduler;
+        this.batchSize = Math.max(1, batchSize);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, budgetMillis));
+    }
+    
+    /**
+     * Start draining the queue every tick
+     */
+    public synchronized void start() {
+        if (task == null) {
+            task = scheduler.runSyncRepeating(this::drain, PlatformScheduler.MILLIS_PER_TICK, PlatformScheduler.MILLIS_PER_TICK);
+        }
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        pending.add(command);
+    }
+    
+    /**
+     * Run queued tasks until the batch is full or the time budget is spent
+     */
+    private void drain() {
+        long deadline = System.nanoTime() + budgetNanos;
+        int ran = 0;
+        Runnable next;
+        while (ran < batchSize && System.nanoTime() - deadline < 0 && (next = pending.poll()) != null) {
+            next.run();
+            ran++;
+        }
+    }
+    
+    /**
+     * Get the number of tasks waiting to run
+     * 
+     * @return The queue length
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    /**
+     * Stop draining the queue; tasks still queued are dropped
+     */
+    @Override
+    public synchronized void close() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        pending.clear();
+    }
+}
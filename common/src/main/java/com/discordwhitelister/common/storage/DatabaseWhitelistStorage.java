@@ -5,7 +5,14 @@ import com.discordwhitelister.common.config.WhitelisterConfig;
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -13,6 +20,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Database implementation of whitelist storage
+ *
+ * All calls share one connection, and batch writes switch it out of auto-commit for their
+ * transaction. Every call that uses the connection is synchronized on the storage, so one
+ * thread can't commit or roll back another thread's unfinished batch, a read never runs
+ * inside another thread's open transaction, and a duplicate check and the insert that
+ * follows it cannot interleave.
  */
 public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseWhitelistStorage.class);
@@ -49,18 +62,51 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
                     ")"
                 );
             }
+            
+            // Tables created by older versions have no secondary indexes yet
+            ensureIndex("idx_whitelist_discord_id", "discord_id");
+            ensureIndex("idx_whitelist_uuid", "uuid");
+            // Serves the ORDER BY of getPlayers, so a page doesn't sort the whole table
+            ensureIndex("idx_whitelist_order", "whitelisted_at, username");
         } catch (ClassNotFoundException | SQLException e) {
             LOGGER.error("Failed to initialize database connection", e);
         }
     }
     
+    /**
+     * Create an index on the whitelist table unless an index with that name already exists
+     * A failure is logged and not fatal, lookups still work without the index
+     * 
+     * @param name The index name
+     * @param columns The indexed columns, comma separated
+     */
+    private void ensureIndex(String name, String columns) {
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, "whitelist", false, true)) {
+                while (indexes.next()) {
+                    if (name.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return;
+                    }
+                }
+            }
+            
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE INDEX " + name + " ON whitelist (" + columns + ")");
+            }
+            LOGGER.info("Created index {} on the whitelist table", name);
+        } catch (SQLException e) {
+            LOGGER.warn("Failed to create index {} on the whitelist table", name, e);
+        }
+    }
+    
     @Override
     public void save() {
         // No-op for database storage as changes are saved immediately
     }
     
     @Override
-    public boolean addPlayer(String username, UUID uuid, String discordId) {
+    public synchronized boolean addPlayer(String username, UUID uuid, String discordId) {
         if (isWhitelisted(username)) {
             return false;
         }
@@ -83,7 +129,7 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
     }
     
     @Override
-    public boolean addBedrockPlayer(String username, String xuid, String discordId) {
+    public synchronized boolean addBedrockPlayer(String username, String xuid, String discordId) {
         if (isWhitelisted(username) || isBedrockWhitelisted(xuid)) {
             return false;
         }
@@ -106,7 +152,81 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
     }
     
     @Override
-    public boolean removePlayer(String username) {
+    public synchronized List<Boolean> addPlayers(List<WhitelistedPlayer> players) {
+        List<Boolean> results = new ArrayList<>(Collections.nCopies(players.size(), false));
+        if (players.isEmpty()) {
+            return results;
+        }
+        
+        try {
+            // Find existing entries for the whole batch with a single query
+            Set<String> takenNames = new HashSet<>();
+            Set<String> takenXuids = new HashSet<>();
+            String placeholders = String.join(", ", Collections.nCopies(players.size(), "?"));
+            String sql = "SELECT username, xuid, is_bedrock FROM whitelist WHERE username IN (" + placeholders + 
+                         ") OR xuid IN (" + placeholders + ")";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < players.size(); i++) {
+                    WhitelistedPlayer player = players.get(i);
+                    pstmt.setString(i + 1, player.getUsername());
+                    pstmt.setString(players.size() + i + 1, player.isBedrock() ? player.getXuid() : null);
+                }
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        takenNames.add(rs.getString("username").toLowerCase(Locale.ROOT));
+                        if (rs.getBoolean("is_bedrock") && rs.getString("xuid") != null) {
+                            takenXuids.add(rs.getString("xuid"));
+                        }
+                    }
+                }
+            }
+            
+            // Insert the remaining players in one transaction
+            List<Integer> batchIndexes = new ArrayList<>();
+            sql = "INSERT INTO whitelist (username, uuid, xuid, discord_id, is_bedrock) VALUES (?, ?, ?, ?, ?)";
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < players.size(); i++) {
+                    WhitelistedPlayer player = players.get(i);
+                    if (!takenNames.add(player.getUsername().toLowerCase(Locale.ROOT))
+                            || (player.isBedrock() && !takenXuids.add(player.getXuid()))) {
+                        continue;
+                    }
+                    
+                    pstmt.setString(1, player.getUsername());
+                    pstmt.setString(2, player.getUuid() != null ? player.getUuid().toString() : null);
+                    pstmt.setString(3, player.isBedrock() ? player.getXuid() : null);
+                    pstmt.setString(4, player.getDiscordId());
+                    pstmt.setBoolean(5, player.isBedrock());
+                    pstmt.addBatch();
+                    batchIndexes.add(i);
+                }
+                
+                if (!batchIndexes.isEmpty()) {
+                    int[] counts = pstmt.executeBatch();
+                    connection.commit();
+                    for (int i = 0; i < counts.length; i++) {
+                        results.set(batchIndexes.get(i), counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO);
+                    }
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to add {} players to whitelist", players.size(), e);
+            Collections.fill(results, false);
+        }
+        
+        return results;
+    }
+    
+    @Override
+    public synchronized boolean removePlayer(String username) {
         try {
             String sql = "DELETE FROM whitelist WHERE username = ?";
             try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -122,7 +242,58 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
     }
     
     @Override
-    public boolean isWhitelisted(String username) {
+    public synchronized List<WhitelistedPlayer> removePlayers(Collection<String> usernames) {
+        List<WhitelistedPlayer> removed = new ArrayList<>();
+        if (usernames.isEmpty()) {
+            return removed;
+        }
+        
+        List<String> names = new ArrayList<>(usernames);
+        String placeholders = String.join(", ", Collections.nCopies(names.size(), "?"));
+        try {
+            // Read the entries first so listeners learn their UUIDs, then delete them in the same transaction
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                String sql = "SELECT username, uuid, xuid, discord_id, whitelisted_at, is_bedrock FROM whitelist WHERE username IN (" + placeholders + ")";
+                try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < names.size(); i++) {
+                        pstmt.setString(i + 1, names.get(i));
+                    }
+                    
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            removed.add(readPlayer(rs));
+                        }
+                    }
+                }
+                
+                if (!removed.isEmpty()) {
+                    sql = "DELETE FROM whitelist WHERE username IN (" + placeholders + ")";
+                    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                        for (int i = 0; i < names.size(); i++) {
+                            pstmt.setString(i + 1, names.get(i));
+                        }
+                        pstmt.executeUpdate();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to remove {} players from whitelist", names.size(), e);
+            removed.clear();
+        }
+        
+        return removed;
+    }
+    
+    @Override
+    public synchronized boolean isWhitelisted(String username) {
         try {
             String sql = "SELECT COUNT(*) FROM whitelist WHERE username = ?";
             try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -142,7 +313,27 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
     }
     
     @Override
-    public boolean isBedrockWhitelisted(String xuid) {
+    public synchronized WhitelistedPlayer getPlayerByUuid(UUID uuid) {
+        try {
+            String sql = "SELECT username, uuid, xuid, discord_id, whitelisted_at, is_bedrock FROM whitelist WHERE uuid = ? AND is_bedrock = FALSE";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, uuid.toString());
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return readPlayer(rs);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to get whitelisted player by UUID {}", uuid, e);
+        }
+        
+        return null;
+    }
+    
+    @Override
+    public synchronized boolean isBedrockWhitelisted(String xuid) {
         try {
             String sql = "SELECT COUNT(*) FROM whitelist WHERE xuid = ? AND is_bedrock = TRUE";
             try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -162,7 +353,7 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
     }
     
     @Override
-    public List<WhitelistedPlayer> getAllPlayers() {
+    public synchronized List<WhitelistedPlayer> getAllPlayers() {
         List<WhitelistedPlayer> players = new ArrayList<>();
         
         try {
@@ -171,16 +362,7 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
                  ResultSet rs = stmt.executeQuery(sql)) {
                 
                 while (rs.next()) {
-                    String username = rs.getString("username");
-                    String uuidStr = rs.getString("uuid");
-                    UUID uuid = uuidStr != null ? UUID.fromString(uuidStr) : null;
-                    String xuid = rs.getString("xuid");
-                    String discordId = rs.getString("discord_id");
-                    Timestamp timestamp = rs.getTimestamp("whitelisted_at");
-                    Instant whitelistedAt = timestamp != null ? timestamp.toInstant() : Instant.now();
-                    boolean isBedrock = rs.getBoolean("is_bedrock");
-                    
-                    players.add(new WhitelistedPlayer(username, uuid, xuid, discordId, whitelistedAt, isBedrock));
+                    players.add(readPlayer(rs));
                 }
             }
         } catch (SQLException e) {
@@ -190,6 +372,144 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
         return players;
     }
     
+    @Override
+    public synchronized List<WhitelistedPlayer> getPlayers(int offset, int limit) {
+        List<WhitelistedPlayer> players = new ArrayList<>();
+        
+        try {
+            // Renames keep whitelisted_at, so pages stay stable while names change
+            String sql = "SELECT username, uuid, xuid, discord_id, whitelisted_at, is_bedrock FROM whitelist " +
+                         "ORDER BY whitelisted_at, username LIMIT ? OFFSET ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setInt(1, limit);
+                pstmt.setInt(2, offset);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        players.add(readPlayer(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to get whitelisted players {} to {}", offset, offset + limit, e);
+        }
+        
+        return players;
+    }
+    
+    @Override
+    public synchronized int countPlayers() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM whitelist")) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to count whitelisted players", e);
+        }
+        
+        return 0;
+    }
+    
+    @Override
+    public synchronized Map<String, WhitelistedPlayer> renamePlayers(Map<String, String> renames) {
+        Map<String, WhitelistedPlayer> applied = new LinkedHashMap<>();
+        if (renames.isEmpty()) {
+            return applied;
+        }
+        
+        try {
+            // Load the entries being renamed and any entries already holding the new names with one query
+            List<String> names = new ArrayList<>(renames.keySet());
+            names.addAll(renames.values());
+            Map<String, WhitelistedPlayer> existing = new LinkedHashMap<>();
+            String placeholders = String.join(", ", Collections.nCopies(names.size(), "?"));
+            String sql = "SELECT username, uuid, xuid, discord_id, whitelisted_at, is_bedrock FROM whitelist WHERE username IN (" + placeholders + ")";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < names.size(); i++) {
+                    pstmt.setString(i + 1, names.get(i));
+                }
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        WhitelistedPlayer player = readPlayer(rs);
+                        existing.put(player.getUsername().toLowerCase(Locale.ROOT), player);
+                    }
+                }
+            }
+            
+            // Update the remaining entries in one transaction
+            sql = "UPDATE whitelist SET username = ? WHERE username = ? AND is_bedrock = FALSE";
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (Map.Entry<String, String> rename : renames.entrySet()) {
+                    WhitelistedPlayer player = existing.get(rename.getKey().toLowerCase(Locale.ROOT));
+                    String newName = rename.getValue();
+                    if (player == null || player.isBedrock()
+                            || (!newName.equalsIgnoreCase(rename.getKey()) && existing.containsKey(newName.toLowerCase(Locale.ROOT)))) {
+                        continue;
+                    }
+                    
+                    pstmt.setString(1, newName);
+                    pstmt.setString(2, rename.getKey());
+                    pstmt.addBatch();
+                    applied.put(rename.getKey(), player.withUsername(newName));
+                }
+                
+                if (!applied.isEmpty()) {
+                    pstmt.executeBatch();
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to rename {} players", renames.size(), e);
+            applied.clear();
+        }
+        
+        return applied;
+    }
+    
+    @Override
+    public synchronized List<WhitelistedPlayer> getPlayersByDiscordId(String discordId) {
+        List<WhitelistedPlayer> players = new ArrayList<>();
+        
+        try {
+            String sql = "SELECT username, uuid, xuid, discord_id, whitelisted_at, is_bedrock FROM whitelist WHERE discord_id = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, discordId);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        players.add(readPlayer(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to get players whitelisted by Discord user {}", discordId, e);
+        }
+        
+        return players;
+    }
+    
+    private WhitelistedPlayer readPlayer(ResultSet rs) throws SQLException {
+        String username = rs.getString("username");
+        String uuidStr = rs.getString("uuid");
+        UUID uuid = uuidStr != null ? UUID.fromString(uuidStr) : null;
+        String xuid = rs.getString("xuid");
+        String discordId = rs.getString("discord_id");
+        Timestamp timestamp = rs.getTimestamp("whitelisted_at");
+        Instant whitelistedAt = timestamp != null ? timestamp.toInstant() : Instant.now();
+        boolean isBedrock = rs.getBoolean("is_bedrock");
+        
+        return new WhitelistedPlayer(username, uuid, xuid, discordId, whitelistedAt, isBedrock);
+    }
+    
     @Override
     public List<WhitelistedPlayer> getAllBedrockPlayers() {
         List<WhitelistedPlayer> allPlayers = getAllPlayers();
@@ -202,7 +522,7 @@ public class DatabaseWhitelistStorage implements WhitelistStorage, AutoCloseable
      * Close the database connection
      */
     @Override
-    public void close() {
+    public synchronized void close() {
         if (connection != null) {
             try {
                 connection.close();
@@ -11,8 +11,16 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -20,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * JSON implementation of whitelist storage
+ * Writes are synchronized so a duplicate check and the add that follows it cannot interleave
  */
 public class JsonWhitelistStorage implements WhitelistStorage {
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonWhitelistStorage.class);
@@ -27,6 +36,7 @@ public class JsonWhitelistStorage implements WhitelistStorage {
     private final Gson gson;
     private final File whitelistFile;
     private final List<WhitelistedPlayer> whitelist;
+    private final Map<UUID, WhitelistedPlayer> uuidIndex = new ConcurrentHashMap<>();
     
     public JsonWhitelistStorage(WhitelisterConfig config) {
         this.config = config;
@@ -61,6 +71,8 @@ public class JsonWhitelistStorage implements WhitelistStorage {
                 if (loaded != null) {
                     whitelist.clear();
                     whitelist.addAll(loaded);
+                    uuidIndex.clear();
+                    loaded.forEach(this::index);
                 }
             } catch (IOException e) {
                 LOGGER.error("Failed to load whitelist from file", e);
@@ -69,7 +81,7 @@ public class JsonWhitelistStorage implements WhitelistStorage {
     }
     
     @Override
-    public void save() {
+    public synchronized void save() {
         try (FileWriter writer = new FileWriter(whitelistFile)) {
             gson.toJson(whitelist, writer);
         } catch (IOException e) {
@@ -78,19 +90,20 @@ public class JsonWhitelistStorage implements WhitelistStorage {
     }
     
     @Override
-    public boolean addPlayer(String username, UUID uuid, String discordId) {
+    public synchronized boolean addPlayer(String username, UUID uuid, String discordId) {
         if (isWhitelisted(username)) {
             return false;
         }
         
         WhitelistedPlayer player = new WhitelistedPlayer(username, uuid, discordId);
         whitelist.add(player);
+        index(player);
         save();
         return true;
     }
     
     @Override
-    public boolean addBedrockPlayer(String username, String xuid, String discordId) {
+    public synchronized boolean addBedrockPlayer(String username, String xuid, String discordId) {
         // Check if player is already whitelisted
         if (isWhitelisted(username) || isBedrockWhitelisted(xuid)) {
             return false;
@@ -103,23 +116,126 @@ public class JsonWhitelistStorage implements WhitelistStorage {
     }
     
     @Override
-    public boolean removePlayer(String username) {
-        boolean removed = whitelist.removeIf(player -> 
-            player.getUsername().equalsIgnoreCase(username));
+    public synchronized List<Boolean> addPlayers(List<WhitelistedPlayer> players) {
+        List<Boolean> results = new ArrayList<>(players.size());
+        List<WhitelistedPlayer> accepted = new ArrayList<>();
         
-        if (removed) {
+        for (WhitelistedPlayer player : players) {
+            boolean duplicate = isWhitelisted(player.getUsername())
+                || (player.isBedrock() && isBedrockWhitelisted(player.getXuid()))
+                || accepted.stream().anyMatch(other -> other.getUsername().equalsIgnoreCase(player.getUsername())
+                    || (player.isBedrock() && other.isBedrock() && player.getXuid().equals(other.getXuid())));
+            
+            if (!duplicate) {
+                accepted.add(player);
+            }
+            results.add(!duplicate);
+        }
+        
+        // One list update and one file write for the whole batch
+        if (!accepted.isEmpty()) {
+            whitelist.addAll(accepted);
+            accepted.forEach(this::index);
+            save();
+        }
+        
+        return results;
+    }
+    
+    @Override
+    public synchronized boolean removePlayer(String username) {
+        return !removePlayers(List.of(username)).isEmpty();
+    }
+    
+    @Override
+    public synchronized List<WhitelistedPlayer> removePlayers(Collection<String> usernames) {
+        Set<String> names = new HashSet<>();
+        for (String username : usernames) {
+            names.add(username.toLowerCase(Locale.ROOT));
+        }
+        
+        List<WhitelistedPlayer> removed = new ArrayList<>();
+        for (WhitelistedPlayer player : whitelist) {
+            if (names.contains(player.getUsername().toLowerCase(Locale.ROOT))) {
+                removed.add(player);
+            }
+        }
+        
+        // One list update and one file write for all removals
+        if (!removed.isEmpty()) {
+            whitelist.removeAll(removed);
+            for (WhitelistedPlayer player : removed) {
+                if (player.getUuid() != null) {
+                    uuidIndex.remove(player.getUuid(), player);
+                }
+            }
             save();
         }
         
         return removed;
     }
     
+    @Override
+    public synchronized Map<String, WhitelistedPlayer> renamePlayers(Map<String, String> renames) {
+        Map<String, WhitelistedPlayer> applied = new LinkedHashMap<>();
+        for (int i = 0; i < whitelist.size(); i++) {
+            WhitelistedPlayer player = whitelist.get(i);
+            String newName = renames.get(player.getUsername());
+            if (newName == null || player.isBedrock()
+                    || (!newName.equalsIgnoreCase(player.getUsername()) && isWhitelisted(newName))) {
+                continue;
+            }
+            
+            WhitelistedPlayer renamed = player.withUsername(newName);
+            whitelist.set(i, renamed);
+            index(renamed);
+            applied.put(player.getUsername(), renamed);
+        }
+        
+        // One file write for all renames
+        if (!applied.isEmpty()) {
+            save();
+        }
+        return applied;
+    }
+    
+    @Override
+    public List<WhitelistedPlayer> getPlayers(int offset, int limit) {
+        while (true) {
+            int size = whitelist.size();
+            int from = Math.min(Math.max(offset, 0), size);
+            int to = Math.min(size, from + Math.max(limit, 0));
+            try {
+                // Copies only the page, from the array the sublist was created on
+                return new ArrayList<>(whitelist.subList(from, to));
+            } catch (IndexOutOfBoundsException | ConcurrentModificationException e) {
+                // A write changed the list between reading its size and copying the page
+            }
+        }
+    }
+    
+    @Override
+    public int countPlayers() {
+        return whitelist.size();
+    }
+    
     @Override
     public boolean isWhitelisted(String username) {
         return whitelist.stream()
             .anyMatch(player -> player.getUsername().equalsIgnoreCase(username));
     }
     
+    @Override
+    public WhitelistedPlayer getPlayerByUuid(UUID uuid) {
+        return uuidIndex.get(uuid);
+    }
+    
+    private void index(WhitelistedPlayer player) {
+        if (!player.isBedrock() && player.getUuid() != null) {
+            uuidIndex.put(player.getUuid(), player);
+        }
+    }
+    
     @Override
     public boolean isBedrockWhitelisted(String xuid) {
         return whitelist.stream()
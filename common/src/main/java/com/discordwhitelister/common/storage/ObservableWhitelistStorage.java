@@ -0,0 +1,201 @@
+package com.discordwhitelister.common.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Whitelist storage decorator that notifies listeners about successful changes
+ */
+public class ObservableWhitelistStorage implements WhitelistStorage, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObservableWhitelistStorage.class);
+    private final WhitelistStorage delegate;
+    private final List<WhitelistChangeListener> listeners = new CopyOnWriteArrayList<>();
+    
+    public ObservableWhitelistStorage(WhitelistStorage delegate) {
+        this.delegate = delegate;
+    }
+    
+    /**
+     * Register a listener for whitelist changes
+     * 
+     * @param listener The listener to add
+     */
+    public void addListener(WhitelistChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Unregister a listener for whitelist changes
+     * 
+     * @param listener The listener to remove
+     */
+    public void removeListener(WhitelistChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Get the wrapped storage implementation
+     * 
+     * @return The underlying storage
+     */
+    public WhitelistStorage getDelegate() {
+        return delegate;
+    }
+    
+    @Override
+    public boolean addPlayer(String username, UUID uuid, String discordId) {
+        boolean added = delegate.addPlayer(username, uuid, discordId);
+        if (added) {
+            for (WhitelistChangeListener listener : listeners) {
+                try {
+                    listener.playerAdded(username, uuid, null);
+                } catch (Exception e) {
+                    LOGGER.error("Whitelist listener failed", e);
+                }
+            }
+        }
+        return added;
+    }
+    
+    @Override
+    public boolean addBedrockPlayer(String username, String xuid, String discordId) {
+        boolean added = delegate.addBedrockPlayer(username, xuid, discordId);
+        if (added) {
+            for (WhitelistChangeListener listener : listeners) {
+                try {
+                    listener.playerAdded(username, null, xuid);
+                } catch (Exception e) {
+                    LOGGER.error("Whitelist listener failed", e);
+                }
+            }
+        }
+        return added;
+    }
+    
+    @Override
+    public List<Boolean> addPlayers(List<WhitelistedPlayer> players) {
+        List<Boolean> results = delegate.addPlayers(players);
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i)) {
+                continue;
+            }
+            WhitelistedPlayer player = players.get(i);
+            for (WhitelistChangeListener listener : listeners) {
+                try {
+                    listener.playerAdded(player.getUsername(), player.getUuid(), player.isBedrock() ? player.getXuid() : null);
+                } catch (Exception e) {
+                    LOGGER.error("Whitelist listener failed", e);
+                }
+            }
+        }
+        return results;
+    }
+    
+    @Override
+    public boolean removePlayer(String username) {
+        // Removed through the bulk path so listeners learn the UUID of the removed entry
+        return !removePlayers(List.of(username)).isEmpty();
+    }
+    
+    @Override
+    public List<WhitelistedPlayer> removePlayers(Collection<String> usernames) {
+        List<WhitelistedPlayer> removed = delegate.removePlayers(usernames);
+        if (!removed.isEmpty()) {
+            for (WhitelistChangeListener listener : listeners) {
+                try {
+                    listener.playersRemoved(removed);
+                } catch (Exception e) {
+                    LOGGER.error("Whitelist listener failed", e);
+                }
+            }
+        }
+        return removed;
+    }
+    
+    @Override
+    public Map<String, WhitelistedPlayer> renamePlayers(Map<String, String> renames) {
+        Map<String, WhitelistedPlayer> applied = delegate.renamePlayers(renames);
+        applied.forEach((oldName, player) -> {
+            for (WhitelistChangeListener listener : listeners) {
+                try {
+                    listener.playerRenamed(oldName, player.getUsername(), player.getUuid());
+                } catch (Exception e) {
+                    LOGGER.error("Whitelist listener failed", e);
+                }
+            }
+        });
+        return applied;
+    }
+    
+    @Override
+    public List<WhitelistedPlayer> getPlayers(int offset, int limit) {
+        return delegate.getPlayers(offset, limit);
+    }
+    
+    @Override
+    public int countPlayers() {
+        return delegate.countPlayers();
+    }
+    
+    @Override
+    public boolean isWhitelisted(String username) {
+        return delegate.isWhitelisted(username);
+    }
+    
+    @Override
+    public WhitelistedPlayer getPlayerByUuid(UUID uuid) {
+        return delegate.getPlayerByUuid(uuid);
+    }
+    
+    @Override
+    public boolean isWhitelisted(UUID uuid) {
+        return delegate.isWhitelisted(uuid);
+    }
+    
+    @Override
+    public boolean isBedrockWhitelisted(String xuid) {
+        return delegate.isBedrockWhitelisted(xuid);
+    }
+    
+    @Override
+    public List<WhitelistedPlayer> getAllPlayers() {
+        return delegate.getAllPlayers();
+    }
+    
+    @Override
+    public List<WhitelistedPlayer> getPlayersByDiscordId(String discordId) {
+        return delegate.getPlayersByDiscordId(discordId);
+    }
+    
+    @Override
+    public List<WhitelistedPlayer> getAllBedrockPlayers() {
+        return delegate.getAllBedrockPlayers();
+    }
+    
+    @Override
+    public void initialize() {
+        delegate.initialize();
+    }
+    
+    @Override
+    public void save() {
+        delegate.save();
+    }
+    
+    @Override
+    public void close() {
+        if (delegate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegate).close();
+            } catch (Exception e) {
+                LOGGER.error("Error closing whitelist storage", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.discordwhitelister.common.storage;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Listener notified when entries are added to, removed from or renamed in whitelist storage
+ */
+public interface WhitelistChangeListener {
+    /**
+     * Called after a player has been added to the whitelist
+     * 
+     * @param username The Minecraft username or gamertag
+     * @param uuid The Minecraft UUID (null for Bedrock or offline mode players)
+     * @param xuid The Xbox User ID (null for Java players)
+     */
+    default void playerAdded(String username, UUID uuid, String xuid) {
+    }
+    
+    /**
+     * Called after a player has been removed from the whitelist
+     * 
+     * @param username The Minecraft username or gamertag
+     */
+    default void playerRemoved(String username) {
+    }
+    
+    /**
+     * Called after a player has been removed from the whitelist, with the UUID of the removed entry
+     * 
+     * @param username The Minecraft username or gamertag
+     * @param uuid The Minecraft UUID (null for Bedrock or offline mode players)
+     */
+    default void playerRemoved(String username, UUID uuid) {
+        playerRemoved(username);
+    }
+    
+    /**
+     * Called after one or more players have been removed in one storage operation
+     * Listeners that can apply removals in bulk should override this
+     * 
+     * @param players The removed entries
+     */
+    default void playersRemoved(List<WhitelistedPlayer> players) {
+        for (WhitelistedPlayer player : players) {
+            playerRemoved(player.getUsername(), player.getUuid());
+        }
+    }
+    
+    /**
+     * Called after a Java player's entry has been moved to a new name
+     * 
+     * @param oldName The previous username
+     * @param newName The new username
+     * @param uuid The Minecraft UUID
+     */
+    default void playerRenamed(String oldName, String newName, UUID uuid) {
+    }
+}
@@ -1,6 +1,10 @@
 package com.discordwhitelister.common.storage;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -27,6 +31,23 @@ public interface WhitelistStorage {
      */
     boolean addBedrockPlayer(String username, String xuid, String discordId);
     
+    /**
+     * Add several Java and Bedrock Edition players to the whitelist in one operation
+     * Implementations should override this to write the whole batch at once; the default adds each player separately
+     * 
+     * @param players The players to add
+     * @return For each player, in order, true if it was added or false if it was already whitelisted or failed
+     */
+    default List<Boolean> addPlayers(List<WhitelistedPlayer> players) {
+        List<Boolean> results = new ArrayList<>(players.size());
+        for (WhitelistedPlayer player : players) {
+            results.add(player.isBedrock()
+                ? addBedrockPlayer(player.getUsername(), player.getXuid(), player.getDiscordId())
+                : addPlayer(player.getUsername(), player.getUuid(), player.getDiscordId()));
+        }
+        return results;
+    }
+    
     /**
      * Remove a player from the whitelist
      * 
@@ -35,6 +56,26 @@ public interface WhitelistStorage {
      */
     boolean removePlayer(String username);
     
+    /**
+     * Remove several players from the whitelist in one operation
+     * Implementations should override this with a single write; the default removes each player separately
+     * 
+     * @param usernames The Minecraft usernames or gamertags
+     * @return The removed entries
+     */
+    default List<WhitelistedPlayer> removePlayers(Collection<String> usernames) {
+        List<WhitelistedPlayer> removed = new ArrayList<>();
+        for (WhitelistedPlayer player : getAllPlayers()) {
+            for (String username : usernames) {
+                if (player.getUsername().equalsIgnoreCase(username) && removePlayer(player.getUsername())) {
+                    removed.add(player);
+                    break;
+                }
+            }
+        }
+        return removed;
+    }
+    
     /**
      * Check if a player is whitelisted
      * 
@@ -43,6 +84,32 @@ public interface WhitelistStorage {
      */
     boolean isWhitelisted(String username);
     
+    /**
+     * Get a Java Edition player by UUID
+     * Implementations should override this with an indexed lookup; the default scans all players
+     * 
+     * @param uuid The Minecraft UUID
+     * @return The player, or null if no player with this UUID is whitelisted
+     */
+    default WhitelistedPlayer getPlayerByUuid(UUID uuid) {
+        for (WhitelistedPlayer player : getAllPlayers()) {
+            if (uuid.equals(player.getUuid())) {
+                return player;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Check if a Java Edition player is whitelisted by UUID
+     * 
+     * @param uuid The Minecraft UUID
+     * @return true if whitelisted, false otherwise
+     */
+    default boolean isWhitelisted(UUID uuid) {
+        return getPlayerByUuid(uuid) != null;
+    }
+    
     /**
      * Check if a Bedrock player is whitelisted by XUID
      * 
@@ -58,6 +125,71 @@ public interface WhitelistStorage {
      */
     List<WhitelistedPlayer> getAllPlayers();
     
+    /**
+     * Get one page of whitelisted players, in a stable order
+     * Implementations backed by a query language should override this; the default copies all players
+     * 
+     * @param offset Number of players to skip
+     * @param limit Maximum number of players to return
+     * @return The players on the page, empty past the end
+     */
+    default List<WhitelistedPlayer> getPlayers(int offset, int limit) {
+        List<WhitelistedPlayer> players = getAllPlayers();
+        if (offset >= players.size() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(players.subList(Math.max(0, offset), Math.min(players.size(), offset + limit)));
+    }
+    
+    /**
+     * Get the number of whitelisted players
+     * 
+     * @return The number of Java and Bedrock players
+     */
+    default int countPlayers() {
+        return getAllPlayers().size();
+    }
+    
+    /**
+     * Move Java players to new usernames in one operation, keeping everything else about their entries
+     * A rename is skipped if the old name isn't whitelisted or the new name already is
+     * 
+     * @param renames New usernames keyed by the stored username
+     * @return The renamed entries keyed by their old username
+     */
+    default Map<String, WhitelistedPlayer> renamePlayers(Map<String, String> renames) {
+        Map<String, WhitelistedPlayer> applied = new LinkedHashMap<>();
+        for (WhitelistedPlayer player : getAllPlayers()) {
+            String newName = renames.get(player.getUsername());
+            if (newName == null || player.isBedrock()
+                    || (!newName.equalsIgnoreCase(player.getUsername()) && isWhitelisted(newName))) {
+                continue;
+            }
+            WhitelistedPlayer renamed = player.withUsername(newName);
+            if (removePlayer(player.getUsername()) && addPlayers(List.of(renamed)).get(0)) {
+                applied.put(player.getUsername(), renamed);
+            }
+        }
+        return applied;
+    }
+    
+    /**
+     * Get the players whitelisted by a Discord user
+     * Implementations backed by a query language should override this; the default scans all players
+     * 
+     * @param discordId The Discord user ID
+     * @return The Java and Bedrock players linked to the Discord user
+     */
+    default List<WhitelistedPlayer> getPlayersByDiscordId(String discordId) {
+        List<WhitelistedPlayer> players = new ArrayList<>();
+        for (WhitelistedPlayer player : getAllPlayers()) {
+            if (discordId.equals(player.getDiscordId())) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+    
     /**
      * Get all whitelisted Bedrock players
      * 
@@ -59,6 +59,16 @@ public class WhitelistedPlayer {
         this.isBedrock = isBedrock;
     }
     
+    /**
+     * Create a copy of this entry under a new name, for example after a Mojang rename
+     * 
+     * @param username The new username
+     * @return The renamed copy
+     */
+    public WhitelistedPlayer withUsername(String username) {
+        return new WhitelistedPlayer(username, uuid, xuid, discordId, whitelistedAt, isBedrock);
+    }
+    
     public String getUsername() {
         return username;
     }
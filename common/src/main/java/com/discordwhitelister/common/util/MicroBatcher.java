@@ -0,0 +1,170 @@
+package com.discordwhitelister.common.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects items over a short window and hands them to a handler as one batch
+ *
+ * A batch is flushed when it reaches the maximum size or when the window since its first
+ * item has passed, whichever comes first, so no item waits longer than the window before
+ * its batch starts. Batches are always handled on the batcher's own thread.
+ *
+ * @param <T> The item type
+ */
+public class MicroBatcher<T> implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private final String name;
+    private volatile int maxBatchSize;
+    private volatile long windowMillis;
+    private final Function<List<T>, CompletableFuture<?>> handler;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private List<Entry<T>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Create a new batcher
+     *
+     * @param name Name used for the batcher thread and log messages
+     * @param maxBatchSize Maximum number of items in a batch
+     * @param windowMillis Maximum time in milliseconds to wait for a batch to fill
+     * @param handler Handles a batch and returns a future completing when the batch is done
+     */
+    public MicroBatcher(String name, int maxBatchSize, long windowMillis, Function<List<T>, CompletableFuture<?>> handler) {
+        this.name = name;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowMillis = Math.max(0, windowMillis);
+        this.handler = handler;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DiscordWhitelister-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Change the batch limits; the batch currently filling keeps its scheduled flush
+     *
+     * @param maxBatchSize Maximum number of items in a batch
+     * @param windowMillis Maximum time in milliseconds to wait for a batch to fill
+     */
+    public void setLimits(int maxBatchSize, long windowMillis) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowMillis = Math.max(0, windowMillis);
+    }
+
+    /**
+     * Add an item to the current batch
+     *
+     * @param item The item
+     * @return CompletableFuture that completes when the batch containing the item has been handled
+     */
+    public CompletableFuture<Void> add(T item) {
+        if (executor.isShutdown()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Batcher " + name + " is closed"));
+        }
+
+        Entry<T> entry = new Entry<>(item);
+        List<Entry<T>> ready = null;
+
+        synchronized (lock) {
+            pending.add(entry);
+            if (pending.size() >= maxBatchSize) {
+                ready = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (ready != null) {
+            List<Entry<T>> batch = ready;
+            executor.execute(() -> dispatch(batch));
+        }
+        return entry.done;
+    }
+
+    /**
+     * Handle the current batch now, without waiting for the window to pass
+     */
+    public void flush() {
+        List<Entry<T>> ready;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ready = drain();
+        }
+        dispatch(ready);
+    }
+
+    private List<Entry<T>> drain() {
+        List<Entry<T>> ready = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return ready;
+    }
+
+    private void dispatch(List<Entry<T>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        for (Entry<T> entry : batch) {
+            items.add(entry.item);
+        }
+
+        CompletableFuture<?> future;
+        try {
+            future = handler.apply(items);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        if (future == null) {
+            future = CompletableFuture.completedFuture(null);
+        }
+
+        LOGGER.debug("Dispatched {} batch of {} item(s)", name, items.size());
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                LOGGER.error("Failed to handle {} batch of {} item(s)", name, items.size(), ex);
+            }
+            for (Entry<T> entry : batch) {
+                if (ex != null) {
+                    entry.done.completeExceptionally(ex);
+                } else {
+                    entry.done.complete(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Handle any pending items and stop the batcher thread
+     */
+    @Override
+    public void close() {
+        executor.execute(this::flush);
+        executor.shutdown();
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Entry(T item) {
+            this.item = item;
+        }
+    }
+}
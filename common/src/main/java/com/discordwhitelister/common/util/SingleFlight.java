@@ -0,0 +1,74 @@
+package com.discordwhitelister.common.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one in-flight operation
+ *
+ * The first caller for a key starts the work; callers arriving while it runs share its
+ * future instead of starting their own. Once the work completes the key is released, so
+ * the next call starts fresh.
+ *
+ * @param <K> The key type
+ * @param <V> The result type
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run work for a key unless work for the same key is already in flight
+     *
+     * @param key The key identifying the work
+     * @param work Supplier that starts the work and returns a future completing when it is done
+     * @return The call, sharing the in-flight future if there was one
+     */
+    public Call<V> execute(K key, Supplier<CompletableFuture<V>> work) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return new Call<>(existing, true);
+        }
+
+        CompletableFuture<V> result;
+        try {
+            result = work.get();
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        if (result == null) {
+            result = CompletableFuture.completedFuture(null);
+        }
+
+        result.whenComplete((value, ex) -> {
+            // Release the key first so callers woken by the future start a new flight
+            inFlight.remove(key, flight);
+            if (ex != null) {
+                flight.completeExceptionally(ex);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return new Call<>(flight, false);
+    }
+
+    /**
+     * Get the number of keys with work in flight
+     *
+     * @return The number of in-flight keys
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * A call made through the single-flight group
+     *
+     * @param future Future of the in-flight work
+     * @param shared true if the call joined work started by another caller
+     * @param <V> The result type
+     */
+    public record Call<V>(CompletableFuture<V> future, boolean shared) {}
+}
@@ -0,0 +1,75 @@
+package com.discordwhitelister.common.util;
+
+/**
+ * Simple thread-safe token bucket rate limiter
+ * Tokens refill continuously at a fixed rate up to the bucket capacity
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Create a new token bucket that starts full
+     *
+     * @param capacity Maximum number of tokens (burst size)
+     * @param refillPerSecond Number of tokens added per second
+     */
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Try to take a single token
+     *
+     * @return true if a token was available, false if the bucket is empty
+     */
+    public boolean tryConsume() {
+        return tryConsume(1);
+    }
+
+    /**
+     * Try to take the given number of tokens
+     *
+     * @param amount Number of tokens to take
+     * @return true if enough tokens were available, false otherwise
+     */
+    public synchronized boolean tryConsume(double amount) {
+        refill();
+        if (tokens >= amount) {
+            tokens -= amount;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of nanoseconds until the given number of tokens is available
+     *
+     * @param amount Number of tokens needed
+     * @return Nanoseconds to wait, or 0 if the tokens are available now
+     */
+    public synchronized long nanosUntilAvailable(double amount) {
+        refill();
+        if (tokens >= amount) {
+            return 0;
+        }
+        if (refillPerNano <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.ceil((amount - tokens) / refillPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.discordwhitelister.common.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor for blocking whitelist work such as storage calls, player lookups and Discord replies
+ *
+ * On Java 21 and newer every task gets its own virtual thread, so blocking code can be written
+ * thread-per-request without tying up JDA's event threads or the server's threads. On older
+ * runtimes, or when platform threads are requested, tasks run on a bounded pool of daemon threads.
+ * Virtual threads are created through reflection so the plugin still compiles for Java 17.
+ */
+public class WorkerPool implements Executor, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerPool.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final String name;
+    private final ExecutorService executor;
+    private final boolean virtual;
+
+    private WorkerPool(String name, ExecutorService executor, boolean virtual) {
+        this.name = name;
+        this.executor = executor;
+        this.virtual = virtual;
+    }
+
+    /**
+     * Create a worker pool
+     *
+     * @param name Name used for the worker threads and log messages
+     * @param mode "virtual", "platform" or "auto" (virtual threads when the runtime supports them)
+     * @param maxThreads Maximum number of platform threads, ignored for virtual threads
+     * @return The worker pool
+     */
+    public static WorkerPool create(String name, String mode, int maxThreads) {
+        String normalized = mode != null ? mode.toLowerCase(Locale.ROOT) : "auto";
+        if (!normalized.equals("platform")) {
+            ExecutorService virtualExecutor = createVirtualExecutor(name);
+            if (virtualExecutor != null) {
+                LOGGER.info("Running {} work on virtual threads", name);
+                return new WorkerPool(name, virtualExecutor, true);
+            }
+            if (normalized.equals("virtual")) {
+                LOGGER.warn("Virtual threads need Java 21 or newer, falling back to platform threads");
+            }
+        }
+
+        int threads = Math.max(1, maxThreads);
+        LOGGER.info("Running {} work on up to {} platform thread(s)", name, threads);
+        return new WorkerPool(name, createPlatformExecutor(name, threads), false);
+    }
+
+    /**
+     * Create a thread-per-task executor with named virtual threads
+     *
+     * @return The executor, or null if the runtime has no virtual threads
+     */
+    private static ExecutorService createVirtualExecutor(String name) {
+        try {
+            // Resolve methods on the public Thread.Builder interface, the builder class itself is internal
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class)
+                .invoke(builder, "DiscordWhitelister-" + name + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Failed to create virtual threads, falling back to platform threads", e);
+            return null;
+        }
+    }
+
+    private static ExecutorService createPlatformExecutor(String name, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "DiscordWhitelister-" + name + "-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        // Idle threads exit so a quiet server keeps no workers around
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                LOGGER.error("Unhandled error in {} worker", name, e);
+            }
+        });
+    }
+
+    /**
+     * Run blocking work on a worker thread
+     *
+     * @param work The work to run
+     * @param <T> The result type
+     * @return CompletableFuture that completes with the result of the work
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, executor);
+    }
+
+    /**
+     * Check whether tasks run on virtual threads
+     *
+     * @return true for virtual threads, false for the platform pool
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Stop accepting work and wait briefly for running tasks to finish
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("{} workers did not finish within {} seconds", name, SHUTDOWN_TIMEOUT_SECONDS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.discordwhitelister.common;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Timing helper for the microbenchmarks tagged "benchmark"
+ * Not a replacement for JMH: results are only comparable within one run on one machine
+ */
+public final class Benchmarks {
+    private static final int ROUNDS = 7;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Time a task over several rounds and print the median time per iteration
+     * The same number of rounds is run first to warm up the JIT and any connections
+     *
+     * @param label The benchmark name
+     * @param iterations Iterations of the task per round
+     * @param task The task, which must return a non-null result so it isn't optimized away
+     */
+    public static void report(String label, int iterations, Supplier<?> task) {
+        for (int i = 0; i < ROUNDS; i++) {
+            for (int j = 0; j < iterations; j++) {
+                task.get();
+            }
+        }
+
+        long[] rounds = new long[ROUNDS];
+        Object sink = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < iterations; j++) {
+                sink = task.get();
+            }
+            rounds[i] = (System.nanoTime() - start) / iterations;
+        }
+        Arrays.sort(rounds);
+        System.out.printf(Locale.ROOT, "%-48s %,12d ns/op (median of %d rounds)%n", label, rounds[ROUNDS / 2], ROUNDS);
+        if (sink == null) {
+            throw new IllegalStateException(label + " produced no result");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.discordwhitelister.common.discord;
+
+import com.discordwhitelister.common.discord.RequestMatcher.Match;
+import com.discordwhitelister.common.discord.RequestMatcher.MatchType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.discordwhitelister.common.Benchmarks.report;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures request matching throughput with the precompiled RequestMatcher
+ *
+ * The baseline reproduces the old DiscordBot code, which compiled the Java format into a
+ * regex for every message. Aliases did not exist then, so the baseline compiles every
+ * alias per message the same way. Run with {@code ./gradlew :common:benchmark}.
+ */
+@Tag("benchmark")
+class RequestMatcherBenchmark {
+    private static final int ITERATIONS = 100_000;
+    private static final String JAVA_FORMAT = "Please whitelist my Minecraft username: {username}";
+    private static final List<String> ALIASES = List.of("!whitelist {username}", "add me {username}");
+    private static final String BEDROCK_FORMAT = "bedrock {username} xuid:{xuid}";
+    private static final Pattern LEGACY_BEDROCK = Pattern.compile("bedrock\\s+(.+)\\s+xuid:([0-9]+)");
+
+    private final RequestMatcher matcher = new RequestMatcher(JAVA_FORMAT, ALIASES, BEDROCK_FORMAT);
+
+    @Test
+    void javaFormat() {
+        measure("java match", "Please whitelist my Minecraft username: Notch", MatchType.JAVA);
+        measure("java no match", "Please whitelist my Minecraft account Notch", MatchType.HELP);
+    }
+
+    @Test
+    void bedrockFormat() {
+        measure("bedrock match without xuid", "bedrock Steve", MatchType.BEDROCK);
+        measure("bedrock match with xuid", "bedrock Steve xuid:2535412345678901", MatchType.BEDROCK);
+        measure("bedrock no match", "bedrockSteve", MatchType.NONE);
+    }
+
+    @Test
+    void aliasFormat() {
+        measure("alias match", "add me Notch", MatchType.JAVA);
+        measure("alias no match", "add Notch please", MatchType.NONE);
+        // Chat that no format's leading word accepts is the common case in a busy channel
+        measure("chat message", "anyone up for a round of skywars tonight?", MatchType.NONE);
+    }
+
+    private void measure(String label, String message, MatchType expected) {
+        assertEquals(expected, matcher.match(message).type(), message);
+
+        report(label + ", compiled per message", ITERATIONS, () -> legacyMatch(message));
+        report(label + ", RequestMatcher", ITERATIONS, () -> matcher.match(message));
+    }
+
+    /**
+     * Match a message the way DiscordBot did before formats were precompiled
+     *
+     * @param content The message
+     * @return The match result
+     */
+    private static Match legacyMatch(String content) {
+        Matcher bedrock = LEGACY_BEDROCK.matcher(content);
+        if (bedrock.find()) {
+            return new Match(MatchType.BEDROCK, bedrock.group(1).trim(), bedrock.group(2).trim());
+        }
+
+        for (String format : List.of(JAVA_FORMAT, ALIASES.get(0), ALIASES.get(1))) {
+            Matcher matcher = Pattern.compile(format.replace("{username}", "(.+)")).matcher(content);
+            if (matcher.matches()) {
+                return new Match(MatchType.JAVA, matcher.group(1).trim(), null);
+            }
+        }
+
+        if (content.toLowerCase().contains("help") || content.toLowerCase().contains("whitelist")) {
+            return new Match(MatchType.HELP, null, null);
+        }
+        return new Match(MatchType.NONE, null, null);
+    }
+}
@@ -0,0 +1,66 @@
+package com.discordwhitelister.common.login;
+
+import com.discordwhitelister.common.config.ConfigHolder;
+import com.discordwhitelister.common.config.WhitelisterConfig;
+import com.discordwhitelister.common.storage.WhitelistStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoginGateTest {
+    private WhitelisterConfig config;
+    private WhitelistStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        config = new WhitelisterConfig();
+        config.setLoginThrottleEnabled(true);
+        config.setLoginThrottleBurst(1000);
+        config.setLoginThrottleRefillPerSecond(1);
+        config.setPrefixDenialThreshold(3);
+        // The gate only asks storage whether a name is whitelisted
+        storage = (WhitelistStorage) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {WhitelistStorage.class}, (proxy, method, args) -> {
+                if (method.getName().equals("isWhitelisted") && args[0] instanceof String name) {
+                    return name.equalsIgnoreCase("Notch");
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    @Test
+    void busyAddressRangeDoesNotLockOutWhitelistedPlayers() throws Exception {
+        LoginGate gate = new LoginGate(new ConfigHolder(config), storage);
+        InetAddress address = InetAddress.getByName("203.0.113.7");
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(LoginResult.DENIED, gate.checkJava("Bot" + i, address));
+        }
+        assertEquals(LoginResult.ALLOWED, gate.checkJava("Notch", address));
+        assertEquals(LoginResult.DENIED, gate.checkJava("Bot0", address));
+    }
+
+    @Test
+    void privateAndLocalAddressesAreNotThrottled() throws Exception {
+        config.setLoginThrottleBurst(1);
+        config.setLoginThrottleRefillPerSecond(0.001);
+        LoginGate gate = new LoginGate(new ConfigHolder(config), storage);
+
+        String[] unthrottled = {"127.0.0.1", "10.1.2.3", "172.16.0.9", "192.168.1.20", "169.254.0.1",
+                                "fe80::1", "fd12:3456:789a::1", "::1"};
+        for (String host : unthrottled) {
+            InetAddress address = InetAddress.getByName(host);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(LoginResult.ALLOWED, gate.checkJava("Notch", address), host);
+            }
+        }
+
+        InetAddress publicAddress = InetAddress.getByName("203.0.113.7");
+        assertEquals(LoginResult.ALLOWED, gate.checkJava("Notch", publicAddress));
+        assertEquals(LoginResult.THROTTLED, gate.checkJava("Notch", publicAddress));
+    }
+}
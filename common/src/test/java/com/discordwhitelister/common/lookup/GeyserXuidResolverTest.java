@@ -0,0 +1,202 @@
+package com.discordwhitelister.common.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeyserXuidResolverTest {
+
+    private static GeyserXuidResolver resolver(StubGeyserServer server, int maxConcurrent,
+                                               long positiveTtlSeconds, long negativeTtlSeconds) {
+        return new GeyserXuidResolver(null, server.getUrl(), maxConcurrent, 100, positiveTtlSeconds, negativeTtlSeconds);
+    }
+
+    @Test
+    void resolveXuidReadsNumericXuid() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.addPlayer("Some Gamer", 2535405290601234L);
+            GeyserXuidResolver resolver = resolver(server, 4, 60, 60);
+
+            assertEquals("2535405290601234", resolver.resolveXuid("Some Gamer").get());
+            assertEquals(List.of("Some Gamer"), server.getRequestedGamertags());
+        }
+    }
+
+    @Test
+    void resolveXuidTreatsZeroOrMissingXuidAsNotFound() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.respond("Zero", 200, "{\"xuid\":0}");
+            server.respond("Missing", 200, "{}");
+            server.respond("Null", 200, "{\"xuid\":null}");
+            server.respond("Empty", 200, "{\"xuid\":\"\"}");
+            server.respond("NotAnObject", 200, "[]");
+            GeyserXuidResolver resolver = resolver(server, 4, 60, 60);
+
+            for (String gamertag : List.of("Zero", "Missing", "Null", "Empty", "NotAnObject")) {
+                assertNull(resolver.resolveXuid(gamertag).get(), gamertag);
+            }
+        }
+    }
+
+    @Test
+    void resolveXuidTreatsBadRequestAndNotFoundAsNotFound() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.respond("Bad Request", 400, "{\"message\":\"Invalid gamertag\"}");
+            GeyserXuidResolver resolver = resolver(server, 4, 60, 60);
+
+            assertNull(resolver.resolveXuid("Bad Request").get());
+            assertNull(resolver.resolveXuid("Nobody").get());
+        }
+    }
+
+    @Test
+    void resolveXuidDefersOnOtherStatuses() throws Exception {
+        for (int status : new int[] {429, 500, 503}) {
+            try (StubGeyserServer server = new StubGeyserServer()) {
+                server.addPlayer("Gamer", 1234L);
+                server.failWith(status);
+                GeyserXuidResolver resolver = resolver(server, 4, 60, 60);
+
+                ExecutionException e = assertThrows(ExecutionException.class, () -> resolver.resolveXuid("Gamer").get());
+                assertInstanceOf(LookupDeferredException.class, e.getCause(), "HTTP " + status);
+
+                // A failed lookup is not cached
+                server.failWith(0);
+                assertEquals("1234", resolver.resolveXuid("Gamer").get());
+                assertEquals(2, server.getRequestCount());
+            }
+        }
+    }
+
+    @Test
+    void resolveXuidCachesFoundGamertagsForThePositiveTtl() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.addPlayer("Gamer", 1234L);
+            GeyserXuidResolver resolver = resolver(server, 4, 60, 0);
+
+            assertEquals("1234", resolver.resolveXuid("Gamer").get());
+            assertEquals("1234", resolver.resolveXuid("gamer").get());
+            assertEquals(1, server.getRequestCount());
+
+            // Not-found results are not cached with a negative TTL of 0
+            assertNull(resolver.resolveXuid("Nobody").get());
+            assertNull(resolver.resolveXuid("Nobody").get());
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void resolveXuidCachesUnknownGamertagsForTheNegativeTtl() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.addPlayer("Gamer", 1234L);
+            GeyserXuidResolver resolver = resolver(server, 4, 0, 60);
+
+            assertNull(resolver.resolveXuid("Nobody").get());
+            assertNull(resolver.resolveXuid("NOBODY").get());
+            assertEquals(1, server.getRequestCount());
+
+            assertEquals("1234", resolver.resolveXuid("Gamer").get());
+            assertEquals("1234", resolver.resolveXuid("Gamer").get());
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void resolveXuidAsksAgainOnceTheTtlExpires() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.addPlayer("Gamer", 1234L);
+            GeyserXuidResolver resolver = resolver(server, 4, 1, 1);
+
+            assertEquals("1234", resolver.resolveXuid("Gamer").get());
+            assertNull(resolver.resolveXuid("Nobody").get());
+            Thread.sleep(1100);
+
+            server.addPlayer("Gamer", 5678L);
+            server.addPlayer("Nobody", 9L);
+            assertEquals("5678", resolver.resolveXuid("Gamer").get());
+            assertEquals("9", resolver.resolveXuid("Nobody").get());
+            assertEquals(4, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void resolveXuidSharesConcurrentLookupsOfTheSameGamertag() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.addPlayer("Gamer", 1234L);
+            server.pause();
+            GeyserXuidResolver resolver = resolver(server, 4, 60, 60);
+
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(resolver.resolveXuid(i % 2 == 0 ? "Gamer" : "GAMER"));
+            }
+            server.resume();
+
+            for (CompletableFuture<String> result : results) {
+                assertEquals("1234", result.get());
+            }
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void resolveXuidQueuesLookupsBeyondTheConcurrencyLimit() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.pause();
+            GeyserXuidResolver resolver = resolver(server, 2, 60, 60);
+
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                server.addPlayer("Gamer" + i, 1000L + i);
+                results.add(resolver.resolveXuid("Gamer" + i));
+            }
+
+            // Only two requests are sent while the first ones are held, the rest wait their turn
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (server.getActiveRequests() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(200);
+            assertEquals(2, server.getRequestCount());
+            assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
+
+            server.resume();
+            for (int i = 0; i < 6; i++) {
+                assertEquals(String.valueOf(1000L + i), results.get(i).get());
+            }
+            assertEquals(6, server.getRequestCount());
+            assertEquals(2, server.getMaxActiveRequests());
+        }
+    }
+
+    @Test
+    void resolveXuidReleasesSlotsOfFailedLookups() throws Exception {
+        try (StubGeyserServer server = new StubGeyserServer()) {
+            server.failWith(500);
+            GeyserXuidResolver resolver = resolver(server, 1, 60, 60);
+
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(resolver.resolveXuid("Gamer" + i));
+            }
+            for (CompletableFuture<String> result : results) {
+                assertThrows(ExecutionException.class, result::get);
+            }
+            assertEquals(4, server.getRequestCount());
+            assertEquals(1, server.getMaxActiveRequests());
+
+            server.failWith(0);
+            server.addPlayer("Gamer0", 1234L);
+            assertEquals("1234", resolver.resolveXuid("Gamer0").get());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.discordwhitelister.common.lookup;
+
+import com.discordwhitelister.common.lookup.MinecraftPlayerLookup.PlayerInfo;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.discordwhitelister.common.Benchmarks.report;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the removed Mojang clients with MojangPlayerLookup
+ *
+ * The single-name client sent one GET per name, parsed it into a JSON tree and formatted the
+ * UUID with a regex. The old bulk client sent batches of 10 but read each response as a string
+ * into a JSON tree, with the same regex. Both are reproduced here as baselines. Run with
+ * {@code ./gradlew :common:benchmark}; the numbers depend on the machine, so only compare
+ * results from the same run.
+ */
+@Tag("benchmark")
+class MojangLookupBenchmark {
+    private static final int NAMES = 500;
+    private static final int PARSE_ITERATIONS = 20_000;
+    private static final Gson GSON = new Gson();
+
+    @Test
+    void parseBulkResponse() throws Exception {
+        JsonArray profiles = new JsonArray();
+        for (int i = 0; i < 10; i++) {
+            JsonObject profile = new JsonObject();
+            profile.addProperty("id", UUID.randomUUID().toString().replace("-", ""));
+            profile.addProperty("name", "Player" + i);
+            profiles.add(profile);
+        }
+        byte[] body = profiles.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Both paths must agree before their timings mean anything
+        Map<String, PlayerInfo> expected = MojangPlayerLookup.readProfiles(new ByteArrayInputStream(body));
+        assertEquals(expected, legacyParseProfiles(new String(body, StandardCharsets.UTF_8)));
+
+        report("parse 10 profiles, JSON tree + regex UUID", PARSE_ITERATIONS,
+               () -> legacyParseProfiles(new String(body, StandardCharsets.UTF_8)));
+        report("parse 10 profiles, streaming + hex UUID", PARSE_ITERATIONS, () -> {
+            try {
+                return MojangPlayerLookup.readProfiles(new ByteArrayInputStream(body));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void resolveNamesAgainstStubServer() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < NAMES; i++) {
+            names.add("Player" + i);
+        }
+
+        // Each client gets its own server, the stub drops connections once too many are idle
+        try (StubMojangServer server = startServer(names)) {
+            HttpClient client = HttpClient.newHttpClient();
+            report("single-name client, one GET per name", 1,
+                   () -> resolveAll(names, name -> legacySingleLookup(client, server.getUrl(), name)));
+        }
+
+        try (StubMojangServer server = startServer(names)) {
+            HttpClient client = HttpClient.newHttpClient();
+            report("old bulk client, string body + JSON tree", 1,
+                   () -> resolveAll(partition(names), batch -> legacyBulkLookup(client, server.getUrl(), batch)));
+        }
+
+        try (StubMojangServer server = startServer(names);
+             MojangRequestScheduler scheduler = new MojangRequestScheduler(null, Integer.MAX_VALUE, 0);
+             MojangPlayerLookup lookup = new MojangPlayerLookup(scheduler, server.getUrl())) {
+            report("MojangPlayerLookup, pooled bulk + streaming", 1,
+                   () -> resolveAll(names, lookup::lookupPlayer));
+        }
+    }
+
+    private static StubMojangServer startServer(List<String> names) throws IOException {
+        StubMojangServer server = new StubMojangServer();
+        for (String name : names) {
+            server.addPlayer(name, UUID.randomUUID());
+        }
+        return server;
+    }
+
+    private static <T, R> List<R> resolveAll(List<T> inputs, Function<T, CompletableFuture<R>> lookup) {
+        List<CompletableFuture<R>> futures = new ArrayList<>();
+        for (T input : inputs) {
+            futures.add(lookup.apply(input));
+        }
+        List<R> results = new ArrayList<>();
+        for (CompletableFuture<R> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private static List<List<String>> partition(List<String> names) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < names.size(); i += 10) {
+            batches.add(names.subList(i, Math.min(names.size(), i + 10)));
+        }
+        return batches;
+    }
+
+    private static CompletableFuture<PlayerInfo> legacySingleLookup(HttpClient client, String apiUrl, String name) {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(apiUrl + "/users/profiles/minecraft/" + name))
+            .GET()
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.body() == null || response.body().isEmpty()) {
+                return null;
+            }
+            JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
+            return new PlayerInfo(json.get("name").getAsString(), legacyParseUuid(json.get("id").getAsString()), null);
+        });
+    }
+
+    private static CompletableFuture<Map<String, PlayerInfo>> legacyBulkLookup(HttpClient client, String apiUrl, List<String> batch) {
+        JsonArray names = new JsonArray();
+        batch.forEach(names::add);
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(apiUrl + "/profiles/minecraft"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(names)))
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> legacyParseProfiles(response.body()));
+    }
+
+    private static Map<String, PlayerInfo> legacyParseProfiles(String body) {
+        Map<String, PlayerInfo> found = new HashMap<>();
+        JsonArray profiles = GSON.fromJson(body, JsonArray.class);
+        for (JsonElement element : profiles) {
+            JsonObject profile = element.getAsJsonObject();
+            String name = profile.get("name").getAsString();
+            found.put(name.toLowerCase(Locale.ROOT), new PlayerInfo(name, legacyParseUuid(profile.get("id").getAsString()), null));
+        }
+        return found;
+    }
+
+    private static UUID legacyParseUuid(String id) {
+        return UUID.fromString(id.replaceFirst(
+            "(\\p{XDigit}{8})(\\p{XDigit}{4})(\\p{XDigit}{4})(\\p{XDigit}{4})(\\p{XDigit}+)",
+            "$1-$2-$3-$4-$5"
+        ));
+    }
+}
@@ -0,0 +1,201 @@
+package com.discordwhitelister.common.lookup;
+
+import com.discordwhitelister.common.lookup.MinecraftPlayerLookup.PlayerInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MojangPlayerLookupTest {
+
+    @Test
+    void parseUuidMatchesHyphenatedForm() {
+        String[] ids = {
+            "069a79f444e94726a5befca90e38aaf5",
+            "00000000000000000000000000000000",
+            "ffffffffffffffffffffffffffffffff",
+            "0000000100000002000000030000000f",
+            "853C80EF3C3749FDAA49938B674ADAE6"
+        };
+        for (String id : ids) {
+            UUID expected = UUID.fromString(id.substring(0, 8) + "-" + id.substring(8, 12) + "-"
+                + id.substring(12, 16) + "-" + id.substring(16, 20) + "-" + id.substring(20));
+            assertEquals(expected, MojangPlayerLookup.parseUuid(id), id);
+        }
+    }
+
+    @Test
+    void parseUuidRoundTripsRandomIds() {
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = UUID.randomUUID();
+            assertEquals(uuid, MojangPlayerLookup.parseUuid(uuid.toString().replace("-", "")));
+        }
+    }
+
+    @Test
+    void parseUuidRejectsWrongLength() {
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.parseUuid(""));
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.parseUuid("069a79f444e94726a5befca90e38aaf"));
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.parseUuid("069a79f4-44e9-4726-a5be-fca90e38aaf5"));
+    }
+
+    @Test
+    void parseUuidRejectsNonHexDigits() {
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.parseUuid("069a79f444e94726a5befca90e38aag5"));
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.parseUuid("-69a79f444e94726a5befca90e38aaf5"));
+        // Fullwidth and Arabic-Indic digits are digits to Character.digit, but not hex in a profile ID
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.parseUuid("\uFF1069a79f444e94726a5befca90e38aaf5"));
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.parseUuid("069a79f444e94726\u0661\u0662befca90e38aaf5"));
+    }
+
+    @Test
+    void readProfilesKeysPlayersByLowerCaseName() throws IOException {
+        Map<String, PlayerInfo> found = MojangPlayerLookup.readProfiles(body(
+            "[{\"id\":\"069a79f444e94726a5befca90e38aaf5\",\"name\":\"Notch\"},"
+                + "{\"id\":\"853c80ef3c3749fdaa49938b674adae6\",\"name\":\"jeb_\"}]"));
+
+        assertEquals(2, found.size());
+        PlayerInfo notch = found.get("notch");
+        assertEquals("Notch", notch.username());
+        assertEquals(UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5"), notch.uuid());
+        assertNull(notch.xuid());
+        assertEquals(UUID.fromString("853c80ef-3c37-49fd-aa49-938b674adae6"), found.get("jeb_").uuid());
+    }
+
+    @Test
+    void readProfilesSkipsUnknownFields() throws IOException {
+        Map<String, PlayerInfo> found = MojangPlayerLookup.readProfiles(body(
+            "[{\"legacy\":true,\"id\":\"069a79f444e94726a5befca90e38aaf5\",\"demo\":false,"
+                + "\"properties\":[{\"name\":\"textures\",\"value\":\"x\"}],\"name\":\"Notch\"}]"));
+
+        assertEquals(1, found.size());
+        assertEquals("Notch", found.get("notch").username());
+    }
+
+    @Test
+    void readProfilesSkipsIncompleteProfiles() throws IOException {
+        Map<String, PlayerInfo> found = MojangPlayerLookup.readProfiles(body(
+            "[{\"name\":\"NoId\"},{\"id\":\"069a79f444e94726a5befca90e38aaf5\"},"
+                + "{\"id\":\"853c80ef3c3749fdaa49938b674adae6\",\"name\":\"jeb_\"}]"));
+
+        assertEquals(1, found.size());
+        assertTrue(found.containsKey("jeb_"));
+    }
+
+    @Test
+    void readProfilesReturnsNothingForEmptyOrNonArrayBodies() throws IOException {
+        assertTrue(MojangPlayerLookup.readProfiles(body("[]")).isEmpty());
+        assertTrue(MojangPlayerLookup.readProfiles(body("{\"error\":\"BadRequestException\"}")).isEmpty());
+    }
+
+    @Test
+    void readProfilesRejectsMalformedIds() {
+        assertThrows(IllegalArgumentException.class, () -> MojangPlayerLookup.readProfiles(body(
+            "[{\"id\":\"not-a-profile-id\",\"name\":\"Notch\"}]")));
+    }
+
+    @Test
+    void lookupPlayerResolvesThroughBulkEndpoint() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        try (StubMojangServer server = new StubMojangServer();
+             MojangRequestScheduler scheduler = new MojangRequestScheduler(null, 6000, 0);
+             MojangPlayerLookup lookup = new MojangPlayerLookup(scheduler, server.getUrl())) {
+            server.addPlayer("Notch", uuid);
+
+            PlayerInfo found = lookup.lookupPlayer("notch").get();
+            assertEquals("Notch", found.username());
+            assertEquals(uuid, found.uuid());
+            assertNull(lookup.lookupPlayer("Nobody").get());
+        }
+    }
+
+    @Test
+    void isValidNameAcceptsOnlyPlayerNames() {
+        assertTrue(MojangPlayerLookup.isValidName("Notch"));
+        assertTrue(MojangPlayerLookup.isValidName("a"));
+        assertTrue(MojangPlayerLookup.isValidName("jeb_"));
+        assertTrue(MojangPlayerLookup.isValidName("Player_123456789"));
+
+        assertFalse(MojangPlayerLookup.isValidName(null));
+        assertFalse(MojangPlayerLookup.isValidName(""));
+        assertFalse(MojangPlayerLookup.isValidName("Player_1234567890"));
+        assertFalse(MojangPlayerLookup.isValidName("Not Notch"));
+        assertFalse(MojangPlayerLookup.isValidName("Notch\""));
+        assertFalse(MojangPlayerLookup.isValidName("N\u00f6tch"));
+        assertFalse(MojangPlayerLookup.isValidName("Notch\u0661"));
+    }
+
+    @Test
+    void lookupPlayerNeverSendsInvalidNames() throws Exception {
+        try (StubMojangServer server = new StubMojangServer();
+             MojangRequestScheduler scheduler = new MojangRequestScheduler(null, 6000, 0);
+             MojangPlayerLookup lookup = new MojangPlayerLookup(scheduler, server.getUrl())) {
+            server.addPlayer("Notch", UUID.randomUUID());
+
+            List<String> invalid = List.of("", "Not Notch", "Notch\"]", "Player_12345678901", "N\u00f6tch");
+            for (String name : invalid) {
+                assertNull(lookup.lookupPlayer(name).get(), name);
+            }
+            assertEquals("Notch", lookup.lookupPlayer("Notch").get().username());
+            assertEquals(List.of("Notch"), server.getRequestedNames());
+        }
+    }
+
+    @Test
+    void lookupPlayerBatchesConcurrentLookups() throws Exception {
+        try (StubMojangServer server = new StubMojangServer();
+             MojangRequestScheduler scheduler = new MojangRequestScheduler(null, 6000, 0);
+             MojangPlayerLookup lookup = new MojangPlayerLookup(scheduler, server.getUrl())) {
+            List<CompletableFuture<PlayerInfo>> results = new ArrayList<>();
+            CompletableFuture<PlayerInfo> repeated = null;
+            for (int i = 0; i < 25; i++) {
+                server.addPlayer("Player" + i, UUID.randomUUID());
+                results.add(lookup.lookupPlayer("Player" + i));
+                if (i == 4) {
+                    // A name repeated within a batch is only sent once
+                    repeated = lookup.lookupPlayer("player0");
+                }
+            }
+
+            for (int i = 0; i < 25; i++) {
+                assertEquals("Player" + i, results.get(i).get().username());
+            }
+            assertEquals("Player0", repeated.get().username());
+            assertEquals(25, server.getRequestedNames().size());
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void lookupPlayerFailsTheBatchOnServerErrors() throws Exception {
+        try (StubMojangServer server = new StubMojangServer();
+             MojangRequestScheduler scheduler = new MojangRequestScheduler(null, 6000, 0);
+             MojangPlayerLookup lookup = new MojangPlayerLookup(scheduler, server.getUrl())) {
+            server.addPlayer("Notch", UUID.randomUUID());
+            server.failWith(500);
+
+            CompletableFuture<PlayerInfo> notch = lookup.lookupPlayer("Notch");
+            CompletableFuture<PlayerInfo> jeb = lookup.lookupPlayer("jeb_");
+            assertThrows(ExecutionException.class, notch::get);
+            assertThrows(ExecutionException.class, jeb::get);
+        }
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
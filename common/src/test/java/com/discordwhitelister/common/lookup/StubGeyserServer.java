@@ -0,0 +1,186 @@
+package com.discordwhitelister.common.lookup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Geyser global API
+ * Serves the gamertag to XUID endpoint; gamertags that were not added get a 404
+ */
+class StubGeyserServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Response> responses = new ConcurrentHashMap<>();
+    private final List<String> requestedGamertags = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private volatile int failureStatus;
+    private volatile CountDownLatch paused = new CountDownLatch(0);
+
+    StubGeyserServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        server.createContext("/v2/xbox/xuid/", this::handleXuid);
+        executor = Executors.newFixedThreadPool(8, runnable -> {
+            Thread thread = new Thread(runnable, "StubGeyserServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Make a gamertag known to the stub
+     *
+     * @param gamertag The gamertag
+     * @param xuid The XUID, sent as a JSON number like the real API does
+     */
+    void addPlayer(String gamertag, long xuid) {
+        respond(gamertag, 200, "{\"xuid\":" + xuid + "}");
+    }
+
+    /**
+     * Answer requests for a gamertag with a fixed response
+     *
+     * @param gamertag The gamertag
+     * @param status The HTTP status
+     * @param body The response body
+     */
+    void respond(String gamertag, int status, String body) {
+        responses.put(gamertag.toLowerCase(Locale.ROOT), new Response(status, body));
+    }
+
+    /**
+     * Answer every following request with an error status and no body
+     *
+     * @param status The HTTP status, or 0 to answer normally again
+     */
+    void failWith(int status) {
+        failureStatus = status;
+    }
+
+    /**
+     * Hold every following request until {@link #resume()} is called
+     */
+    void pause() {
+        paused = new CountDownLatch(1);
+    }
+
+    /**
+     * Answer held requests and stop holding new ones
+     */
+    void resume() {
+        paused.countDown();
+    }
+
+    /**
+     * Get the base URL to pass to a resolver as its API URL
+     *
+     * @return The base URL
+     */
+    String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Get every gamertag the stub was asked about, in request order
+     *
+     * @return The requested gamertags
+     */
+    List<String> getRequestedGamertags() {
+        return requestedGamertags;
+    }
+
+    /**
+     * Get the number of requests the stub received
+     *
+     * @return The request count
+     */
+    int getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of requests currently being handled, including held ones
+     *
+     * @return The number of active requests
+     */
+    int getActiveRequests() {
+        return active.get();
+    }
+
+    /**
+     * Get the highest number of requests that were handled at the same time
+     *
+     * @return The peak number of active requests
+     */
+    int getMaxActiveRequests() {
+        return maxActive.get();
+    }
+
+    private void handleXuid(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        String path = exchange.getRequestURI().getPath();
+        String gamertag = path.substring(path.lastIndexOf('/') + 1);
+        requestedGamertags.add(gamertag);
+
+        try {
+            if (!paused.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("Request was held for too long");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            // Counted as done before answering, so the client's next request can't overlap it
+            active.decrementAndGet();
+        }
+
+        if (failureStatus != 0) {
+            send(exchange, failureStatus, "");
+            return;
+        }
+        Response response = responses.get(gamertag.toLowerCase(Locale.ROOT));
+        if (response == null) {
+            send(exchange, 404, "{\"message\":\"Unable to find user in our cache\"}");
+        } else {
+            send(exchange, response.status(), response.body());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        paused.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private record Response(int status, String body) {}
+}
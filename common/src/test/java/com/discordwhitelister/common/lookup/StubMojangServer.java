@@ -0,0 +1,150 @@
+package com.discordwhitelister.common.lookup;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Mojang profile API
+ * Serves the bulk endpoint and the single-name endpoint for the players added to it
+ */
+class StubMojangServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, JsonObject> profiles = new ConcurrentHashMap<>();
+    private final List<String> requestedNames = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failureStatus;
+
+    StubMojangServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/profiles/minecraft", this::handleBulk);
+        server.createContext("/users/profiles/minecraft/", this::handleSingle);
+        executor = Executors.newFixedThreadPool(8, runnable -> {
+            Thread thread = new Thread(runnable, "StubMojangServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Make a player known to the stub
+     *
+     * @param name The player name
+     * @param uuid The player UUID
+     */
+    void addPlayer(String name, UUID uuid) {
+        JsonObject profile = new JsonObject();
+        profile.addProperty("id", uuid.toString().replace("-", ""));
+        profile.addProperty("name", name);
+        profiles.put(name.toLowerCase(Locale.ROOT), profile);
+    }
+
+    /**
+     * Answer every following request with an error status and no body
+     *
+     * @param status The HTTP status, or 0 to answer normally again
+     */
+    void failWith(int status) {
+        failureStatus = status;
+    }
+
+    /**
+     * Get the base URL to pass to a lookup as its API URL
+     *
+     * @return The base URL
+     */
+    String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Get every name the stub was asked about, in request order
+     *
+     * @return The requested names
+     */
+    List<String> getRequestedNames() {
+        return requestedNames;
+    }
+
+    /**
+     * Get the number of requests the stub answered
+     *
+     * @return The request count
+     */
+    int getRequestCount() {
+        return requests.get();
+    }
+
+    private void handleBulk(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        JsonArray names;
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            names = JsonParser.parseReader(reader).getAsJsonArray();
+        }
+        if (failureStatus != 0) {
+            respond(exchange, failureStatus, "");
+            return;
+        }
+
+        JsonArray found = new JsonArray();
+        for (JsonElement name : names) {
+            requestedNames.add(name.getAsString());
+            JsonObject profile = profiles.get(name.getAsString().toLowerCase(Locale.ROOT));
+            if (profile != null) {
+                found.add(profile);
+            }
+        }
+        respond(exchange, 200, found.toString());
+    }
+
+    private void handleSingle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        requestedNames.add(name);
+
+        JsonObject profile = profiles.get(name.toLowerCase(Locale.ROOT));
+        if (profile == null) {
+            respond(exchange, 204, "");
+        } else {
+            respond(exchange, 200, profile.toString());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -1,22 +1,33 @@
 package com.discordwhitelister.spigot;
 
 import com.discordwhitelister.common.DiscordWhitelisterService;
+import com.discordwhitelister.common.config.GuildSettings;
 import com.discordwhitelister.common.config.WhitelisterConfig;
 import com.discordwhitelister.common.discord.DiscordBot;
+import com.discordwhitelister.common.login.LoginGate;
+import com.discordwhitelister.common.lookup.CachingPlayerLookup;
+import com.discordwhitelister.common.lookup.ChainedPlayerLookup;
+import com.discordwhitelister.common.lookup.LocalPlayerLookup;
+import com.discordwhitelister.common.lookup.MinecraftPlayerLookup;
 import com.discordwhitelister.common.storage.WhitelistStorage;
 import com.discordwhitelister.common.storage.WhitelistedPlayer;
 import com.discordwhitelister.spigot.commands.DiscordWhitelistCommand;
 import com.discordwhitelister.spigot.gui.WhitelistManagerGUI;
 import com.discordwhitelister.spigot.gui.WhitelistManagerGUIListener;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
+import com.discordwhitelister.spigot.listeners.PlayerJoinListener;
+import com.discordwhitelister.spigot.scheduler.ServerScheduler;
+import com.discordwhitelister.spigot.sync.WhitelistSync;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -26,34 +37,35 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
     private static final Logger LOGGER = LoggerFactory.getLogger(DiscordWhitelisterPlugin.class);
     
     private DiscordWhitelisterService service;
+    private ServerScheduler scheduler;
     private WhitelistManagerGUI whitelistManagerGUI;
+    private LocalPlayerLookup localLookup;
+    private WhitelistSync whitelistSync;
     
     @Override
     public void onEnable() {
         // Save default config if it doesn't exist
         saveDefaultConfig();
         
-        // Create WhitelisterConfig from Bukkit config
-        WhitelisterConfig config = new WhitelisterConfig();
-        config.setBotToken(getConfig().getString("discord.token"));
-        config.setGuildId(getConfig().getString("discord.guild_id"));
-        config.setChannelId(getConfig().getString("discord.channel_id"));
-        config.setMessageFormat(getConfig().getString("discord.message_format", "whitelist {username}"));
-        config.setSuccessMessage(getConfig().getString("discord.success_message", "You have been whitelisted!"));
-        config.setRequireRole(getConfig().getBoolean("discord.require_role", false));
-        config.setRequiredRoleId(getConfig().getString("discord.required_role_id"));
-        config.setStorageType(getConfig().getString("storage.type", "json"));
-        config.setStoragePath(getConfig().getString("storage.path", "plugins/DiscordWhitelister/whitelist.json"));
-        
-        // For database storage
-        if (config.getStorageType().equalsIgnoreCase("database")) {
-            config.setDatabaseUrl(getConfig().getString("storage.database.url"));
-            config.setDatabaseUser(getConfig().getString("storage.database.user"));
-            config.setDatabasePassword(getConfig().getString("storage.database.password"));
+        // Folia has no main thread, so work is routed to the region that owns it
+        scheduler = ServerScheduler.create(this);
+        if (scheduler.isFolia()) {
+            LOGGER.info("Folia detected, using region schedulers");
         }
         
+        // Create WhitelisterConfig from Bukkit config
+        WhitelisterConfig config = createConfig();
+        
         // Initialize service
         service = new DiscordWhitelisterService(config);
+        service.setPlatformScheduler(scheduler);
+        
+        // Players this server has seen are resolved without asking Mojang, but only if their UUIDs came from Mojang
+        if (!config.isOfflineLookupMode() && hasMojangUuids()) {
+            localLookup = new LocalPlayerLookup(null, config.getLookupCacheSize());
+            localLookup.loadUserCache(Path.of("usercache.json"));
+            service.addLocalLookup("server", localLookup);
+        }
         service.initialize();
         
         // Register command
@@ -64,6 +76,9 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
             command.setTabCompleter(commandExecutor);
         }
         
+        // Enforce the whitelist on login
+        getServer().getPluginManager().registerEvents(new PlayerJoinListener(this), this);
+        
         // Initialize GUI
         initializeGUI();
         
@@ -73,10 +88,135 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
         LOGGER.info("DiscordWhitelister plugin enabled");
     }
     
+    /**
+     * Check if player UUIDs on this server are the ones Mojang assigns
+     * 
+     * @return true in online mode or behind a BungeeCord proxy that forwards UUIDs
+     */
+    private boolean hasMojangUuids() {
+        return getServer().getOnlineMode() || getServer().spigot().getConfig().getBoolean("settings.bungeecord");
+    }
+    
+    /**
+     * Create a WhitelisterConfig from the Bukkit config
+     * 
+     * @return The new config
+     */
+    private WhitelisterConfig createConfig() {
+        WhitelisterConfig config = new WhitelisterConfig();
+        config.setBotToken(getConfig().getString("discord.token"));
+        config.setGuildId(getConfig().getString("discord.guild_id"));
+        config.setChannelId(getConfig().getString("discord.channel_id"));
+        config.setMessageFormat(getConfig().getString("discord.message_format", "whitelist {username}"));
+        config.setMessageAliases(getConfig().getStringList("discord.message_aliases"));
+        config.setBedrockMessageFormat(getConfig().getString("discord.bedrock_message_format", "bedrock {username} xuid:{xuid}"));
+        config.setSuccessMessage(getConfig().getString("discord.success_message", "You have been whitelisted!"));
+        config.setRequestMode(getConfig().getString("discord.request_mode", "both"));
+        config.setLeanMode(getConfig().getBoolean("discord.lean_mode", false));
+        config.setLeanMemberCacheSize(getConfig().getInt("discord.lean_member_cache_size", 1000));
+        config.setRequireRole(getConfig().getBoolean("discord.require_role", false));
+        config.setRequiredRoleId(getConfig().getString("discord.required_role_id"));
+        config.setRevokeOnRoleLoss(getConfig().getBoolean("discord.revoke_on_role_loss", false));
+        config.setShardCount(getConfig().getInt("discord.shard_count", -1));
+        loadGuildSettings(config);
+        config.setStorageType(getConfig().getString("storage.type", "json"));
+        config.setStoragePath(getConfig().getString("storage.path", "plugins/DiscordWhitelister/whitelist.json"));
+        loadRequestSettings(config);
+        loadLoginSettings(config);
+        config.setWorkerMode(getConfig().getString("workers.mode", "auto"));
+        config.setWorkerMaxThreads(getConfig().getInt("workers.max-threads", 16));
+        config.setLookupMode(getConfig().getString("lookup.mode", "online"));
+        config.setLookupCacheSize(getConfig().getInt("lookup.cache-size", 10000));
+        config.setLookupCacheTtlSeconds(getConfig().getLong("lookup.cache-ttl-seconds", 21600));
+        config.setLookupNegativeTtlSeconds(getConfig().getLong("lookup.negative-ttl-seconds", 300));
+        config.setLookupCacheFile(getConfig().getString("lookup.cache-file", "plugins/DiscordWhitelister/lookup-cache.json"));
+        config.setLookupApiUrl(getConfig().getString("lookup.api-url", "https://api.mojang.com"));
+        config.setLookupRequestsPerMinute(getConfig().getInt("lookup.requests-per-minute", 60));
+        config.setLookupMaxRetries(getConfig().getInt("lookup.max-retries", 4));
+        config.setLookupRefreshEnabled(getConfig().getBoolean("lookup.refresh-enabled", true));
+        config.setLookupRefreshIntervalSeconds(getConfig().getLong("lookup.refresh-interval-seconds", 60));
+        config.setLookupRefreshDailyBudget(getConfig().getInt("lookup.refresh-daily-budget", 1000));
+        config.setLookupRefreshCheckpointFile(getConfig().getString("lookup.refresh-checkpoint-file", "plugins/DiscordWhitelister/name-refresh.json"));
+        config.setBedrockLookupEnabled(getConfig().getBoolean("lookup.bedrock-enabled", true));
+        config.setBedrockLookupApiUrl(getConfig().getString("lookup.bedrock-api-url", "https://api.geysermc.org"));
+        config.setBedrockLookupMaxConcurrent(getConfig().getInt("lookup.bedrock-max-concurrent", 4));
+        config.setBedrockLookupCacheSize(getConfig().getInt("lookup.bedrock-cache-size", 1000));
+        config.setBedrockLookupCacheTtlSeconds(getConfig().getLong("lookup.bedrock-cache-ttl-seconds", 86400));
+        
+        // For database storage
+        if (config.getStorageType().equalsIgnoreCase("database")) {
+            config.setDatabaseUrl(getConfig().getString("storage.database.url"));
+            config.setDatabaseUser(getConfig().getString("storage.database.user"));
+            config.setDatabasePassword(getConfig().getString("storage.database.password"));
+        }
+        
+        return config;
+    }
+    
+    /**
+     * Load per-guild request settings from the discord.guilds section of the Bukkit config
+     * 
+     * @param config The config to update
+     */
+    private void loadGuildSettings(WhitelisterConfig config) {
+        ConfigurationSection section = getConfig().getConfigurationSection("discord.guilds");
+        if (section == null) {
+            return;
+        }
+        
+        Map<String, GuildSettings> guilds = new LinkedHashMap<>();
+        for (String guildId : section.getKeys(false)) {
+            ConfigurationSection guild = section.getConfigurationSection(guildId);
+            if (guild == null) {
+                LOGGER.warn("Ignoring invalid settings for guild {}", guildId);
+                continue;
+            }
+            guilds.put(guildId, new GuildSettings(
+                guildId,
+                guild.getString("channel_id"),
+                guild.getString("required_role_id"),
+                guild.getString("message_format"),
+                guild.getStringList("message_aliases"),
+                guild.getString("bedrock_message_format"),
+                guild.getString("success_message")
+            ));
+        }
+        config.setGuilds(guilds);
+    }
+    
+    /**
+     * Load Discord request queue and batching settings from the Bukkit config
+     * 
+     * @param config The config to update
+     */
+    private void loadRequestSettings(WhitelisterConfig config) {
+        config.setRequestMaxConcurrent(getConfig().getInt("requests.max-concurrent", 10));
+        config.setRequestQueueSize(getConfig().getInt("requests.queue-size", 500));
+        config.setRequestUserBurst(getConfig().getInt("requests.per-user-burst", 3));
+        config.setRequestUserPeriodSeconds(getConfig().getInt("requests.per-user-period-seconds", 60));
+        config.setRequestBatchSize(getConfig().getInt("requests.batch-size", 10));
+        config.setRequestBatchWindowMillis(getConfig().getLong("requests.batch-window-millis", 75));
+    }
+    
+    /**
+     * Load login protection settings from the Bukkit config
+     * 
+     * @param config The config to update
+     */
+    private void loadLoginSettings(WhitelisterConfig config) {
+        config.setLoginThrottleEnabled(getConfig().getBoolean("login.throttle-enabled", true));
+        config.setLoginThrottleBurst(getConfig().getInt("login.throttle-burst", 10));
+        config.setLoginThrottleRefillPerSecond(getConfig().getDouble("login.throttle-per-second", 1.0));
+        config.setDenialCacheSeconds(getConfig().getInt("login.denial-cache-seconds", 30));
+        config.setDenialCacheMaxEntries(getConfig().getInt("login.denial-cache-size", 10000));
+        config.setPrefixDenialThreshold(getConfig().getInt("login.prefix-denial-threshold", 50));
+        config.setDenialLogIntervalSeconds(getConfig().getInt("login.log-interval-seconds", 10));
+    }
+    
     private void initializeGUI() {
         // Create GUI components
-        whitelistManagerGUI = new WhitelistManagerGUI(getWhitelistStorage(), getDiscordBot());
-        WhitelistManagerGUIListener guiListener = new WhitelistManagerGUIListener(getWhitelistStorage(), whitelistManagerGUI);
+        whitelistManagerGUI = new WhitelistManagerGUI(getWhitelistStorage(), getDiscordBot(), scheduler);
+        WhitelistManagerGUIListener guiListener = new WhitelistManagerGUIListener(getWhitelistStorage(), whitelistManagerGUI, scheduler);
         
         // Register GUI listener
         getServer().getPluginManager().registerEvents(guiListener, this);
@@ -84,6 +224,9 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
     
     @Override
     public void onDisable() {
+        if (whitelistSync != null) {
+            whitelistSync.stop();
+        }
         if (service != null) {
             service.shutdown();
         }
@@ -92,30 +235,14 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
     
     /**
      * Sync the Minecraft whitelist with our storage
+     * Only the difference is applied, a few entries per tick, and later storage changes are applied as they happen
      */
     public void syncWhitelist() {
-        // Get all whitelisted players from our storage
-        List<WhitelistedPlayer> players = getWhitelistStorage().getAllPlayers();
-        
-        // Sync Java Edition players
-        for (WhitelistedPlayer player : players) {
-            if (!player.isBedrock()) {
-                // Only sync Java Edition players with UUIDs
-                if (player.getUuid() != null) {
-                    OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(player.getUuid());
-                    if (!offlinePlayer.isWhitelisted()) {
-                        offlinePlayer.setWhitelisted(true);
-                        LOGGER.info("Added Java player {} to Minecraft whitelist", player.getUsername());
-                    }
-                }
-            } else {
-                // For Bedrock players, we need to check if the server supports them
-                // This depends on the server implementation (e.g., Geyser)
-                // For now, we'll just log that we found a Bedrock player
-                LOGGER.info("Found Bedrock player {} (XUID: {}) in whitelist", 
-                           player.getUsername(), player.getXuid());
-            }
-        }
+        whitelistSync = new WhitelistSync(scheduler, getWhitelistStorage(), service.getWorkers(),
+            getConfig().getInt("plugin.sync-batch-size", 50),
+            getConfig().getLong("plugin.sync-tick-budget-millis", 2));
+        service.addWhitelistListener(whitelistSync);
+        whitelistSync.start();
     }
     
     /**
@@ -127,15 +254,8 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
      * @return true if the player was added, false otherwise
      */
     public boolean addToWhitelist(String username, UUID uuid, String discordId) {
-        boolean added = getWhitelistStorage().addPlayer(username, uuid, discordId);
-        
-        if (added && uuid != null) {
-            // Also add to Minecraft whitelist
-            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
-            offlinePlayer.setWhitelisted(true);
-        }
-        
-        return added;
+        // The whitelist sync adds the player to the Minecraft whitelist on the next tick
+        return getWhitelistStorage().addPlayer(username, uuid, discordId);
     }
     
     /**
@@ -157,19 +277,8 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
      * @return true if the player was removed, false otherwise
      */
     public boolean removeFromWhitelist(String username) {
-        boolean removed = getWhitelistStorage().removePlayer(username);
-        
-        if (removed) {
-            // Try to find the player in the Minecraft whitelist
-            for (OfflinePlayer offlinePlayer : Bukkit.getWhitelistedPlayers()) {
-                if (offlinePlayer.getName() != null && offlinePlayer.getName().equalsIgnoreCase(username)) {
-                    offlinePlayer.setWhitelisted(false);
-                    break;
-                }
-            }
-        }
-        
-        return removed;
+        // The whitelist sync removes the stored UUID from the Minecraft whitelist on the next tick
+        return getWhitelistStorage().removePlayer(username);
     }
     
     /**
@@ -181,6 +290,15 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
         whitelistManagerGUI.open(player);
     }
     
+    /**
+     * Get the scheduler for the running server
+     * 
+     * @return The Bukkit or Folia scheduler
+     */
+    public ServerScheduler getServerScheduler() {
+        return scheduler;
+    }
+    
     /**
      * Get the whitelist storage
      * 
@@ -199,6 +317,53 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
         return service.getDiscordBot();
     }
     
+    /**
+     * Get the shared login check
+     * 
+     * @return The login gate
+     */
+    public LoginGate getLoginGate() {
+        return service.getLoginGate();
+    }
+    
+    /**
+     * Get the player lookup cache
+     * 
+     * @return The lookup cache, or null if caching is disabled
+     */
+    public CachingPlayerLookup getLookupCache() {
+        return service.getLookupCache();
+    }
+    
+    /**
+     * Get the player lookup, which asks known players before the cache and Mojang
+     * 
+     * @return The player lookup
+     */
+    public MinecraftPlayerLookup getPlayerLookup() {
+        return service.getPlayerLookup();
+    }
+    
+    /**
+     * Get the chain of lookup tiers, for statistics
+     * 
+     * @return The lookup chain
+     */
+    public ChainedPlayerLookup getLookupChain() {
+        return service.getLookupChain();
+    }
+    
+    /**
+     * Remember a player who joined so later lookups of their name stay local
+     * 
+     * @param player The player
+     */
+    public void rememberPlayer(Player player) {
+        if (localLookup != null) {
+            localLookup.remember(player.getName(), player.getUniqueId());
+        }
+    }
+    
     /**
      * Get all whitelisted players
      * 
@@ -243,20 +408,7 @@ public class DiscordWhitelisterPlugin extends JavaPlugin {
     public void reloadPluginConfig() {
         reloadConfig();
         
-        // Update service config
-        WhitelisterConfig config = service.getConfig();
-        config.setBotToken(getConfig().getString("discord.token"));
-        config.setGuildId(getConfig().getString("discord.guild_id"));
-        config.setChannelId(getConfig().getString("discord.channel_id"));
-        config.setMessageFormat(getConfig().getString("discord.message_format", "whitelist {username}"));
-        config.setSuccessMessage(getConfig().getString("discord.success_message", "You have been whitelisted!"));
-        config.setRequireRole(getConfig().getBoolean("discord.require_role", false));
-        config.setRequiredRoleId(getConfig().getString("discord.required_role_id"));
-        
-        // Restart Discord bot if it was running
-        if (service.getDiscordBot().getJda() != null) {
-            service.getDiscordBot().stop();
-            service.getDiscordBot().start();
-        }
+        // Swap in the new settings; the Discord bot only reconnects if its connection settings changed
+        service.reload(createConfig());
     }
 }
@@ -1,10 +1,13 @@
 package com.discordwhitelister.spigot.commands;
 
+import com.discordwhitelister.common.discord.DiscordBot;
+import com.discordwhitelister.common.lookup.CachingPlayerLookup;
+import com.discordwhitelister.common.lookup.ChainedPlayerLookup;
+import com.discordwhitelister.common.request.RequestScheduler;
 import com.discordwhitelister.common.storage.WhitelistedPlayer;
 import com.discordwhitelister.spigot.DiscordWhitelisterPlugin;
-import org.bukkit.Bukkit;
+import com.discordwhitelister.spigot.scheduler.ServerScheduler;
 import org.bukkit.ChatColor;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -14,17 +17,21 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * Command handler for the /discordwhitelist command
+ *
+ * Storage is blocking, so subcommands that use it run off the server thread and send their
+ * replies on the sender's thread.
  */
 public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
     private final DiscordWhitelisterPlugin plugin;
+    private final ServerScheduler scheduler;
     
     public DiscordWhitelistCommand(DiscordWhitelisterPlugin plugin) {
         this.plugin = plugin;
+        this.scheduler = plugin.getServerScheduler();
     }
     
     @Override
@@ -72,18 +79,21 @@ public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
         String username = args[1];
         String discordId = args.length > 2 ? args[2] : "manual-" + System.currentTimeMillis();
         
-        // Try to get UUID from Mojang API
-        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(username);
-        UUID uuid = offlinePlayer.getUniqueId();
-        
-        // Add to whitelist
-        boolean added = plugin.addToWhitelist(username, uuid, discordId);
-        
-        if (added) {
-            sender.sendMessage(ChatColor.GREEN + "Player " + username + " has been added to the whitelist.");
-        } else {
-            sender.sendMessage(ChatColor.RED + "Failed to add player " + username + " to the whitelist. They may already be whitelisted.");
-        }
+        // Resolve the UUID off the main thread, from known players first and Mojang last
+        plugin.getPlayerLookup().lookupPlayer(username).whenComplete((player, ex) -> {
+            boolean added = ex == null && player != null && plugin.addToWhitelist(player.username(), player.uuid(), discordId);
+            scheduler.runForSender(sender, () -> {
+                if (ex != null) {
+                    sender.sendMessage(ChatColor.RED + "Couldn't look up " + username + " right now. Please try again later.");
+                } else if (player == null) {
+                    sender.sendMessage(ChatColor.RED + "No Minecraft account named " + username + " was found.");
+                } else if (added) {
+                    sender.sendMessage(ChatColor.GREEN + "Player " + player.username() + " has been added to the whitelist.");
+                } else {
+                    sender.sendMessage(ChatColor.RED + "Failed to add player " + player.username() + " to the whitelist. They may already be whitelisted.");
+                }
+            });
+        });
         
         return true;
     }
@@ -104,13 +114,16 @@ public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
         String discordId = args.length > 3 ? args[3] : "manual-" + System.currentTimeMillis();
         
         // Add Bedrock player to whitelist
-        boolean added = plugin.addBedrockToWhitelist(gamertag, xuid, discordId);
-        
-        if (added) {
-            sender.sendMessage(ChatColor.GREEN + "Bedrock player " + gamertag + " (XUID: " + xuid + ") has been added to the whitelist.");
-        } else {
-            sender.sendMessage(ChatColor.RED + "Failed to add Bedrock player " + gamertag + " to the whitelist. They may already be whitelisted.");
-        }
+        scheduler.runAsync(() -> {
+            boolean added = plugin.addBedrockToWhitelist(gamertag, xuid, discordId);
+            scheduler.runForSender(sender, () -> {
+                if (added) {
+                    sender.sendMessage(ChatColor.GREEN + "Bedrock player " + gamertag + " (XUID: " + xuid + ") has been added to the whitelist.");
+                } else {
+                    sender.sendMessage(ChatColor.RED + "Failed to add Bedrock player " + gamertag + " to the whitelist. They may already be whitelisted.");
+                }
+            });
+        });
         
         return true;
     }
@@ -127,13 +140,16 @@ public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
         }
         
         String username = args[1];
-        boolean removed = plugin.removeFromWhitelist(username);
-        
-        if (removed) {
-            sender.sendMessage(ChatColor.GREEN + "Player " + username + " has been removed from the whitelist.");
-        } else {
-            sender.sendMessage(ChatColor.RED + "Failed to remove player " + username + " from the whitelist. They may not be whitelisted.");
-        }
+        scheduler.runAsync(() -> {
+            boolean removed = plugin.removeFromWhitelist(username);
+            scheduler.runForSender(sender, () -> {
+                if (removed) {
+                    sender.sendMessage(ChatColor.GREEN + "Player " + username + " has been removed from the whitelist.");
+                } else {
+                    sender.sendMessage(ChatColor.RED + "Failed to remove player " + username + " from the whitelist. They may not be whitelisted.");
+                }
+            });
+        });
         
         return true;
     }
@@ -144,15 +160,21 @@ public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
             return true;
         }
         
-        List<WhitelistedPlayer> players = plugin.getWhitelistedPlayers();
+        boolean bedrockOnly = args.length > 1 && args[1].equalsIgnoreCase("bedrock");
+        scheduler.runAsync(() -> {
+            List<WhitelistedPlayer> players = bedrockOnly ? plugin.getWhitelistedBedrockPlayers() : plugin.getWhitelistedPlayers();
+            scheduler.runForSender(sender, () -> sendPlayerList(sender, players, bedrockOnly));
+        });
         
-        if (args.length > 1 && args[1].equalsIgnoreCase("bedrock")) {
+        return true;
+    }
+    
+    private void sendPlayerList(CommandSender sender, List<WhitelistedPlayer> players, boolean bedrockOnly) {
+        if (bedrockOnly) {
             // Show only Bedrock players
-            players = plugin.getWhitelistedBedrockPlayers();
-            
             if (players.isEmpty()) {
                 sender.sendMessage(ChatColor.YELLOW + "No Bedrock players are whitelisted.");
-                return true;
+                return;
             }
             
             sender.sendMessage(ChatColor.GREEN + "Whitelisted Bedrock Players (" + players.size() + "):");
@@ -164,7 +186,7 @@ public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
             // Show all players
             if (players.isEmpty()) {
                 sender.sendMessage(ChatColor.YELLOW + "No players are whitelisted.");
-                return true;
+                return;
             }
             
             // Count Java and Bedrock players
@@ -193,8 +215,6 @@ public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
                 }
             }
         }
-        
-        return true;
     }
     
     private boolean handleStatusCommand(CommandSender sender) {
@@ -203,21 +223,45 @@ public class DiscordWhitelistCommand implements CommandExecutor, TabCompleter {
             return true;
         }
         
-        boolean botConnected = plugin.getDiscordBot().getJda() != null && 
-                              plugin.getDiscordBot().getJda().getStatus() == net.dv8tion.jda.api.JDA.Status.CONNECTED;
+        scheduler.runAsync(() -> {
+            List<WhitelistedPlayer> players = plugin.getWhitelistedPlayers();
+            scheduler.runForSender(sender, () -> sendStatus(sender, players));
+        });
+        
+        return true;
+    }
+    
+    private void sendStatus(CommandSender sender, List<WhitelistedPlayer> players) {
+        DiscordBot.Status botStatus = plugin.getDiscordBot().getStatus();
+        ChatColor statusColor = botStatus == DiscordBot.Status.READY ? ChatColor.GREEN
+            : botStatus == DiscordBot.Status.CONNECTING ? ChatColor.GOLD : ChatColor.RED;
         
         sender.sendMessage(ChatColor.GREEN + "Discord Whitelister Status:");
-        sender.sendMessage(ChatColor.YELLOW + "Discord Bot: " + 
-                          (botConnected ? ChatColor.GREEN + "Connected" : ChatColor.RED + "Disconnected"));
+        sender.sendMessage(ChatColor.YELLOW + "Discord Bot: " + statusColor + botStatus.getDisplayName());
         
-        List<WhitelistedPlayer> players = plugin.getWhitelistedPlayers();
         long javaCount = players.stream().filter(p -> !p.isBedrock()).count();
         long bedrockCount = players.stream().filter(WhitelistedPlayer::isBedrock).count();
         
         sender.sendMessage(ChatColor.YELLOW + "Whitelisted Players: " + ChatColor.WHITE + players.size() + 
                           " (" + javaCount + " Java, " + bedrockCount + " Bedrock)");
         
-        return true;
+        RequestScheduler.Stats queue = plugin.getDiscordBot().getRequestScheduler().getStats();
+        sender.sendMessage(ChatColor.YELLOW + "Request Queue: " + ChatColor.WHITE + queue.queueDepth() + " waiting, " + 
+                          queue.running() + " running" + String.format(" (avg wait %.0f ms, max %.0f ms)", 
+                          queue.averageWaitMillis(), queue.maxWaitMillis()));
+        
+        String tiers = plugin.getLookupChain().getStats().stream()
+            .map(ChainedPlayerLookup.TierStats::format)
+            .collect(Collectors.joining(", "));
+        sender.sendMessage(ChatColor.YELLOW + "Lookup Tiers: " + ChatColor.WHITE + tiers);
+        
+        CachingPlayerLookup lookupCache = plugin.getLookupCache();
+        if (lookupCache != null) {
+            CachingPlayerLookup.Stats cache = lookupCache.getStats();
+            sender.sendMessage(ChatColor.YELLOW + "Lookup Cache: " + ChatColor.WHITE + cache.size() + " names" +
+                              String.format(" (%.0f%% hit rate, %d misses, %d evictions)",
+                              cache.hitRate() * 100, cache.misses(), cache.evictions()));
+        }
     }
     
     private boolean handleReloadCommand(CommandSender sender) {
@@ -3,101 +3,167 @@ package com.discordwhitelister.spigot.gui;
 import com.discordwhitelister.common.discord.DiscordBot;
 import com.discordwhitelister.common.storage.WhitelistStorage;
 import com.discordwhitelister.common.storage.WhitelistedPlayer;
-import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.JDA.Status;
+import com.discordwhitelister.spigot.scheduler.ServerScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.SkullMeta;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * GUI for managing the whitelist
+ *
+ * Every viewer gets their own inventory, so on Folia it is only touched from the viewer's
+ * region thread. The whitelist is shown one page at a time: only the visible page is read
+ * from storage, on an async thread, and only its items are built. The pages next to it are
+ * read ahead so turning a page usually needs no storage access.
  */
 public class WhitelistManagerGUI {
+    static final int PAGE_SIZE = 36;
+    static final int FIRST_PLAYER_SLOT = 9;
+    static final int PREVIOUS_SLOT = 45;
+    static final int PAGE_INFO_SLOT = 46;
+    static final int NEXT_SLOT = 47;
+    static final int STATUS_SLOT = 49;
+    static final int REFRESH_SLOT = 50;
+    static final int CLOSE_SLOT = 53;
+    
     private final WhitelistStorage storage;
     private final DiscordBot discordBot;
-    private final Inventory inventory;
+    private final ServerScheduler scheduler;
     
-    public WhitelistManagerGUI(WhitelistStorage storage, DiscordBot discordBot) {
+    public WhitelistManagerGUI(WhitelistStorage storage, DiscordBot discordBot, ServerScheduler scheduler) {
         this.storage = storage;
         this.discordBot = discordBot;
-        this.inventory = Bukkit.createInventory(null, 54, ChatColor.DARK_PURPLE + "Discord Whitelist Manager");
-        
-        initializeItems();
+        this.scheduler = scheduler;
     }
     
-    private void initializeItems() {
+    private void initializeItems(Inventory inventory) {
         // Add header items
         ItemStack logo = createGuiItem(Material.PURPLE_WOOL, ChatColor.DARK_PURPLE + "Discord Whitelister", 
                 ChatColor.GRAY + "Manage your whitelist");
         inventory.setItem(4, logo);
         
-        // Add Java player section header
-        ItemStack javaHeader = createGuiItem(Material.GRASS_BLOCK, ChatColor.GREEN + "Java Edition Players", 
-                ChatColor.GRAY + "Players with standard UUIDs");
-        inventory.setItem(9, javaHeader);
-        
-        // Add Bedrock player section header
-        ItemStack bedrockHeader = createGuiItem(Material.BEDROCK, ChatColor.BLUE + "Bedrock Edition Players", 
-                ChatColor.GRAY + "Players with XUIDs");
-        inventory.setItem(27, bedrockHeader);
-        
-        // Fill with player heads
-        updatePlayerList();
+        // Add close button
+        ItemStack closeItem = createGuiItem(Material.BARRIER, ChatColor.RED + "Close");
+        inventory.setItem(CLOSE_SLOT, closeItem);
     }
     
-    public void updatePlayerList() {
-        // Clear player slots
-        for (int i = 10; i < 27; i++) {
-            inventory.setItem(i, null);
-        }
-        for (int i = 28; i < 45; i++) {
-            inventory.setItem(i, null);
+    /**
+     * Show a page of the whitelist in a viewer's inventory
+     * Pages already read ahead are shown at once; others are read from storage first
+     * 
+     * @param viewer The player viewing the GUI
+     * @param inventory The viewer's GUI inventory
+     * @param page The page, counted from 0; clamped to the pages that exist
+     */
+    public void showPage(Player viewer, Inventory inventory, int page) {
+        View view = (View) inventory.getHolder();
+        int target = Math.max(0, Math.min(page, lastPage(view.total)));
+        List<WhitelistedPlayer> cached = view.pages.get(target);
+        if (cached != null) {
+            render(view, target, cached);
+            prefetch(viewer, view);
+            return;
         }
         
-        // Add Java Edition players
-        List<WhitelistedPlayer> allPlayers = storage.getAllPlayers();
-        int javaSlot = 10;
-        int bedrockSlot = 28;
-        
-        for (WhitelistedPlayer player : allPlayers) {
-            if (player.isBedrock()) {
-                // Bedrock player
-                if (bedrockSlot < 45) {
-                    ItemStack playerItem = createPlayerItem(player);
-                    inventory.setItem(bedrockSlot++, playerItem);
-                }
-            } else {
-                // Java player
-                if (javaSlot < 27) {
-                    ItemStack playerItem = createPlayerItem(player);
-                    inventory.setItem(javaSlot++, playerItem);
+        long generation = view.generation;
+        scheduler.runAsync(() -> {
+            // Counted again so a page removed elsewhere isn't shown empty
+            int total = storage.countPlayers();
+            int loaded = Math.min(target, lastPage(total));
+            List<WhitelistedPlayer> players = storage.getPlayers(loaded * PAGE_SIZE, PAGE_SIZE);
+            scheduler.runForPlayer(viewer, () -> {
+                if (view.generation != generation) {
+                    return;
                 }
+                view.total = total;
+                view.pages.put(loaded, players);
+                render(view, loaded, players);
+                prefetch(viewer, view);
+            });
+        });
+    }
+    
+    /**
+     * Read the current page again, for example after the whitelist changed
+     * 
+     * @param viewer The player viewing the GUI
+     * @param inventory The viewer's GUI inventory
+     */
+    public void refresh(Player viewer, Inventory inventory) {
+        View view = (View) inventory.getHolder();
+        view.generation++;
+        view.pages.clear();
+        showPage(viewer, inventory, view.page);
+    }
+    
+    /**
+     * Read the pages next to the visible one, and forget pages further away
+     */
+    private void prefetch(Player viewer, View view) {
+        view.pages.keySet().removeIf(cachedPage -> Math.abs(cachedPage - view.page) > 1);
+        
+        for (int adjacent : new int[] {view.page + 1, view.page - 1}) {
+            if (adjacent < 0 || adjacent > lastPage(view.total) || view.pages.containsKey(adjacent)) {
+                continue;
             }
+            long generation = view.generation;
+            scheduler.runAsync(() -> {
+                List<WhitelistedPlayer> players = storage.getPlayers(adjacent * PAGE_SIZE, PAGE_SIZE);
+                scheduler.runForPlayer(viewer, () -> {
+                    if (view.generation == generation && Math.abs(adjacent - view.page) <= 1) {
+                        view.pages.put(adjacent, players);
+                    }
+                });
+            });
+        }
+    }
+    
+    /**
+     * Build the items for one page
+     */
+    private void render(View view, int page, List<WhitelistedPlayer> players) {
+        Inventory inventory = view.inventory;
+        view.page = page;
+        view.shown = players;
+        
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            inventory.setItem(FIRST_PLAYER_SLOT + i, i < players.size() ? createPlayerItem(players.get(i)) : null);
         }
         
+        // Add page navigation
+        int lastPage = lastPage(view.total);
+        inventory.setItem(PREVIOUS_SLOT, page > 0 ? createGuiItem(Material.ARROW, ChatColor.YELLOW + "Previous Page") : null);
+        inventory.setItem(NEXT_SLOT, page < lastPage ? createGuiItem(Material.ARROW, ChatColor.YELLOW + "Next Page") : null);
+        inventory.setItem(PAGE_INFO_SLOT, createGuiItem(Material.PAPER, ChatColor.WHITE + "Page " + (page + 1) + " of " + (lastPage + 1),
+                ChatColor.GRAY + "" + view.total + " whitelisted players"));
+        
         // Add status indicator
-        boolean botConnected = discordBot.getJda() != null && discordBot.getJda().getStatus().equals(Status.CONNECTED);
-        Material statusMaterial = botConnected ? Material.LIME_WOOL : Material.RED_WOOL;
-        String statusText = botConnected ? "Discord Bot: Connected" : "Discord Bot: Disconnected";
+        DiscordBot.Status botStatus = discordBot.getStatus();
+        Material statusMaterial = botStatus == DiscordBot.Status.READY ? Material.LIME_WOOL
+            : botStatus == DiscordBot.Status.CONNECTING ? Material.YELLOW_WOOL : Material.RED_WOOL;
+        String statusText = "Discord Bot: " + botStatus.getDisplayName();
         ItemStack statusItem = createGuiItem(statusMaterial, statusText);
-        inventory.setItem(49, statusItem);
+        inventory.setItem(STATUS_SLOT, statusItem);
         
         // Add refresh button
         ItemStack refreshItem = createGuiItem(Material.CLOCK, ChatColor.YELLOW + "Refresh");
-        inventory.setItem(50, refreshItem);
-        
-        // Add close button
-        ItemStack closeItem = createGuiItem(Material.BARRIER, ChatColor.RED + "Close");
-        inventory.setItem(53, closeItem);
+        inventory.setItem(REFRESH_SLOT, refreshItem);
+    }
+    
+    private static int lastPage(int total) {
+        return Math.max(0, (total - 1) / PAGE_SIZE);
     }
     
     private ItemStack createPlayerItem(WhitelistedPlayer player) {
@@ -156,10 +222,65 @@ public class WhitelistManagerGUI {
     }
     
     public void open(Player player) {
+        View view = new View();
+        Inventory inventory = Bukkit.createInventory(view, 54, ChatColor.DARK_PURPLE + "Discord Whitelist Manager");
+        view.inventory = inventory;
+        
+        initializeItems(inventory);
         player.openInventory(inventory);
+        showPage(player, inventory, 0);
     }
     
-    public Inventory getInventory() {
-        return inventory;
+    /**
+     * Check if an inventory is a whitelist manager GUI
+     * 
+     * @param inventory The inventory
+     * @return true if it was opened by this GUI
+     */
+    public boolean isGui(Inventory inventory) {
+        return inventory.getHolder() instanceof View;
+    }
+    
+    /**
+     * Get the page shown in a viewer's inventory
+     * 
+     * @param inventory The viewer's GUI inventory
+     * @return The page, counted from 0
+     */
+    public int getPage(Inventory inventory) {
+        return ((View) inventory.getHolder()).page;
+    }
+    
+    /**
+     * Get the player shown in a slot of a viewer's inventory
+     * 
+     * @param inventory The viewer's GUI inventory
+     * @param slot The slot
+     * @return The whitelisted player, or null if the slot doesn't show one
+     */
+    public WhitelistedPlayer getPlayerAt(Inventory inventory, int slot) {
+        List<WhitelistedPlayer> shown = ((View) inventory.getHolder()).shown;
+        int index = slot - FIRST_PLAYER_SLOT;
+        return index >= 0 && index < PAGE_SIZE && index < shown.size() ? shown.get(index) : null;
+    }
+    
+    /**
+     * Holder marking a viewer's GUI inventory, with the viewer's page state
+     * Only touched on the viewer's thread
+     */
+    private static class View implements InventoryHolder {
+        private Inventory inventory;
+        private int page;
+        private int total;
+        private List<WhitelistedPlayer> shown = List.of();
+        // The visible page and the pages next to it, once read
+        private final Map<Integer, List<WhitelistedPlayer>> pages = new HashMap<>();
+        // Bumped when cached pages are dropped, so reads started before are ignored
+        private long generation;
+        
+        @Override
+        public Inventory getInventory() {
+            return inventory;
+        }
     }
 }
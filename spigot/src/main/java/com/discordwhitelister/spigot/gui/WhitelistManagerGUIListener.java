@@ -2,14 +2,13 @@ package com.discordwhitelister.spigot.gui;
 
 import com.discordwhitelister.common.storage.WhitelistStorage;
 import com.discordwhitelister.common.storage.WhitelistedPlayer;
+import com.discordwhitelister.spigot.scheduler.ServerScheduler;
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.Inventory;
 
 import java.util.List;
 
@@ -19,90 +18,71 @@ import java.util.List;
 public class WhitelistManagerGUIListener implements Listener {
     private final WhitelistStorage storage;
     private final WhitelistManagerGUI gui;
+    private final ServerScheduler scheduler;
     
-    public WhitelistManagerGUIListener(WhitelistStorage storage, WhitelistManagerGUI gui) {
+    public WhitelistManagerGUIListener(WhitelistStorage storage, WhitelistManagerGUI gui, ServerScheduler scheduler) {
         this.storage = storage;
         this.gui = gui;
+        this.scheduler = scheduler;
     }
     
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
-        if (event.getInventory() != gui.getInventory()) {
+        Inventory inventory = event.getInventory();
+        if (!gui.isGui(inventory)) {
             return;
         }
         
         event.setCancelled(true);
         
         Player player = (Player) event.getWhoClicked();
-        ItemStack clickedItem = event.getCurrentItem();
+        int slot = event.getRawSlot();
         
-        if (clickedItem == null || clickedItem.getType() == Material.AIR) {
+        // Ignore clicks in the player's own inventory and on empty slots
+        if (slot < 0 || slot >= inventory.getSize() || inventory.getItem(slot) == null) {
             return;
         }
         
-        // Handle refresh button
-        if (clickedItem.getType() == Material.CLOCK) {
-            gui.updatePlayerList();
-            player.sendMessage(ChatColor.GREEN + "Whitelist refreshed!");
-            return;
-        }
-        
-        // Handle close button
-        if (clickedItem.getType() == Material.BARRIER) {
-            player.closeInventory();
-            return;
-        }
-        
-        // Handle player removal (Java Edition)
-        if (clickedItem.getType() == Material.PLAYER_HEAD) {
-            handlePlayerRemoval(player, clickedItem, false);
-            return;
+        switch (slot) {
+            case WhitelistManagerGUI.REFRESH_SLOT:
+                gui.refresh(player, inventory);
+                player.sendMessage(ChatColor.GREEN + "Whitelist refreshed!");
+                return;
+            case WhitelistManagerGUI.CLOSE_SLOT:
+                player.closeInventory();
+                return;
+            case WhitelistManagerGUI.PREVIOUS_SLOT:
+                gui.showPage(player, inventory, gui.getPage(inventory) - 1);
+                return;
+            case WhitelistManagerGUI.NEXT_SLOT:
+                gui.showPage(player, inventory, gui.getPage(inventory) + 1);
+                return;
+            default:
+                break;
         }
         
-        // Handle player removal (Bedrock Edition)
-        if (clickedItem.getType() == Material.DIAMOND) {
-            handlePlayerRemoval(player, clickedItem, true);
-            return;
+        // Handle player removal
+        WhitelistedPlayer target = gui.getPlayerAt(inventory, slot);
+        if (target != null) {
+            handlePlayerRemoval(player, inventory, target);
         }
     }
     
-    private void handlePlayerRemoval(Player player, ItemStack clickedItem, boolean isBedrock) {
-        ItemMeta meta = clickedItem.getItemMeta();
-        if (meta == null || !meta.hasDisplayName()) {
-            return;
-        }
-        
-        String displayName = ChatColor.stripColor(meta.getDisplayName());
-        String username;
-        
-        if (isBedrock) {
-            // For Bedrock players, remove the " (Bedrock)" suffix
-            username = displayName.replace(" (Bedrock)", "");
-        } else {
-            username = displayName;
-        }
-        
-        // Check if player exists in whitelist
-        List<WhitelistedPlayer> players = storage.getAllPlayers();
-        WhitelistedPlayer targetPlayer = null;
+    private void handlePlayerRemoval(Player player, Inventory inventory, WhitelistedPlayer target) {
+        String username = target.getUsername();
         
-        for (WhitelistedPlayer wp : players) {
-            if (wp.getUsername().equalsIgnoreCase(username) && wp.isBedrock() == isBedrock) {
-                targetPlayer = wp;
-                break;
-            }
-        }
-        
-        if (targetPlayer != null) {
-            boolean removed = storage.removePlayer(username);
-            if (removed) {
-                player.sendMessage(ChatColor.GREEN + "Player " + username + (isBedrock ? " (Bedrock)" : "") + " removed from whitelist!");
-                gui.updatePlayerList();
-            } else {
-                player.sendMessage(ChatColor.RED + "Failed to remove player from whitelist!");
-            }
-        } else {
-            player.sendMessage(ChatColor.RED + "Player not found in whitelist!");
-        }
+        // Storage is blocking, so it's changed off the server thread and the reply is sent on the player's thread
+        scheduler.runAsync(() -> {
+            // Removing reports what was removed, so the whitelist doesn't have to be searched first
+            List<WhitelistedPlayer> removed = storage.removePlayers(List.of(username));
+            scheduler.runForPlayer(player, () -> {
+                if (!removed.isEmpty()) {
+                    player.sendMessage(ChatColor.GREEN + "Player " + username + (target.isBedrock() ? " (Bedrock)" : "") + " removed from whitelist!");
+                    gui.refresh(player, inventory);
+                } else {
+                    player.sendMessage(ChatColor.RED + "Player not found in whitelist!");
+                }
+            });
+        });
     }
 }
@@ -1,6 +1,9 @@
 package com.discordwhitelister.spigot.listeners;
 
+import com.discordwhitelister.common.login.LoginResult;
 import com.discordwhitelister.spigot.DiscordWhitelisterPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -8,6 +11,8 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 
+import java.util.UUID;
+
 /**
  * Listener for player join events to enforce whitelist
  */
@@ -26,22 +31,37 @@ public class PlayerJoinListener implements Listener {
         }
         
         String username = event.getName();
+        UUID uuid = event.getUniqueId();
         
-        // Check if player is whitelisted
-        if (!plugin.isWhitelisted(username)) {
+        // Operators and players on the vanilla whitelist are let in like they would be without the plugin
+        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
+        if (offlinePlayer.isOp() || offlinePlayer.isWhitelisted()) {
+            return;
+        }
+        
+        // Check if player is whitelisted (denials are throttled and logged by the login gate)
+        LoginResult result;
+        if (uuid.getMostSignificantBits() == 0) {
+            // Floodgate gives Bedrock players the UUID 00000000-0000-0000-xxxx-xxxxxxxxxxxx, with their XUID in the low bits
+            String xuid = Long.toString(uuid.getLeastSignificantBits());
+            result = plugin.getLoginGate().checkBedrock(username, xuid, event.getAddress());
+        } else {
+            result = plugin.getLoginGate().checkJava(username, event.getAddress());
+        }
+        if (!result.isAllowed()) {
             String kickMessage = plugin.getConfig().getString(
                 "plugin.kick-message", 
                 "You are not whitelisted on this server. Please join our Discord server to get whitelisted."
             );
             
             event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_WHITELIST, kickMessage);
-            plugin.getLogger().info("Blocked login attempt by non-whitelisted player: " + username);
         }
     }
     
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        plugin.rememberPlayer(player);
         
         // If the player is an operator, don't check whitelist
         if (player.isOp()) {
@@ -0,0 +1,68 @@
+package com.discordwhitelister.spigot.scheduler;
+
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Scheduler for Spigot and Paper, where all server state belongs to the main thread
+ */
+public class BukkitServerScheduler implements ServerScheduler {
+    private final Plugin plugin;
+    
+    public BukkitServerScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public void runSync(Runnable task) {
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+    
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+    }
+    
+    @Override
+    public Task runSyncLater(Runnable task, long delayMillis) {
+        BukkitTask scheduled = Bukkit.getScheduler().runTaskLater(plugin, task, PlatformScheduler.toTicks(delayMillis));
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public Task runAsyncLater(Runnable task, long delayMillis) {
+        BukkitTask scheduled = Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, task, PlatformScheduler.toTicks(delayMillis));
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public Task runSyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        BukkitTask scheduled = Bukkit.getScheduler().runTaskTimer(plugin, task,
+            PlatformScheduler.toTicks(delayMillis), PlatformScheduler.toTicks(periodMillis));
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public Task runAsyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        BukkitTask scheduled = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, task,
+            PlatformScheduler.toTicks(delayMillis), PlatformScheduler.toTicks(periodMillis));
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (player.isOnline()) {
+                task.run();
+            }
+        });
+    }
+    
+    @Override
+    public boolean isFolia() {
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+package com.discordwhitelister.spigot.scheduler;
+
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler for Folia's regionised threading
+ *
+ * Sync tasks run on the global region. Only loaded when Folia is detected, so the Folia
+ * scheduler API is never touched on Spigot.
+ */
+public class FoliaServerScheduler implements ServerScheduler {
+    private final Plugin plugin;
+    
+    public FoliaServerScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public void runSync(Runnable task) {
+        Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+    }
+    
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getAsyncScheduler().runNow(plugin, scheduled -> task.run());
+    }
+    
+    @Override
+    public Task runSyncLater(Runnable task, long delayMillis) {
+        ScheduledTask scheduled = Bukkit.getGlobalRegionScheduler().runDelayed(plugin, t -> task.run(),
+            PlatformScheduler.toTicks(delayMillis));
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public Task runAsyncLater(Runnable task, long delayMillis) {
+        ScheduledTask scheduled = Bukkit.getAsyncScheduler().runDelayed(plugin, t -> task.run(),
+            Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public Task runSyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        // Folia requires a delay of at least one tick, which toTicks guarantees
+        ScheduledTask scheduled = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, t -> task.run(),
+            PlatformScheduler.toTicks(delayMillis), PlatformScheduler.toTicks(periodMillis));
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public Task runAsyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        ScheduledTask scheduled = Bukkit.getAsyncScheduler().runAtFixedRate(plugin, t -> task.run(),
+            Math.max(0, delayMillis), Math.max(1, periodMillis), TimeUnit.MILLISECONDS);
+        return scheduled::cancel;
+    }
+    
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        // Runs on the thread of the region the player is in, even if they move between regions
+        player.getScheduler().run(plugin, scheduled -> task.run(), null);
+    }
+    
+    @Override
+    public boolean isFolia() {
+        return true;
+    }
+}
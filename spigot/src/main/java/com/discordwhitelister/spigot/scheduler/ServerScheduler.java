@@ -0,0 +1,61 @@
+package com.discordwhitelister.spigot.scheduler;
+
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Platform scheduler for Bukkit servers, with tasks that belong to a player
+ *
+ * On Spigot and Paper sync tasks run on the main thread. Folia has no main thread: global
+ * state such as the whitelist belongs to the global region, where sync tasks run, and a
+ * player belongs to the region they are in. Blocking work like storage access runs on an
+ * async thread on both.
+ */
+public interface ServerScheduler extends PlatformScheduler {
+    /**
+     * Run a task that touches a player, such as their open inventory
+     * The task is dropped if the player has left
+     * 
+     * @param player The player
+     * @param task The task
+     */
+    void runForPlayer(Player player, Runnable task);
+    
+    /**
+     * Run a task that replies to a command sender
+     * 
+     * @param sender The player or console that sent the command
+     * @param task The task
+     */
+    default void runForSender(CommandSender sender, Runnable task) {
+        if (sender instanceof Player) {
+            runForPlayer((Player) sender, task);
+        } else {
+            runSync(task);
+        }
+    }
+    
+    /**
+     * Check if the server is running Folia
+     * 
+     * @return true on Folia
+     */
+    boolean isFolia();
+    
+    /**
+     * Create the scheduler for the running server
+     * 
+     * @param plugin The plugin owning the tasks
+     * @return A Folia scheduler on Folia, otherwise a Bukkit scheduler
+     */
+    static ServerScheduler create(Plugin plugin) {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return new FoliaServerScheduler(plugin);
+        } catch (ClassNotFoundException e) {
+            return new BukkitServerScheduler(plugin);
+        }
+    }
+}
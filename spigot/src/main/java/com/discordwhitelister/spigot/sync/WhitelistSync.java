@@ -0,0 +1,222 @@
+package com.discordwhitelister.spigot.sync;
+
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
+import com.discordwhitelister.common.scheduler.TickBudgetExecutor;
+import com.discordwhitelister.common.storage.WhitelistChangeListener;
+import com.discordwhitelister.common.storage.WhitelistStorage;
+import com.discordwhitelister.common.storage.WhitelistedPlayer;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the server's vanilla whitelist in step with whitelist storage
+ *
+ * At startup the difference between storage and the server whitelist is computed off the
+ * main thread, and only the missing entries are queued. After that, storage change events
+ * queue just the changed entries, so the whole whitelist is never scanned again. Queued changes are
+ * applied on the thread owning the server whitelist (the main thread, or Folia's global
+ * region) in small batches through a {@link TickBudgetExecutor}, and each tick stops once its
+ * time budget is spent, because every change may rewrite whitelist.json.
+ *
+ * Removals are matched by the UUID of the removed storage entry, so they also work after a
+ * rename. Several players removed in one storage operation are removed from the server
+ * whitelist with a single rewrite of whitelist.json followed by a reload.
+ */
+public class WhitelistSync implements WhitelistChangeListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WhitelistSync.class);
+    private static final int PAGE_SIZE = 1000;
+    private static final Path WHITELIST_FILE = Path.of("whitelist.json");
+
+    private final WhitelistStorage storage;
+    private final Executor executor;
+    private final TickBudgetExecutor pending;
+
+    /**
+     * Create a sync
+     *
+     * @param scheduler The scheduler running the sync task
+     * @param storage The whitelist storage
+     * @param executor Executor for reading storage and computing the difference
+     * @param batchSize Maximum number of changes applied per tick
+     * @param tickBudgetMillis Maximum time spent applying changes per tick
+     */
+    public WhitelistSync(PlatformScheduler scheduler, WhitelistStorage storage, Executor executor, int batchSize, long tickBudgetMillis) {
+        this.storage = storage;
+        this.executor = executor;
+        this.pending = new TickBudgetExecutor(scheduler, batchSize, tickBudgetMillis);
+    }
+
+    /**
+     * Queue the players missing from the server whitelist and start applying changes
+     * Call this on the main thread (Folia: the global region), after registering the sync as a storage listener
+     */
+    public void start() {
+        // The server whitelist is only read on the main thread; this copies UUIDs, no disk access
+        Set<UUID> whitelisted = new HashSet<>();
+        for (OfflinePlayer player : Bukkit.getWhitelistedPlayers()) {
+            whitelisted.add(player.getUniqueId());
+        }
+
+        CompletableFuture.runAsync(() -> {
+            int queued = 0;
+            int offset = 0;
+            List<WhitelistedPlayer> page;
+            while (!(page = storage.getPlayers(offset, PAGE_SIZE)).isEmpty()) {
+                for (WhitelistedPlayer player : page) {
+                    // Bedrock players are let in by Geyser/Floodgate, not the vanilla whitelist
+                    if (!player.isBedrock() && player.getUuid() != null && !whitelisted.contains(player.getUuid())) {
+                        queue(new Change(List.of(player.getUuid()), player.getUsername(), true));
+                        queued++;
+                    }
+                }
+                offset += page.size();
+            }
+            LOGGER.info("Queued {} player(s) missing from the server whitelist", queued);
+        }, executor).exceptionally(ex -> {
+            LOGGER.error("Failed to compare storage with the server whitelist", ex);
+            return null;
+        });
+
+        pending.start();
+    }
+
+    private void queue(Change change) {
+        pending.execute(() -> apply(change));
+    }
+
+    /**
+     * Apply one queued change, on the main thread
+     */
+    private void apply(Change change) {
+        if (change.uuids().size() > 1 && !change.whitelisted()) {
+            removeAll(change);
+            return;
+        }
+
+        for (UUID uuid : change.uuids()) {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+            if (player.isWhitelisted() != change.whitelisted()) {
+                player.setWhitelisted(change.whitelisted());
+            }
+        }
+        LOGGER.debug("{} {} {} the server whitelist", change.whitelisted() ? "Added" : "Removed",
+                     change.description(), change.whitelisted() ? "to" : "from");
+    }
+
+    /**
+     * Remove several players with one write of whitelist.json and one reload
+     * Bukkit has no bulk whitelist API, and each setWhitelisted call saves the file
+     */
+    private void removeAll(Change change) {
+        Set<String> uuids = new HashSet<>();
+        for (UUID uuid : change.uuids()) {
+            uuids.add(uuid.toString());
+        }
+
+        try {
+            JsonArray entries;
+            try (Reader reader = Files.newBufferedReader(WHITELIST_FILE, StandardCharsets.UTF_8)) {
+                entries = new Gson().fromJson(reader, JsonArray.class);
+            }
+            if (entries == null) {
+                return;
+            }
+
+            JsonArray kept = new JsonArray();
+            for (JsonElement entry : entries) {
+                JsonElement uuid = entry.isJsonObject() ? entry.getAsJsonObject().get("uuid") : null;
+                if (uuid == null || !uuids.contains(uuid.getAsString())) {
+                    kept.add(entry);
+                }
+            }
+            if (kept.size() == entries.size()) {
+                return;
+            }
+
+            Path temp = WHITELIST_FILE.resolveSibling(WHITELIST_FILE.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(kept, writer);
+            }
+            Files.move(temp, WHITELIST_FILE, StandardCopyOption.REPLACE_EXISTING);
+            Bukkit.reloadWhitelist();
+            LOGGER.debug("Removed {} player(s) from the server whitelist", entries.size() - kept.size());
+        } catch (IOException | RuntimeException e) {
+            // Fall back to removing the players one by one
+            LOGGER.warn("Failed to update {} in one write, removing players individually", WHITELIST_FILE, e);
+            for (UUID uuid : change.uuids()) {
+                OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+                if (player.isWhitelisted()) {
+                    player.setWhitelisted(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void playerAdded(String username, UUID uuid, String xuid) {
+        if (uuid != null) {
+            queue(new Change(List.of(uuid), username, true));
+        }
+    }
+
+    @Override
+    public void playersRemoved(List<WhitelistedPlayer> players) {
+        List<UUID> uuids = new ArrayList<>(players.size());
+        List<String> names = new ArrayList<>(players.size());
+        for (WhitelistedPlayer player : players) {
+            if (!player.isBedrock() && player.getUuid() != null) {
+                uuids.add(player.getUuid());
+                names.add(player.getUsername());
+            }
+        }
+        if (!uuids.isEmpty()) {
+            queue(new Change(uuids, String.join(", ", names), false));
+        }
+    }
+
+    /**
+     * Get the number of changes waiting to be applied
+     *
+     * @return The queue length
+     */
+    public int getPendingCount() {
+        return pending.getPendingCount();
+    }
+
+    /**
+     * Stop applying changes; changes still queued are dropped and found again by the next startup diff
+     */
+    public void stop() {
+        pending.close();
+    }
+
+    /**
+     * A change to the server whitelist
+     *
+     * @param uuids The UUIDs of the players
+     * @param description The players' names, for logging
+     * @param whitelisted true to add the players, false to remove them
+     */
+    private record Change(List<UUID> uuids, String description, boolean whitelisted) {}
+}
@@ -3,9 +3,12 @@ package com.discordwhitelister.velocity;
 import com.discordwhitelister.common.DiscordWhitelisterService;
 import com.discordwhitelister.common.config.WhitelisterConfig;
 import com.discordwhitelister.common.discord.DiscordBot;
-import com.discordwhitelister.common.lookup.MinecraftPlayerLookup;
-import com.discordwhitelister.common.lookup.MojangPlayerLookup;
-import com.discordwhitelister.common.storage.JsonWhitelistStorage;
+import com.discordwhitelister.common.login.LoginResult;
+import com.discordwhitelister.common.lookup.CachingPlayerLookup;
+import com.discordwhitelister.common.lookup.ChainedPlayerLookup;
+import com.discordwhitelister.common.lookup.LocalPlayerLookup;
+import com.discordwhitelister.common.lookup.MinecraftPlayerLookup.PlayerInfo;
+import com.discordwhitelister.common.request.RequestScheduler;
 import com.discordwhitelister.common.storage.WhitelistedPlayer;
 import com.discordwhitelister.common.storage.WhitelistStorage;
 import com.google.inject.Inject;
@@ -32,7 +35,6 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -56,7 +58,7 @@ public class DiscordWhitelisterVelocity {
     private DiscordWhitelisterService service;
     private WhitelisterConfig config;
     private WhitelistStorage whitelistStorage;
-    private MinecraftPlayerLookup playerLookup;
+    private LocalPlayerLookup localLookup;
     private boolean enforceWhitelist = true;
 
     @Inject
@@ -98,14 +100,8 @@ public class DiscordWhitelisterVelocity {
         // Load configuration
         loadConfiguration();
 
-        // Initialize whitelist storage
-        initializeWhitelistStorage();
-
-        // Initialize player lookup
-        playerLookup = new MojangPlayerLookup();
-
-        // Initialize Discord bot
-        initializeDiscordBot();
+        // Initialize storage, login checks and Discord bot
+        initializeService();
 
         // Register commands
         registerCommands();
@@ -137,29 +133,30 @@ public class DiscordWhitelisterVelocity {
         config.setRequiredRoleId("");
         config.setStorageType("json");
         config.setStoragePath(dataDirectory.resolve("whitelist.json").toString());
+        config.setLookupCacheFile(dataDirectory.resolve("lookup-cache.json").toString());
+        config.setLookupRefreshCheckpointFile(dataDirectory.resolve("name-refresh.json").toString());
+        config.setLookupMode(server.getConfiguration().isOnlineMode() ? "online" : "offline");
         
         // In a real implementation, you would load these values from the config file
         
         enforceWhitelist = true;
     }
 
-    private void initializeWhitelistStorage() {
-        String storageType = config.getStorageType();
-        if (storageType.equalsIgnoreCase("json")) {
-            whitelistStorage = new JsonWhitelistStorage(config);
-        } else {
-            logger.warn("Unknown storage type: {}. Using JSON storage.", storageType);
-            whitelistStorage = new JsonWhitelistStorage(config);
-        }
-        
-        whitelistStorage.initialize();
-    }
-
-    private void initializeDiscordBot() {
-        DiscordBot discordBot = new DiscordBot(config, whitelistStorage, playerLookup);
+    private void initializeService() {
         service = new DiscordWhitelisterService(config);
+        service.setPlatformScheduler(new VelocityPlatformScheduler(server, this));
+        
+        // Players on or seen by the proxy are resolved without asking Mojang, but only if their UUIDs came from Mojang
+        if (!config.isOfflineLookupMode() && server.getConfiguration().isOnlineMode()) {
+            localLookup = new LocalPlayerLookup(name -> server.getPlayer(name)
+                .map(player -> new PlayerInfo(player.getUsername(), player.getUniqueId(), null))
+                .orElse(null), config.getLookupCacheSize());
+            service.addLocalLookup("proxy", localLookup);
+        }
         service.initialize();
-        service.start();
+        
+        // Share the service's storage so commands, login checks and the bot see the same data
+        whitelistStorage = service.getWhitelistStorage();
     }
 
     private void registerCommands() {
@@ -173,6 +170,9 @@ public class DiscordWhitelisterVelocity {
 
     @Subscribe
     public void onLogin(LoginEvent event) {
+        if (localLookup != null) {
+            localLookup.remember(event.getPlayer().getUsername(), event.getPlayer().getUniqueId());
+        }
         if (!enforceWhitelist) {
             return;
         }
@@ -181,6 +181,7 @@ public class DiscordWhitelisterVelocity {
         String username = player.getUsername();
         UUID uuid = player.getUniqueId();
         String xuid = null;
+        LoginResult result;
 
         // Check if this is a Bedrock player via Geyser
         // Geyser players have a specific prefix in their UUID
@@ -192,18 +193,16 @@ public class DiscordWhitelisterVelocity {
             xuid = uuidStr.substring(uuidStr.lastIndexOf("-") + 1);
             
             // Check if Bedrock player is whitelisted
-            if (!whitelistStorage.isBedrockWhitelisted(xuid)) {
-                event.setResult(LoginEvent.ComponentResult.denied(
-                    Component.text("You are not whitelisted on this server!").color(NamedTextColor.RED)
-                ));
-            }
+            result = service.getLoginGate().checkBedrock(username, xuid, player.getRemoteAddress().getAddress());
         } else {
             // This is a Java player
-            if (!whitelistStorage.isWhitelisted(username)) {
-                event.setResult(LoginEvent.ComponentResult.denied(
-                    Component.text("You are not whitelisted on this server!").color(NamedTextColor.RED)
-                ));
-            }
+            result = service.getLoginGate().checkJava(username, player.getRemoteAddress().getAddress());
+        }
+
+        if (!result.isAllowed()) {
+            event.setResult(LoginEvent.ComponentResult.denied(
+                Component.text("You are not whitelisted on this server!").color(NamedTextColor.RED)
+            ));
         }
     }
 
@@ -241,19 +240,15 @@ public class DiscordWhitelisterVelocity {
     }
 
     public void reloadPluginConfig() {
-        // Stop the current service
-        if (service != null) {
-            service.shutdown();
-        }
-        
         // Reload configuration
         loadConfiguration();
         
-        // Initialize whitelist storage
-        initializeWhitelistStorage();
-        
-        // Initialize Discord bot
-        initializeDiscordBot();
+        // Swap in the new settings; the Discord bot only reconnects if its connection settings changed
+        if (service != null) {
+            service.reload(config);
+        } else {
+            initializeService();
+        }
     }
 
     /**
@@ -272,21 +267,22 @@ public class DiscordWhitelisterVelocity {
             
             String subCommand = args[0].toLowerCase();
             
+            // Storage calls block, so those subcommands run on the proxy's async pool
             switch (subCommand) {
                 case "add":
                     handleAddCommand(invocation, args);
                     break;
                 case "addbedrock":
-                    handleAddBedrockCommand(invocation, args);
+                    service.getPlatformScheduler().runAsync(() -> handleAddBedrockCommand(invocation, args));
                     break;
                 case "remove":
-                    handleRemoveCommand(invocation, args);
+                    service.getPlatformScheduler().runAsync(() -> handleRemoveCommand(invocation, args));
                     break;
                 case "list":
-                    handleListCommand(invocation, args);
+                    service.getPlatformScheduler().runAsync(() -> handleListCommand(invocation, args));
                     break;
                 case "status":
-                    handleStatusCommand(invocation);
+                    service.getPlatformScheduler().runAsync(() -> handleStatusCommand(invocation));
                     break;
                 case "reload":
                     handleReloadCommand(invocation);
@@ -342,18 +338,18 @@ public class DiscordWhitelisterVelocity {
             String username = args[1];
             String discordId = args.length > 2 ? args[2] : "manual-" + System.currentTimeMillis();
             
-            // Try to get UUID from ProxyServer
-            Optional<Player> playerOpt = server.getPlayer(username);
-            UUID uuid = playerOpt.map(Player::getUniqueId).orElse(null);
-            
-            // Add to whitelist
-            boolean added = addToWhitelist(username, uuid, discordId);
-            
-            if (added) {
-                invocation.source().sendMessage(Component.text("Player " + username + " has been added to the whitelist.").color(NamedTextColor.GREEN));
-            } else {
-                invocation.source().sendMessage(Component.text("Failed to add player " + username + " to the whitelist. They may already be whitelisted.").color(NamedTextColor.RED));
-            }
+            // Resolve the UUID from players the proxy knows first and Mojang last
+            service.getPlayerLookup().lookupPlayer(username).whenComplete((player, ex) -> {
+                if (ex != null) {
+                    invocation.source().sendMessage(Component.text("Couldn't look up " + username + " right now. Please try again later.").color(NamedTextColor.RED));
+                } else if (player == null) {
+                    invocation.source().sendMessage(Component.text("No Minecraft account named " + username + " was found.").color(NamedTextColor.RED));
+                } else if (addToWhitelist(player.username(), player.uuid(), discordId)) {
+                    invocation.source().sendMessage(Component.text("Player " + player.username() + " has been added to the whitelist.").color(NamedTextColor.GREEN));
+                } else {
+                    invocation.source().sendMessage(Component.text("Failed to add player " + player.username() + " to the whitelist. They may already be whitelisted.").color(NamedTextColor.RED));
+                }
+            });
         }
         
         private void handleAddBedrockCommand(Invocation invocation, String[] args) {
@@ -475,14 +471,14 @@ public class DiscordWhitelisterVelocity {
                 return;
             }
             
-            boolean botConnected = getDiscordBot().getJda() != null && 
-                                  getDiscordBot().getJda().getStatus() == net.dv8tion.jda.api.JDA.Status.CONNECTED;
+            DiscordBot.Status botStatus = getDiscordBot().getStatus();
+            NamedTextColor statusColor = botStatus == DiscordBot.Status.READY ? NamedTextColor.GREEN
+                : botStatus == DiscordBot.Status.CONNECTING ? NamedTextColor.GOLD : NamedTextColor.RED;
             
             invocation.source().sendMessage(Component.text("Discord Whitelister Status:").color(NamedTextColor.GREEN));
             invocation.source().sendMessage(
                 Component.text("Discord Bot: ").color(NamedTextColor.YELLOW)
-                    .append(Component.text(botConnected ? "Connected" : "Disconnected")
-                        .color(botConnected ? NamedTextColor.GREEN : NamedTextColor.RED))
+                    .append(Component.text(botStatus.getDisplayName()).color(statusColor))
             );
             
             List<WhitelistedPlayer> players = getWhitelistedPlayers();
@@ -494,6 +490,33 @@ public class DiscordWhitelisterVelocity {
                     .append(Component.text(players.size() + " (" + javaCount + " Java, " + bedrockCount + " Bedrock)")
                         .color(NamedTextColor.WHITE))
             );
+            
+            RequestScheduler.Stats queue = getDiscordBot().getRequestScheduler().getStats();
+            invocation.source().sendMessage(
+                Component.text("Request Queue: ").color(NamedTextColor.YELLOW)
+                    .append(Component.text(queue.queueDepth() + " waiting, " + queue.running() + " running" + 
+                                           String.format(" (avg wait %.0f ms, max %.0f ms)", queue.averageWaitMillis(), queue.maxWaitMillis()))
+                        .color(NamedTextColor.WHITE))
+            );
+            
+            invocation.source().sendMessage(
+                Component.text("Lookup Tiers: ").color(NamedTextColor.YELLOW)
+                    .append(Component.text(service.getLookupChain().getStats().stream()
+                                           .map(ChainedPlayerLookup.TierStats::format)
+                                           .collect(Collectors.joining(", ")))
+                        .color(NamedTextColor.WHITE))
+            );
+            
+            CachingPlayerLookup lookupCache = service.getLookupCache();
+            if (lookupCache != null) {
+                CachingPlayerLookup.Stats cache = lookupCache.getStats();
+                invocation.source().sendMessage(
+                    Component.text("Lookup Cache: ").color(NamedTextColor.YELLOW)
+                        .append(Component.text(cache.size() + " names" + String.format(" (%.0f%% hit rate, %d misses, %d evictions)",
+                                               cache.hitRate() * 100, cache.misses(), cache.evictions()))
+                            .color(NamedTextColor.WHITE))
+                );
+            }
         }
         
         private void handleReloadCommand(Invocation invocation) {
@@ -0,0 +1,63 @@
+package com.discordwhitelister.velocity;
+
+import com.discordwhitelister.common.scheduler.PlatformScheduler;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler backed by the Velocity task scheduler
+ * The proxy has no main thread, so sync tasks run on its async pool
+ */
+public class VelocityPlatformScheduler implements PlatformScheduler {
+    private final ProxyServer server;
+    private final Object plugin;
+
+    public VelocityPlatformScheduler(ProxyServer server, Object plugin) {
+        this.server = server;
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void runSync(Runnable task) {
+        runAsync(task);
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        server.getScheduler().buildTask(plugin, task).schedule();
+    }
+
+    @Override
+    public Task runSyncLater(Runnable task, long delayMillis) {
+        return runAsyncLater(task, delayMillis);
+    }
+
+    @Override
+    public Task runAsyncLater(Runnable task, long delayMillis) {
+        ScheduledTask scheduled = server.getScheduler().buildTask(plugin, task)
+            .delay(Math.max(0, delayMillis), TimeUnit.MILLISECONDS)
+            .schedule();
+        return scheduled::cancel;
+    }
+
+    @Override
+    public Task runSyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        return runAsyncRepeating(task, delayMillis, periodMillis);
+    }
+
+    @Override
+    public Task runAsyncRepeating(Runnable task, long delayMillis, long periodMillis) {
+        ScheduledTask scheduled = server.getScheduler().buildTask(plugin, task)
+            .delay(Math.max(0, delayMillis), TimeUnit.MILLISECONDS)
+            .repeat(Math.max(1, periodMillis), TimeUnit.MILLISECONDS)
+            .schedule();
+        return scheduled::cancel;
+    }
+
+    @Override
+    public boolean hasMainThread() {
+        return false;
+    }
+}